@@ -0,0 +1,77 @@
+package navigation;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Class LocationBenchmark
+ * <p>
+ * Benchmarks the per-fix coordinate math in Location
+ *
+ * @author Brian Hooper
+ * @since 0.9.8
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dfile.encoding=UTF-8")
+public class LocationBenchmark {
+    // Location updated in place, as the Navigator's current location is
+    private final Location current = new Location(6, 0, 'D');
+
+    // Index into the fixture's positions
+    private int index = 0;
+
+    /**
+     * Returns the next position index
+     *
+     * @return index
+     */
+    private int next() {
+        index = (index + 1) & (NavigationFixture.positionCount - 1);
+        return index;
+    }
+
+    /**
+     * Haversine distance, angle and offset calculation for a new fix
+     */
+    @Benchmark
+    public Location updateLocation(NavigationFixture fixture) {
+        int i = next();
+        current.updateLocation(fixture.latitudes[i], fixture.longitudes[i]);
+        return current;
+    }
+
+    @Benchmark
+    public int distance(NavigationFixture fixture) {
+        int i = next();
+        return fixture.locations[i].distance(fixture.locations[(i + 1) & (NavigationFixture.positionCount - 1)]);
+    }
+
+    @Benchmark
+    public String cardinal(NavigationFixture fixture) {
+        int i = next();
+        return fixture.locations[i].cardinal(fixture.locations[(i + 1) & (NavigationFixture.positionCount - 1)]);
+    }
+
+    @Benchmark
+    public String toStreet(NavigationFixture fixture) {
+        return Location.toStreet(fixture.distances[next()]);
+    }
+
+    @Benchmark
+    public int toDistance(NavigationFixture fixture) {
+        return Location.toDistance(fixture.streets[next()]);
+    }
+}
@@ -0,0 +1,75 @@
+package navigation;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+
+/**
+ * Class NavigationFixture
+ * <p>
+ * Shared benchmark state loaded from the real config/ datasets
+ * <p>
+ * Loading the Navigator also applies the man coordinates, adjustment coefficients and block distances
+ * from config.cfg. Benchmarks cycle through a fixed set of positions around the city so results do
+ * not depend on one cached location.
+ *
+ * @author Brian Hooper
+ * @since 0.9.8
+ */
+@State(Scope.Benchmark)
+public class NavigationFixture {
+    // Number of precomputed positions, a power of two
+    static final int positionCount = 1024;
+
+    // Navigator with all datasets loaded
+    Navigator navigator;
+
+    // Landmarks with bathrooms, camps and favorites loaded
+    Landmarks landmarks;
+
+    // Precomputed GPS coordinates and Locations around the city
+    double[] latitudes;
+    double[] longitudes;
+    Location[] locations;
+
+    // Distances in feet across the full range of streets
+    int[] distances;
+
+    // Street letters, including unknown letters
+    char[] streets;
+
+    // Camp search terms
+    String[] searchTerms;
+
+    /**
+     * Loads the datasets and generates positions
+     */
+    @Setup(Level.Trial)
+    public void setup() {
+        navigator = new Navigator();
+        navigator.awaitLoaded();
+        landmarks = new Landmarks();
+        landmarks.readBathrooms();
+        landmarks.readCampsTSV();
+        landmarks.readFavoritesTSV();
+
+        Random random = new Random(2019);
+        latitudes = new double[positionCount];
+        longitudes = new double[positionCount];
+        locations = new Location[positionCount];
+        distances = new int[positionCount];
+        streets = new char[positionCount];
+        String letters = "ABCDEFGHIJKLZ";
+        for(int i = 0; i < positionCount; i++) {
+            latitudes[i] = Location.getMan_latitude() + (random.nextDouble() * 2 - 1) * 0.015;
+            longitudes[i] = Location.getMan_longitude() + (random.nextDouble() * 2 - 1) * 0.02;
+            locations[i] = new Location(latitudes[i], longitudes[i]);
+            distances[i] = random.nextInt(6000);
+            streets[i] = letters.charAt(random.nextInt(letters.length()));
+        }
+        searchTerms = new String[]{"camp", "bar", "z", "disco", "temple", "zzz", "*"};
+    }
+}
@@ -0,0 +1,73 @@
+package navigation;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Class NavigatorBenchmark
+ * <p>
+ * Benchmarks the landmark queries and panel update run for each fix
+ *
+ * @author Brian Hooper
+ * @since 0.9.8
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dfile.encoding=UTF-8")
+public class NavigatorBenchmark {
+    // Index into the fixture's positions
+    private int index = 0;
+
+    /**
+     * Returns the next position index
+     *
+     * @return index
+     */
+    private int next() {
+        index = (index + 1) & (NavigationFixture.positionCount - 1);
+        return index;
+    }
+
+    @Benchmark
+    public Location findBathroom(NavigationFixture fixture) {
+        return fixture.landmarks.findBathroom(fixture.locations[next()]);
+    }
+
+    @Benchmark
+    public ArrayList<String> findCamps(NavigationFixture fixture) {
+        return fixture.navigator.findCamps(fixture.searchTerms[next() % fixture.searchTerms.length]);
+    }
+
+    /**
+     * Full per-fix update, moving the current location then building the panel update
+     */
+    @Benchmark
+    public Map<String, String> getPanelUpdate(NavigationFixture fixture) {
+        int i = next();
+        fixture.navigator.updateLocation(fixture.latitudes[i], fixture.longitudes[i]);
+        return fixture.navigator.getPanelUpdate();
+    }
+
+    /**
+     * Per-fix update while standing still, where the previous snapshot is reused
+     */
+    @Benchmark
+    public NavigationSnapshot getSnapshotStationary(NavigationFixture fixture) {
+        fixture.navigator.updateLocation(fixture.latitudes[0], fixture.longitudes[0]);
+        return fixture.navigator.getSnapshot();
+    }
+}
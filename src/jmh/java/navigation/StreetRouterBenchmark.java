@@ -0,0 +1,80 @@
+package navigation;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Class StreetRouterBenchmark
+ * <p>
+ * Benchmarks street routing, following one destination and between changing destinations
+ *
+ * @author Brian Hooper
+ * @since 0.9.8
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dfile.encoding=UTF-8")
+public class StreetRouterBenchmark {
+    // Router for the configured street grid
+    private StreetRouter router;
+
+    // Index into the fixture's positions
+    private int index = 0;
+
+    /**
+     * Builds the router
+     */
+    @Setup(Level.Trial)
+    public void setup() {
+        router = new StreetRouter(Location.getStreetGrid());
+    }
+
+    /**
+     * Returns the next position index
+     *
+     * @return index
+     */
+    private int next() {
+        index = (index + 1) & (NavigationFixture.positionCount - 1);
+        return index;
+    }
+
+    /**
+     * Route from each position to one destination, reusing its search
+     */
+    @Benchmark
+    public StreetRouter.Route routeToDestination(NavigationFixture fixture) {
+        return router.route(fixture.locations[next()], fixture.locations[0]);
+    }
+
+    /**
+     * Route between positions, each to a destination not searched recently
+     */
+    @Benchmark
+    public StreetRouter.Route routeBetween(NavigationFixture fixture) {
+        int i = next();
+        return router.route(fixture.locations[i], fixture.locations[(i * 31 + 7) & (NavigationFixture.positionCount - 1)]);
+    }
+
+    /**
+     * Building the graph and landmark distances
+     */
+    @Benchmark
+    public StreetRouter build() {
+        return new StreetRouter(Location.getStreetGrid());
+    }
+}
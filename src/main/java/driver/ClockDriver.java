@@ -9,7 +9,18 @@ import java.time.format.DateTimeFormatter;
 import java.util.NoSuchElementException;
 import java.util.Scanner;
 
-public class ClockDriver extends Thread {
+/**
+ * Class ClockDriver
+ * <p>
+ * Updates the clock and temperature shown on the view
+ * <p>
+ * The clock is checked each second and only pushed to the view when its text changes. The
+ * temperature file is read on its own, slower task, configured with TEMPERATURE-INTERVAL.
+ *
+ * @author Brian Hooper
+ * @since 0.9.0
+ */
+public class ClockDriver {
     // Formatter for converting between Strings and LocalDateTime objects
     private static final DateTimeFormatter dfDay = DateTimeFormatter.ofPattern("EEEE");
     public static final DateTimeFormatter dfTime = DateTimeFormatter.ofPattern("h:mma");
@@ -20,23 +31,32 @@ public class ClockDriver extends Thread {
     // Main GUI view
     private final View view;
 
-    // Logger
-    private final LogDriver logger = LogDriver.getInstance();
+    // Scheduler running the clock and temperature tasks
+    private final TaskScheduler scheduler;
 
-    // Keeps infinite loop running until instructed to stop
-    private boolean keepRunning;
+    // Scheduled tasks, null until started
+    private TaskScheduler.Task clockTask;
+    private TaskScheduler.Task temperatureTask;
+
+    // Latest temperature, null if unavailable
+    private volatile String temperature;
+
+    // Clock text last shown, only used by the clock task
+    private String lastClock;
 
     /**
      * Constructor
      * <p>
      * Initializes with pointer to current view
      *
-     * @param view View object
+     * @param view      View object
+     * @param scheduler TaskScheduler to run on
      */
-    public ClockDriver(View view) {
+    public ClockDriver(View view, TaskScheduler scheduler) {
         this.view = view;
-        keepRunning = true;
+        this.scheduler = scheduler;
     }
+
     /**
      * Reads the current temperature from the temperature file
      *
@@ -54,26 +74,28 @@ public class ClockDriver extends Thread {
     }
 
     /**
-     * Thread process
-     * <p>
-     * Updates clock each second
+     * Starts the clock and temperature tasks
      */
-    public void run() {
-        try {
-            while(keepRunning) {
-                LocalDateTime time = LocalDateTime.now();
-                String timeString;
-                String temperature = readTemperature();
-                if(temperature != null) {
-                    timeString = dfDay.format(time) + ", " + dfTime.format(time) + " " + temperature + "°";
-                } else {
-                    timeString = dfDay.format(time) + ", " + dfTime.format(time);
-                }
-                view.setClock(timeString);
-                Thread.sleep(1000);
-            }
-        } catch(InterruptedException e) {
-            logger.severe(this.getClass(), "Clock process interrupted: " + e.getMessage());
+    public void start() {
+        temperatureTask = scheduler.schedule("temperature", 10000, () -> temperature = readTemperature());
+        clockTask = scheduler.schedule("clock", 1000, this::updateClock);
+    }
+
+    /**
+     * Pushes the clock text to the view if it changed
+     */
+    private void updateClock() {
+        LocalDateTime time = LocalDateTime.now();
+        String timeString;
+        String currentTemperature = temperature;
+        if(currentTemperature != null) {
+            timeString = dfDay.format(time) + ", " + dfTime.format(time) + " " + currentTemperature + "°";
+        } else {
+            timeString = dfDay.format(time) + ", " + dfTime.format(time);
+        }
+        if(!timeString.equals(lastClock)) {
+            lastClock = timeString;
+            view.setClock(timeString);
         }
     }
 
@@ -81,7 +103,12 @@ public class ClockDriver extends Thread {
      * Function called when terminating application
      */
     public void terminate() {
-        keepRunning = false;
+        if(clockTask != null) {
+            clockTask.cancel();
+        }
+        if(temperatureTask != null) {
+            temperatureTask.cancel();
+        }
     }
 
 }
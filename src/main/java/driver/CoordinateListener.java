@@ -1,105 +1,219 @@
 package driver;
 
-import navigation.Location;
 import navigation.Navigator;
-import view.View;
 
 import java.io.IOException;
-import java.time.LocalDateTime;
-import java.util.AbstractMap;
 
 /**
  * Class CoordinateListener
  * <p>
- * Reads GPS coordinates from file & updates view
+ * Receives GPS coordinates from a PositionSource & updates the view, or another NavigationSink
+ * <p>
+ * The source is chosen with the POSITION-SOURCE config value:
+ * "file" (default) watches the coordinate file, "mapped" reads a memory-mapped slot,
+ * "socket" listens for a local line stream, "gpsd" connects to a gpsd daemon,
+ * "serial" reads NMEA from a device file, and "replay" loops a recorded track at POSITION-SPEED
+ * <p>
+ * Positions are recorded to binary track segments in config/tracker, see TrackWriter and TrackReader.
+ * The latest position is recorded by the "track" task and forced to disk by the "track-commit" task,
+ * so the source thread never writes to disk. Recording is tuned with the TRACK-INTERVAL and
+ * TRACK-COMMIT-INTERVAL task periods, and the TRACK-SEGMENT-SIZE, TRACK-ROTATE-MINUTES,
+ * TRACK-COMMIT-RECORDS and TRACK-WRITER-COMMIT-INTERVAL writer settings
+ * <p>
+ * Sources skip repeated positions, so the "navigation" task also refreshes the view every
+ * NAVIGATION-INTERVAL, letting the speed and times to reach places settle while stopped
  *
  * @author Brian Hooper
  * @since 0.9.0
  */
-public class CoordinateListener extends Thread {
-    // Relative path to tracker file
-    private final String trackerPath;
+public class CoordinateListener implements PositionListener {
+    // Relative path to track directory
+    private static final String trackerPath = "config/tracker";
 
     // Main navigator object
     private final Navigator navigator;
 
-    // Main GUI view
-    private final View view;
+    // Main GUI view or other display
+    private final NavigationSink view;
+
+    // Scheduler for polling sources and track recording
+    private final TaskScheduler scheduler;
 
     // Logger
     private final LogDriver logger = LogDriver.getInstance();
 
-    // Keeps infinite loop running until instructed to stop
-    private boolean keepRunning;
+    // Source of GPS positions
+    private PositionSource source;
+
+    // Track recorder, null until started
+    private TrackWriter trackWriter;
+
+    // Track recording, commit and view refresh tasks, null until started
+    private TaskScheduler.Task trackTask;
+    private TaskScheduler.Task commitTask;
+    private TaskScheduler.Task refreshTask;
+
+    // Latest position not yet recorded, and its time in epoch millis
+    private boolean trackPending = false;
+    private double trackLatitude;
+    private double trackLongitude;
+    private long trackTime;
 
     /**
      * Constructor
      *
      * @param navigator Navigator object
-     * @param view      main View
+     * @param view      main View or other NavigationSink
+     * @param scheduler TaskScheduler for polling and track recording
      */
-    public CoordinateListener(Navigator navigator, View view) {
+    public CoordinateListener(Navigator navigator, NavigationSink view, TaskScheduler scheduler) {
         this.navigator = navigator;
         this.view = view;
-        this.trackerPath = "config/tracker/" + ClockDriver.dfFilePath.format(LocalDateTime.now()) + ".csv";
-        keepRunning = true;
+        this.scheduler = scheduler;
     }
 
     /**
-     * Thread process
-     * <p>
-     * Listens for changes to GPS coordinate file
-     * Writes coordinates and time to tracker file
+     * Creates the position source named in the config file
+     *
+     * @return PositionSource
      */
-    public void run() {
-        FileManager fileManager;
+    private PositionSource createSource() {
+        String type = navigator.getConfigValue("POSITION-SOURCE", "file");
+        String path = navigator.getConfigValue("POSITION-PATH", null);
+        try {
+            long interval = Long.parseLong(navigator.getConfigValue("POSITION-INTERVAL", "500"));
+            switch(type) {
+                case "mapped":
+                    return new MappedPositionSource(path == null ? "config/coordinate.slot" : path, interval);
+                case "socket":
+                    return new SocketPositionSource(Integer.parseInt(navigator.getConfigValue("POSITION-PORT", "2948")));
+                case "gpsd":
+                    return GpsStreamSource.forGpsd(navigator.getConfigValue("POSITION-HOST", "localhost"),
+                            Integer.parseInt(navigator.getConfigValue("POSITION-PORT", "2947")));
+                case "serial":
+                    return GpsStreamSource.forDevice(path == null ? "/dev/ttyACM0" : path);
+                case "replay":
+                    return new TrackReplay(Track.read(path == null ? "config/tracker.csv" : path),
+                            Double.parseDouble(navigator.getConfigValue("POSITION-SPEED", "1")), 5000);
+                default:
+                    return new FilePositionSource(path == null ? "config/coordinate" : path, interval);
+            }
+        } catch(NumberFormatException | IOException e) {
+            logger.warning(this.getClass(), "Invalid position source setting, using coordinate file: " + e.getMessage());
+            return new FilePositionSource("config/coordinate", 500);
+        }
+    }
+
+    /**
+     * Creates the track writer from the config file
+     *
+     * @return TrackWriter
+     */
+    private TrackWriter createTrackWriter() {
+        try {
+            return new TrackWriter(trackerPath,
+                    Integer.parseInt(navigator.getConfigValue("TRACK-SEGMENT-SIZE", "1048576")),
+                    Long.parseLong(navigator.getConfigValue("TRACK-ROTATE-MINUTES", "360")) * 60000,
+                    Integer.parseInt(navigator.getConfigValue("TRACK-COMMIT-RECORDS", "60")),
+                    Long.parseLong(navigator.getConfigValue("TRACK-WRITER-COMMIT-INTERVAL", "60000")));
+        } catch(NumberFormatException e) {
+            logger.warning(this.getClass(), "Invalid track setting, using defaults: " + e.getMessage());
+            return new TrackWriter(trackerPath, 1048576, 360 * 60000, 60, 60000);
+        }
+    }
+
+    /**
+     * Opens the track writer and starts receiving positions
+     */
+    public void start() {
+        synchronized(this) {
+            trackWriter = createTrackWriter();
+        }
+        trackTask = scheduler.schedule("track", 1000, this::recordTrack);
+        commitTask = scheduler.schedule("track-commit", 60000, this::commitTrack);
+        refreshTask = scheduler.schedule("navigation", 5000, () -> view.setNavigation(navigator));
+
+        source = createSource();
         try {
-            fileManager = new FileManager(trackerPath);
-            fileManager.appendLine("Program started," + ClockDriver.dfFull.format(LocalDateTime.now()));
+            source.start(this, scheduler);
         } catch(IOException e) {
-            fileManager = null;
-            logger.severe(this.getClass(), "Error opening tracker file: " + e.getMessage());
+            logger.severe(this.getClass(), "Error starting position source: " + e.getMessage());
         }
+    }
 
-        int count = 0;
-        int every = 20;
-        while(keepRunning) {
-            try {
-                AbstractMap.SimpleEntry<Double, Double> coordinates = Location.readCoordinates();
-                if(coordinates != null) {
-                    double latitude = coordinates.getKey();
-                    double longitude = coordinates.getValue();
-                    navigator.updateLocation(latitude, longitude);
-                    view.setNavigation(navigator);
-                    view.setLocation(latitude, longitude);
-                    if(count++ >= every && fileManager != null) {
-                        count = 0;
-                        String line = String.valueOf(latitude) + ',' + String.valueOf(longitude) + ','
-                                + ClockDriver.dfFull.format(LocalDateTime.now());
-                        fileManager.appendLine(line);
-                    }
-                    Thread.sleep(500);
-                }
-            } catch(InterruptedException e) {
-                logger.severe(this.getClass(), "Coordinate thread interrupted: " + e.getMessage());
-            }
+    /**
+     * Updates the navigator and view with a new position, measured now
+     *
+     * @param latitude  latitude
+     * @param longitude longitude
+     */
+    @Override
+    public void positionUpdated(double latitude, double longitude) {
+        positionUpdated(latitude, longitude, System.currentTimeMillis());
+    }
+
+    /**
+     * Updates the navigator and view with a new position
+     * <p>
+     * The position is kept for the track task to record
+     *
+     * @param latitude  latitude
+     * @param longitude longitude
+     * @param time      time the position was measured in epoch milliseconds
+     */
+    @Override
+    public void positionUpdated(double latitude, double longitude, long time) {
+        navigator.updateLocation(latitude, longitude, time);
+        view.setLocation(latitude, longitude);
+        view.setNavigation(navigator);
+        synchronized(this) {
+            trackPending = true;
+            trackLatitude = latitude;
+            trackLongitude = longitude;
+            trackTime = time;
         }
+    }
 
-        if(fileManager != null) {
-            try {
-                fileManager.close();
-            } catch(IOException e) {
-                logger.severe(this.getClass(), "Cannot close file manager: " + e.getMessage());
-            }
+    /**
+     * Records the latest position if one arrived since the last record
+     */
+    private synchronized void recordTrack() {
+        if(trackPending && trackWriter != null) {
+            trackPending = false;
+            trackWriter.append(trackLatitude, trackLongitude, trackTime);
         }
     }
 
+    /**
+     * Forces recorded positions to disk
+     */
+    private synchronized void commitTrack() {
+        if(trackWriter != null) {
+            trackWriter.commit();
+        }
+    }
 
     /**
      * Function called when terminating application
      */
-    public void terminate() {
-        keepRunning = false;
+    public synchronized void terminate() {
+        if(source != null) {
+            source.close();
+        }
+        if(trackTask != null) {
+            trackTask.cancel();
+        }
+        if(commitTask != null) {
+            commitTask.cancel();
+        }
+        if(refreshTask != null) {
+            refreshTask.cancel();
+        }
+        recordTrack();
+        if(trackWriter != null) {
+            trackWriter.close();
+            trackWriter = null;
+        }
     }
 
 }
@@ -0,0 +1,662 @@
+package driver;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Class Dataset
+ * <p>
+ * Versioned binary file of named sections, compiled from text sources and memory-mapped on load
+ * <p>
+ * Format, little-endian: int magic "BMDS", short version, short reserved and int header length, then a
+ * header holding a signature of the settings the data was compiled with, the size and modification
+ * time of each source file and the offset and length of each section, then the 8 byte aligned
+ * section data. A dataset is only opened if the signature matches and every source still has the
+ * recorded size and modification time, so editing a source or a setting causes it to be rebuilt.
+ * <p>
+ * Sections hold primitive arrays and Strings written with Output, and read back with Input. The
+ * layout of a section is defined by the class that writes it.
+ *
+ * @author Brian Hooper
+ * @since 0.9.8
+ */
+public class Dataset {
+    // File identifier "BMDS"
+    static final int magic = 0x53444D42;
+
+    // Format version, increase when the layout of any section changes
+    static final short version = 3;
+
+    // Bytes before the header
+    private static final int prefixSize = 12;
+
+    // Logger
+    private static final LogDriver logger = LogDriver.getInstance();
+
+    // Sections by name, each a read-only view of the mapped file
+    private final HashMap<String, ByteBuffer> sections;
+
+    /**
+     * Constructor
+     *
+     * @param sections sections by name
+     */
+    private Dataset(HashMap<String, ByteBuffer> sections) {
+        this.sections = sections;
+    }
+
+    /**
+     * Opens a dataset if it is up to date with its settings and sources
+     *
+     * @param path      path to dataset
+     * @param signature settings the dataset was compiled with
+     * @param sources   paths of the files the dataset was compiled from
+     * @return Dataset, or null if it is missing, out of date or unreadable
+     */
+    public static Dataset open(String path, String signature, String... sources) {
+        if(!new File(path).isFile()) {
+            return null;
+        }
+        try(RandomAccessFile file = new RandomAccessFile(path, "r")) {
+            FileChannel channel = file.getChannel();
+            ByteBuffer prefix = read(channel, 0, prefixSize);
+            if(prefix.getInt() != magic || prefix.getShort() != version) {
+                logger.info(Dataset.class, "Rebuilding dataset " + path + ", unsupported version");
+                return null;
+            }
+            prefix.getShort();
+            int headerSize = prefix.getInt();
+            if(headerSize < 0 || prefixSize + (long) headerSize > channel.size()) {
+                throw new IOException("truncated header");
+            }
+
+            // The header is read without mapping, so an out of date file is never mapped
+            Input header = new Input(read(channel, prefixSize, headerSize));
+            if(!signature.equals(header.readString())) {
+                logger.info(Dataset.class, "Rebuilding dataset " + path + ", settings changed");
+                return null;
+            }
+            int sourceCount = header.readInt();
+            if(sourceCount != sources.length) {
+                logger.info(Dataset.class, "Rebuilding dataset " + path + ", sources changed");
+                return null;
+            }
+            for(String source : sources) {
+                String recordedSource = header.readString();
+                long size = header.readLong();
+                long modified = header.readLong();
+                File sourceFile = new File(source);
+                if(!recordedSource.equals(source) || size != sourceFile.length() ||
+                        modified != sourceFile.lastModified()) {
+                    logger.info(Dataset.class, "Rebuilding dataset " + path + ", " + source + " changed");
+                    return null;
+                }
+            }
+
+            ByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            HashMap<String, ByteBuffer> sections = new HashMap<>();
+            int sectionCount = header.readInt();
+            for(int i = 0; i < sectionCount; i++) {
+                String name = header.readString();
+                long offset = header.readLong();
+                long length = header.readLong();
+                if(offset < 0 || length < 0 || offset + length > data.capacity()) {
+                    throw new IOException("section " + name + " out of bounds");
+                }
+                data.limit((int) (offset + length)).position((int) offset);
+                sections.put(name, data.slice().order(ByteOrder.LITTLE_ENDIAN));
+                data.clear();
+            }
+            return new Dataset(sections);
+        } catch(IOException | RuntimeException e) {
+            logger.warning(Dataset.class, "Unable to read dataset " + path + ": " + e.getMessage());
+        }
+        return null;
+    }
+
+    /**
+     * Reads bytes from a channel into a buffer
+     *
+     * @param channel  FileChannel
+     * @param position file position
+     * @param length   number of bytes
+     * @return ByteBuffer positioned at zero
+     * @throws IOException if the file is too short
+     */
+    private static ByteBuffer read(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        while(buffer.hasRemaining()) {
+            if(channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("unexpected end of file");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+//**********************
+// Getters and setters
+//**********************
+
+    /**
+     * Getter for a section
+     *
+     * @param name section name
+     * @return Input positioned at the start of the section, or null if there is no such section
+     */
+    public Input getSection(String name) {
+        ByteBuffer section = sections.get(name);
+        if(section == null) {
+            return null;
+        }
+        return new Input(section.duplicate().order(ByteOrder.LITTLE_ENDIAN));
+    }
+
+    /**
+     * Class Writer
+     * <p>
+     * Collects sections and writes a dataset
+     * <p>
+     * Source sizes and modification times are recorded when the writer is created, so it should be
+     * created before the sources are read. A source changed while it was being read then causes a
+     * rebuild on the next start instead of being cached with its old contents.
+     */
+    public static class Writer {
+        // Settings the dataset is compiled with
+        private final String signature;
+
+        // Source paths, sizes and modification times
+        private final String[] sources;
+        private final long[] sizes;
+        private final long[] modified;
+
+        // Section names and contents, in order
+        private final ArrayList<String> names = new ArrayList<>();
+        private final ArrayList<Output> outputs = new ArrayList<>();
+
+        /**
+         * Constructor
+         *
+         * @param signature settings the dataset is compiled with
+         * @param sources   paths of the files the dataset is compiled from
+         */
+        public Writer(String signature, String... sources) {
+            this.signature = signature;
+            this.sources = sources.clone();
+            this.sizes = new long[sources.length];
+            this.modified = new long[sources.length];
+            for(int i = 0; i < sources.length; i++) {
+                File sourceFile = new File(sources[i]);
+                sizes[i] = sourceFile.length();
+                modified[i] = sourceFile.lastModified();
+            }
+        }
+
+        /**
+         * Adds a section
+         *
+         * @param name section name
+         * @return Output to write the section to
+         */
+        public Output addSection(String name) {
+            Output output = new Output();
+            names.add(name);
+            outputs.add(output);
+            return output;
+        }
+
+        /**
+         * Writes the dataset to a temporary file, then renames it over the path
+         *
+         * @param path path to dataset
+         * @return true if written
+         */
+        public boolean write(String path) {
+            Output header = new Output();
+            header.writeString(signature);
+            header.writeInt(sources.length);
+            for(int i = 0; i < sources.length; i++) {
+                header.writeString(sources[i]);
+                header.writeLong(sizes[i]);
+                header.writeLong(modified[i]);
+            }
+            header.writeInt(names.size());
+            long offset = align(prefixSize + headerSize(header));
+            for(int i = 0; i < names.size(); i++) {
+                long length = outputs.get(i).buffer.position();
+                header.writeString(names.get(i));
+                header.writeLong(offset);
+                header.writeLong(length);
+                offset = align(offset + length);
+            }
+
+            ByteBuffer prefix = ByteBuffer.allocate(prefixSize).order(ByteOrder.LITTLE_ENDIAN);
+            prefix.putInt(magic).putShort(version).putShort((short) 0).putInt(header.buffer.position());
+            prefix.flip();
+
+            Path target = Paths.get(path);
+            Path temporary = Paths.get(path + ".tmp");
+            try(RandomAccessFile file = new RandomAccessFile(temporary.toFile(), "rw")) {
+                FileChannel channel = file.getChannel();
+                file.setLength(0);
+                writeFully(channel, prefix, 0);
+                writeFully(channel, header.flip(), prefixSize);
+                long position = align(prefixSize + header.buffer.limit());
+                for(Output output : outputs) {
+                    ByteBuffer data = output.flip();
+                    int length = data.remaining();
+                    writeFully(channel, data, position);
+                    position = align(position + length);
+                }
+                channel.force(false);
+            } catch(IOException e) {
+                logger.warning(Dataset.class, "Unable to write dataset " + path + ": " + e.getMessage());
+                return false;
+            }
+            try {
+                Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch(IOException e) {
+                logger.warning(Dataset.class, "Unable to replace dataset " + path + ": " + e.getMessage());
+                return false;
+            }
+            return true;
+        }
+
+        /**
+         * Writes all remaining bytes of a buffer at a file position
+         *
+         * @param channel  FileChannel
+         * @param data     ByteBuffer
+         * @param position file position
+         * @throws IOException if the write fails
+         */
+        private static void writeFully(FileChannel channel, ByteBuffer data, long position) throws IOException {
+            long start = position - data.position();
+            while(data.hasRemaining()) {
+                channel.write(data, start + data.position());
+            }
+        }
+
+        /**
+         * Computes the size of the header once the section table is appended
+         *
+         * @param header header holding the source table and section count
+         * @return header size in bytes
+         */
+        private int headerSize(Output header) {
+            int size = header.buffer.position();
+            for(String name : names) {
+                size += 4 + 2 * name.length() + 16;
+            }
+            return size;
+        }
+
+        /**
+         * Rounds an offset up to a multiple of 8
+         *
+         * @param offset byte offset
+         * @return aligned offset
+         */
+        private static long align(long offset) {
+            return (offset + 7) & ~7L;
+        }
+    }
+
+    /**
+     * Class Output
+     * <p>
+     * Growable buffer a section is written to
+     * <p>
+     * Arrays are written as an int length followed by their elements, Strings as an int length
+     * followed by their UTF-16 characters, and null Strings with a length of -1. String arrays are
+     * written as a table of distinct Strings followed by the table index of each element.
+     */
+    public static class Output {
+        // Written bytes
+        private ByteBuffer buffer = ByteBuffer.allocate(1 << 12).order(ByteOrder.LITTLE_ENDIAN);
+
+        /**
+         * Constructor
+         * <p>
+         * Outputs are created by Writer.addSection
+         */
+        private Output() {
+        }
+
+        /**
+         * Makes room for more bytes
+         *
+         * @param bytes number of bytes about to be written
+         */
+        private void ensure(long bytes) {
+            if(buffer.remaining() < bytes) {
+                long capacity = Math.max(buffer.capacity() * 2L, buffer.position() + bytes);
+                if(capacity > Integer.MAX_VALUE - 8) {
+                    throw new IllegalStateException("Dataset section too large");
+                }
+                ByteBuffer larger = ByteBuffer.allocate((int) capacity).order(ByteOrder.LITTLE_ENDIAN);
+                buffer.flip();
+                larger.put(buffer);
+                buffer = larger;
+            }
+        }
+
+        /**
+         * Flips the buffer for writing to a file
+         *
+         * @return ByteBuffer of the written bytes
+         */
+        private ByteBuffer flip() {
+            buffer.flip();
+            return buffer;
+        }
+
+        /**
+         * Writes a byte
+         *
+         * @param value byte
+         */
+        public void writeByte(byte value) {
+            ensure(1);
+            buffer.put(value);
+        }
+
+        /**
+         * Writes an int
+         *
+         * @param value int
+         */
+        public void writeInt(int value) {
+            ensure(4);
+            buffer.putInt(value);
+        }
+
+        /**
+         * Writes a long
+         *
+         * @param value long
+         */
+        public void writeLong(long value) {
+            ensure(8);
+            buffer.putLong(value);
+        }
+
+        /**
+         * Writes a String
+         *
+         * @param value String, may be null
+         */
+        public void writeString(String value) {
+            if(value == null) {
+                writeInt(-1);
+                return;
+            }
+            writeInt(value.length());
+            ensure(2L * value.length());
+            for(int i = 0; i < value.length(); i++) {
+                buffer.putChar(value.charAt(i));
+            }
+        }
+
+        /**
+         * Writes a String array, storing equal Strings once
+         *
+         * @param values String array, elements may be null
+         */
+        public void writeStrings(String[] values) {
+            HashMap<String, Integer> ids = new HashMap<>();
+            StringBuilder chars = new StringBuilder();
+            int[] offsets = new int[values.length + 1];
+            int[] references = new int[values.length];
+            for(int i = 0; i < values.length; i++) {
+                if(values[i] == null) {
+                    references[i] = -1;
+                    continue;
+                }
+                Integer id = ids.get(values[i]);
+                if(id == null) {
+                    id = ids.size();
+                    ids.put(values[i], id);
+                    chars.append(values[i]);
+                    offsets[id + 1] = chars.length();
+                }
+                references[i] = id;
+            }
+            char[] table = new char[chars.length()];
+            chars.getChars(0, table.length, table, 0);
+            writeChars(table);
+            writeInts(Arrays.copyOf(offsets, ids.size() + 1));
+            writeInts(references);
+        }
+
+        /**
+         * Writes a byte array
+         *
+         * @param values byte array
+         */
+        public void writeBytes(byte[] values) {
+            writeInt(values.length);
+            ensure(values.length);
+            buffer.put(values);
+        }
+
+        /**
+         * Writes a char array
+         *
+         * @param values char array
+         */
+        public void writeChars(char[] values) {
+            writeInt(values.length);
+            ensure(2L * values.length);
+            buffer.asCharBuffer().put(values);
+            buffer.position(buffer.position() + 2 * values.length);
+        }
+
+        /**
+         * Writes an int array
+         *
+         * @param values int array
+         */
+        public void writeInts(int[] values) {
+            writeInt(values.length);
+            ensure(4L * values.length);
+            buffer.asIntBuffer().put(values);
+            buffer.position(buffer.position() + 4 * values.length);
+        }
+
+        /**
+         * Writes a long array
+         *
+         * @param values long array
+         */
+        public void writeLongs(long[] values) {
+            writeInt(values.length);
+            ensure(8L * values.length);
+            buffer.asLongBuffer().put(values);
+            buffer.position(buffer.position() + 8 * values.length);
+        }
+
+        /**
+         * Writes a float array
+         *
+         * @param values float array
+         */
+        public void writeFloats(float[] values) {
+            writeInt(values.length);
+            ensure(4L * values.length);
+            buffer.asFloatBuffer().put(values);
+            buffer.position(buffer.position() + 4 * values.length);
+        }
+    }
+
+    /**
+     * Class Input
+     * <p>
+     * Reads values from a section in the order they were written
+     * <p>
+     * Reads past the end of a section throw a BufferUnderflowException, and negative lengths an
+     * IllegalArgumentException.
+     */
+    public static class Input {
+        // Section data
+        private final ByteBuffer buffer;
+
+        /**
+         * Constructor
+         *
+         * @param buffer little-endian section data
+         */
+        private Input(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        /**
+         * Reads an array length
+         *
+         * @param elementSize bytes per element
+         * @return length
+         */
+        private int readLength(int elementSize) {
+            int length = buffer.getInt();
+            if(length < 0 || (long) length * elementSize > buffer.remaining()) {
+                throw new IllegalArgumentException("Invalid length " + length + " in dataset section");
+            }
+            return length;
+        }
+
+        /**
+         * Reads a byte
+         *
+         * @return byte
+         */
+        public byte readByte() {
+            return buffer.get();
+        }
+
+        /**
+         * Reads an int
+         *
+         * @return int
+         */
+        public int readInt() {
+            return buffer.getInt();
+        }
+
+        /**
+         * Reads a long
+         *
+         * @return long
+         */
+        public long readLong() {
+            return buffer.getLong();
+        }
+
+        /**
+         * Reads a String
+         *
+         * @return String, may be null
+         */
+        public String readString() {
+            if(buffer.getInt(buffer.position()) == -1) {
+                buffer.getInt();
+                return null;
+            }
+            return new String(readChars());
+        }
+
+        /**
+         * Reads a String array written by writeStrings
+         * <p>
+         * Equal Strings are read as the same instance
+         *
+         * @return String array, elements may be null
+         */
+        public String[] readStrings() {
+            char[] chars = readChars();
+            int[] offsets = readInts();
+            int[] references = readInts();
+            if(offsets.length == 0 || offsets[0] != 0 || offsets[offsets.length - 1] != chars.length) {
+                throw new IllegalArgumentException("Invalid String table in dataset section");
+            }
+            String[] table = new String[offsets.length - 1];
+            for(int i = 0; i < table.length; i++) {
+                table[i] = new String(chars, offsets[i], offsets[i + 1] - offsets[i]);
+            }
+            String[] values = new String[references.length];
+            for(int i = 0; i < values.length; i++) {
+                values[i] = references[i] == -1 ? null : table[references[i]];
+            }
+            return values;
+        }
+
+        /**
+         * Reads a byte array
+         *
+         * @return byte array
+         */
+        public byte[] readBytes() {
+            byte[] values = new byte[readLength(1)];
+            buffer.get(values);
+            return values;
+        }
+
+        /**
+         * Reads a char array
+         *
+         * @return char array
+         */
+        public char[] readChars() {
+            char[] values = new char[readLength(2)];
+            buffer.asCharBuffer().get(values);
+            buffer.position(buffer.position() + 2 * values.length);
+            return values;
+        }
+
+        /**
+         * Reads an int array
+         *
+         * @return int array
+         */
+        public int[] readInts() {
+            int[] values = new int[readLength(4)];
+            buffer.asIntBuffer().get(values);
+            buffer.position(buffer.position() + 4 * values.length);
+            return values;
+        }
+
+        /**
+         * Reads a long array
+         *
+         * @return long array
+         */
+        public long[] readLongs() {
+            long[] values = new long[readLength(8)];
+            buffer.asLongBuffer().get(values);
+            buffer.position(buffer.position() + 8 * values.length);
+            return values;
+        }
+
+        /**
+         * Reads a float array
+         *
+         * @return float array
+         */
+        public float[] readFloats() {
+            float[] values = new float[readLength(4)];
+            buffer.asFloatBuffer().get(values);
+            buffer.position(buffer.position() + 4 * values.length);
+            return values;
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package driver;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Class FilePositionSource
+ * <p>
+ * Reads positions from a text file containing a latitude line and a longitude line,
+ * re-reading the file whenever the file system reports that it changed
+ * <p>
+ * Because some file systems do not deliver change events, the file modification time is
+ * also checked at a fixed interval
+ *
+ * @author Brian Hooper
+ * @since 0.9.8
+ */
+public class FilePositionSource implements PositionSource {
+    // Path to coordinate file
+    private final Path path;
+
+    // Interval between modification time checks, in milliseconds
+    private final long rescanInterval;
+
+    // Logger
+    private final LogDriver logger = LogDriver.getInstance();
+
+    // Watches the parent directory of the coordinate file
+    private WatchService watchService;
+
+    // Reading thread
+    private Thread thread;
+
+    // Keeps reading thread running until closed
+    private volatile boolean keepRunning;
+
+    // Modification time of the last read
+    private long lastModified;
+
+    /**
+     * Constructor
+     *
+     * @param path           path to coordinate file
+     * @param rescanInterval interval between modification time checks, in milliseconds
+     */
+    public FilePositionSource(String path, long rescanInterval) {
+        this.path = FileSystems.getDefault().getPath(path).toAbsolutePath();
+        this.rescanInterval = rescanInterval;
+    }
+
+    /**
+     * Parses a coordinate file's lines into a latitude and longitude
+     *
+     * @param lines file contents
+     * @return double array of latitude and longitude, or null if invalid
+     */
+    static double[] parseCoordinates(List<String> lines) {
+        if(lines.size() < 2) {
+            return null;
+        }
+        try {
+            return new double[]{Double.parseDouble(lines.get(0).trim()), Double.parseDouble(lines.get(1).trim())};
+        } catch(NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Starts watching the coordinate file
+     *
+     * @param listener PositionListener
+     * @throws IOException if the directory cannot be watched
+     */
+    @Override
+    public void start(PositionListener listener) throws IOException {
+        watchService = FileSystems.getDefault().newWatchService();
+        path.getParent().register(watchService,
+                StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        keepRunning = true;
+        thread = new Thread(() -> run(listener), "position-file");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Thread process
+     * <p>
+     * Blocks until the coordinate file changes or the rescan interval passes
+     *
+     * @param listener PositionListener
+     */
+    private void run(PositionListener listener) {
+        read(listener);
+        try {
+            while(keepRunning) {
+                WatchKey key = watchService.poll(rescanInterval, TimeUnit.MILLISECONDS);
+                if(key == null) {
+                    read(listener);
+                    continue;
+                }
+                boolean changed = false;
+                for(WatchEvent<?> event : key.pollEvents()) {
+                    if(event.kind() == StandardWatchEventKinds.OVERFLOW ||
+                            path.getFileName().equals(event.context())) {
+                        changed = true;
+                    }
+                }
+                key.reset();
+                if(changed) {
+                    lastModified = 0;
+                    read(listener);
+                }
+            }
+        } catch(InterruptedException | ClosedWatchServiceException e) {
+            if(keepRunning) {
+                logger.severe(this.getClass(), "Coordinate file watch interrupted: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Reads the coordinate file if it was modified since the last read
+     *
+     * @param listener PositionListener
+     */
+    private void read(PositionListener listener) {
+        try {
+            long modified = Files.getLastModifiedTime(path).toMillis();
+            if(modified == lastModified) {
+                return;
+            }
+            double[] coordinates = parseCoordinates(Files.readAllLines(path, StandardCharsets.UTF_8));
+            if(coordinates != null) {
+                lastModified = modified;
+                listener.positionUpdated(coordinates[0], coordinates[1]);
+            }
+        } catch(IOException ignored) {
+            // File is missing or being rewritten, the next change event will retry
+        }
+    }
+
+    /**
+     * Stops watching the coordinate file
+     */
+    @Override
+    public void close() {
+        keepRunning = false;
+        if(watchService != null) {
+            try {
+                watchService.close();
+            } catch(IOException e) {
+                logger.warning(this.getClass(), "Cannot close watch service: " + e.getMessage());
+            }
+        }
+        if(thread != null) {
+            thread.interrupt();
+        }
+    }
+}
@@ -0,0 +1,378 @@
+package driver;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Class GpsStreamParser
+ * <p>
+ * Incremental parser for GPS byte streams, delivers each fix to a PositionListener
+ * <p>
+ * Understands three line formats:
+ * NMEA-0183 GGA and RMC sentences ("$GPGGA,...*hh"), gpsd JSON TPV reports ("{"class":"TPV",...}"),
+ * and plain "latitude,longitude" lines. Parsing works directly on the bytes in a fixed line buffer
+ * and does not allocate.
+ *
+ * @author Brian Hooper
+ * @since 0.9.8
+ */
+public class GpsStreamParser {
+    // Longest accepted line, NMEA sentences are at most 82 bytes but gpsd reports are longer
+    private static final int maxLineLength = 1024;
+
+    // Maximum number of comma separated fields in a sentence
+    private static final int maxFields = 32;
+
+    // Keys searched for in gpsd reports
+    private static final byte[] tpvKey = "\"class\":\"TPV\"".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] modeKey = "\"mode\":".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] latKey = "\"lat\":".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] lonKey = "\"lon\":".getBytes(StandardCharsets.US_ASCII);
+
+    // Powers of ten for decimal parsing
+    private static final double[] powersOfTen = new double[19];
+
+    static {
+        powersOfTen[0] = 1;
+        for(int i = 1; i < powersOfTen.length; i++) {
+            powersOfTen[i] = powersOfTen[i - 1] * 10;
+        }
+    }
+
+    // Logger
+    private static final LogDriver logger = LogDriver.getInstance();
+
+    // Receives parsed fixes
+    private final PositionListener listener;
+
+    // Current line, and its length so far
+    private final byte[] line = new byte[maxLineLength];
+    private int length;
+
+    // True if the current line is too long and is being skipped
+    private boolean overflow;
+
+    // Start index of each field of the current sentence, with the end of the last field at index count
+    private final int[] fieldStarts = new int[maxFields + 1];
+
+    // End index of the last number parsed
+    private int numberEnd;
+
+    // Last delivered fix, GGA and RMC sentences usually repeat the same position
+    private double lastLatitude = Double.NaN;
+    private double lastLongitude = Double.NaN;
+
+    /**
+     * Constructor
+     *
+     * @param listener receives each parsed fix
+     */
+    public GpsStreamParser(PositionListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Parses a block of bytes from the stream, lines may be split across blocks
+     * <p>
+     * A line that fails to parse is dropped, so one corrupt line can't stop the stream
+     *
+     * @param buffer byte array
+     * @param offset first byte
+     * @param count  number of bytes
+     */
+    public void feed(byte[] buffer, int offset, int count) {
+        int end = offset + count;
+        for(int i = offset; i < end; i++) {
+            byte b = buffer[i];
+            if(b == '\n' || b == '\r') {
+                if(!overflow && length > 0) {
+                    try {
+                        parseLine(length);
+                    } catch(RuntimeException e) {
+                        logger.warning(GpsStreamParser.class, "Dropped gps line: " + e);
+                    }
+                }
+                length = 0;
+                overflow = false;
+            } else if(length < maxLineLength) {
+                line[length++] = b;
+            } else {
+                overflow = true;
+            }
+        }
+    }
+
+    /**
+     * Parses one complete line
+     *
+     * @param end line length
+     */
+    private void parseLine(int end) {
+        if(line[0] == '$') {
+            parseSentence(end);
+        } else if(line[0] == '{') {
+            parseReport(end);
+        } else {
+            parsePlain(end);
+        }
+    }
+
+    /**
+     * Parses a plain "latitude,longitude" line
+     *
+     * @param end line length
+     */
+    private void parsePlain(int end) {
+        double latitude = parseNumber(0, end);
+        int separator = numberEnd;
+        if(Double.isNaN(latitude) || separator >= end || (line[separator] != ',' && line[separator] != ' ')) {
+            return;
+        }
+        while(separator < end && (line[separator] == ',' || line[separator] == ' ')) {
+            separator++;
+        }
+        double longitude = parseNumber(separator, end);
+        if(!Double.isNaN(longitude)) {
+            deliver(latitude, longitude);
+        }
+    }
+
+    /**
+     * Parses an NMEA-0183 sentence, only GGA and RMC sentences with a valid fix are delivered
+     *
+     * @param end line length
+     */
+    private void parseSentence(int end) {
+        // Checksum is the xor of all characters between '$' and '*'
+        int star = -1;
+        int checksum = 0;
+        for(int i = 1; i < end; i++) {
+            if(line[i] == '*') {
+                star = i;
+                break;
+            }
+            checksum ^= line[i];
+        }
+        if(star < 0 || star + 2 >= end) {
+            return;
+        }
+        int expected = (hexValue(line[star + 1]) << 4) | hexValue(line[star + 2]);
+        if(expected != checksum) {
+            return;
+        }
+
+        int fields = splitFields(star);
+        if(fields < 7 || fieldStarts[1] - fieldStarts[0] != 6) {
+            return;
+        }
+        // Talker is bytes 1-2, sentence type is bytes 3-5
+        byte a = line[3];
+        byte b = line[4];
+        byte c = line[5];
+        if(a == 'G' && b == 'G' && c == 'A') {
+            // $--GGA,time,lat,N,lon,E,quality,...
+            if(fieldLength(6) == 0 || line[fieldStarts[6]] == '0') {
+                return;
+            }
+            deliverCoordinates(2);
+        } else if(a == 'R' && b == 'M' && c == 'C') {
+            // $--RMC,time,status,lat,N,lon,E,...
+            if(fieldLength(2) != 1 || line[fieldStarts[2]] != 'A') {
+                return;
+            }
+            deliverCoordinates(3);
+        }
+    }
+
+    /**
+     * Converts four fields of ddmm.mmmm,N,dddmm.mmmm,W and delivers the position
+     *
+     * @param field index of latitude field
+     */
+    private void deliverCoordinates(int field) {
+        double latitude = parseDegreesMinutes(field);
+        double longitude = parseDegreesMinutes(field + 2);
+        if(Double.isNaN(latitude) || Double.isNaN(longitude)) {
+            return;
+        }
+        if(fieldLength(field + 1) == 1 && line[fieldStarts[field + 1]] == 'S') {
+            latitude = -latitude;
+        }
+        if(fieldLength(field + 3) == 1 && line[fieldStarts[field + 3]] == 'W') {
+            longitude = -longitude;
+        }
+        deliver(latitude, longitude);
+    }
+
+    /**
+     * Parses a gpsd TPV report, only reports with a 2D or 3D fix are delivered
+     *
+     * @param end line length
+     */
+    private void parseReport(int end) {
+        if(indexOf(tpvKey, end) < 0) {
+            return;
+        }
+        int mode = indexOf(modeKey, end);
+        if(mode < 0 || !(parseNumber(mode, end) >= 2)) {
+            return;
+        }
+        int lat = indexOf(latKey, end);
+        int lon = indexOf(lonKey, end);
+        if(lat < 0 || lon < 0) {
+            return;
+        }
+        double latitude = parseNumber(lat, end);
+        double longitude = parseNumber(lon, end);
+        if(!Double.isNaN(latitude) && !Double.isNaN(longitude)) {
+            deliver(latitude, longitude);
+        }
+    }
+
+    /**
+     * Passes a fix to the listener unless it repeats the previous fix
+     *
+     * @param latitude  latitude
+     * @param longitude longitude
+     */
+    private void deliver(double latitude, double longitude) {
+        if(latitude == lastLatitude && longitude == lastLongitude) {
+            return;
+        }
+        lastLatitude = latitude;
+        lastLongitude = longitude;
+        listener.positionUpdated(latitude, longitude);
+    }
+
+//**********************
+// Byte helpers
+//**********************
+
+    /**
+     * Records the start of each comma separated field, up to the checksum
+     *
+     * @param end index of '*'
+     * @return number of fields
+     */
+    private int splitFields(int end) {
+        int count = 0;
+        fieldStarts[count++] = 1;
+        for(int i = 1; i < end && count < maxFields; i++) {
+            if(line[i] == ',') {
+                fieldStarts[count++] = i + 1;
+            }
+        }
+        fieldStarts[count] = end + 1;
+        return count;
+    }
+
+    /**
+     * Length of a field, excluding the separator
+     *
+     * @param field field index
+     * @return length in bytes
+     */
+    private int fieldLength(int field) {
+        return fieldStarts[field + 1] - fieldStarts[field] - 1;
+    }
+
+    /**
+     * Parses an NMEA ddmm.mmmm or dddmm.mmmm field into decimal degrees
+     *
+     * @param field field index
+     * @return degrees, or NaN if empty or invalid
+     */
+    private double parseDegreesMinutes(int field) {
+        int start = fieldStarts[field];
+        int end = start + fieldLength(field);
+        if(end <= start) {
+            return Double.NaN;
+        }
+        double value = parseNumber(start, end);
+        if(Double.isNaN(value) || numberEnd != end) {
+            return Double.NaN;
+        }
+        double degrees = Math.floor(value / 100);
+        return degrees + (value - degrees * 100) / 60;
+    }
+
+    /**
+     * Parses a decimal number, skipping leading whitespace
+     *
+     * @param start first byte
+     * @param end   end of line
+     * @return number, or NaN if no digits are present or it is too large. numberEnd is set to the first byte
+     * after the number
+     */
+    private double parseNumber(int start, int end) {
+        int i = start;
+        while(i < end && line[i] == ' ') {
+            i++;
+        }
+        boolean negative = false;
+        if(i < end && (line[i] == '-' || line[i] == '+')) {
+            negative = line[i] == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int scale = 0;
+        boolean fraction = false;
+        for(; i < end; i++) {
+            byte b = line[i];
+            if(b >= '0' && b <= '9') {
+                if(digits < 18) {
+                    mantissa = mantissa * 10 + (b - '0');
+                    digits++;
+                    if(fraction) {
+                        scale++;
+                    }
+                } else if(!fraction) {
+                    scale--;
+                }
+            } else if(b == '.' && !fraction) {
+                fraction = true;
+            } else {
+                break;
+            }
+        }
+        numberEnd = i;
+        if(digits == 0 || -scale >= powersOfTen.length) {
+            return Double.NaN;
+        }
+        double value = scale >= 0 ? mantissa / powersOfTen[scale] : mantissa * powersOfTen[-scale];
+        return negative ? -value : value;
+    }
+
+    /**
+     * Finds a key in the current line
+     *
+     * @param key byte pattern
+     * @param end line length
+     * @return index of the first byte after the key, or -1
+     */
+    private int indexOf(byte[] key, int end) {
+        outer:
+        for(int i = 0; i + key.length <= end; i++) {
+            for(int j = 0; j < key.length; j++) {
+                if(line[i + j] != key[j]) {
+                    continue outer;
+                }
+            }
+            return i + key.length;
+        }
+        return -1;
+    }
+
+    /**
+     * Converts a hexadecimal digit
+     *
+     * @param b ASCII byte
+     * @return value 0-15, or -256 if not a hexadecimal digit
+     */
+    private static int hexValue(byte b) {
+        if(b >= '0' && b <= '9') return b - '0';
+        if(b >= 'A' && b <= 'F') return b - 'A' + 10;
+        if(b >= 'a' && b <= 'f') return b - 'a' + 10;
+        return -256;
+    }
+}
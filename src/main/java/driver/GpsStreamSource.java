@@ -0,0 +1,183 @@
+package driver;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Class GpsStreamSource
+ * <p>
+ * Reads NMEA or gpsd JSON directly from a gpsd socket or a serial device file, replacing the
+ * get_gps_data.py helper and the coordinate file round trip
+ * <p>
+ * When connected to gpsd, JSON reports are requested with a WATCH command. If the stream ends or
+ * fails it is reopened, waiting longer after each consecutive failure.
+ *
+ * @author Brian Hooper
+ * @since 0.9.8
+ */
+public class GpsStreamSource implements PositionSource {
+    // Command sent to gpsd to start streaming reports
+    private static final byte[] watchCommand =
+            "?WATCH={\"enable\":true,\"json\":true};\n".getBytes(StandardCharsets.US_ASCII);
+
+    // Retry delays after a failure, in milliseconds
+    private static final long minimumRetryDelay = 1000;
+    private static final long maximumRetryDelay = 30000;
+
+    // gpsd host and port, or null host when reading a device
+    private final String host;
+    private final int port;
+
+    // Path to serial device, or null when reading from gpsd
+    private final String devicePath;
+
+    // Logger
+    private final LogDriver logger = LogDriver.getInstance();
+
+    // Currently open stream
+    private volatile InputStream input;
+    private volatile Socket socket;
+
+    // Reading thread
+    private Thread thread;
+
+    // Keeps reading thread running until closed
+    private volatile boolean keepRunning;
+
+    /**
+     * Constructor
+     * <p>
+     * Private, use forGpsd or forDevice
+     */
+    private GpsStreamSource(String host, int port, String devicePath) {
+        this.host = host;
+        this.port = port;
+        this.devicePath = devicePath;
+    }
+
+    /**
+     * Creates a source reading JSON reports from a gpsd daemon
+     *
+     * @param host gpsd host, usually localhost
+     * @param port gpsd port, usually 2947
+     * @return GpsStreamSource
+     */
+    public static GpsStreamSource forGpsd(String host, int port) {
+        return new GpsStreamSource(host, port, null);
+    }
+
+    /**
+     * Creates a source reading NMEA sentences from a serial device file
+     * <p>
+     * The device must already be configured for the receiver's baud rate
+     *
+     * @param devicePath path to device, for example /dev/ttyACM0
+     * @return GpsStreamSource
+     */
+    public static GpsStreamSource forDevice(String devicePath) {
+        return new GpsStreamSource(null, 0, devicePath);
+    }
+
+    /**
+     * Starts reading the stream
+     *
+     * @param listener PositionListener
+     */
+    @Override
+    public void start(PositionListener listener) {
+        keepRunning = true;
+        thread = new Thread(() -> run(listener), "position-gps");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Opens the socket or device
+     *
+     * @return InputStream
+     * @throws IOException if the stream cannot be opened
+     */
+    private InputStream open() throws IOException {
+        if(devicePath != null) {
+            return new FileInputStream(devicePath);
+        }
+        Socket gpsd = new Socket();
+        gpsd.connect(new InetSocketAddress(host, port), 5000);
+        socket = gpsd;
+        OutputStream output = gpsd.getOutputStream();
+        output.write(watchCommand);
+        output.flush();
+        return gpsd.getInputStream();
+    }
+
+    /**
+     * Thread process
+     * <p>
+     * Feeds the stream to a parser, reopening it after failures
+     *
+     * @param listener PositionListener
+     */
+    private void run(PositionListener listener) {
+        byte[] buffer = new byte[4096];
+        long retryDelay = minimumRetryDelay;
+        while(keepRunning) {
+            try {
+                input = open();
+                GpsStreamParser parser = new GpsStreamParser(listener);
+                int count;
+                while((count = input.read(buffer)) > 0) {
+                    parser.feed(buffer, 0, count);
+                    retryDelay = minimumRetryDelay;
+                }
+            } catch(IOException e) {
+                if(keepRunning) {
+                    logger.warning(this.getClass(), "GPS stream failed: " + e.getMessage());
+                }
+            } finally {
+                closeStream();
+            }
+
+            try {
+                Thread.sleep(retryDelay);
+            } catch(InterruptedException e) {
+                return;
+            }
+            retryDelay = Math.min(retryDelay * 2, maximumRetryDelay);
+        }
+    }
+
+    /**
+     * Closes the current socket or device
+     */
+    private void closeStream() {
+        try {
+            if(socket != null) {
+                socket.close();
+                socket = null;
+            }
+            if(input != null) {
+                input.close();
+                input = null;
+            }
+        } catch(IOException e) {
+            logger.warning(this.getClass(), "Cannot close GPS stream: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Stops reading the stream
+     */
+    @Override
+    public void close() {
+        keepRunning = false;
+        closeStream();
+        if(thread != null) {
+            thread.interrupt();
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package driver;
+
+import navigation.Navigator;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Class HeadlessDriver
+ * <p>
+ * Entry point that runs the navigator and position source without Swing, publishing snapshots over HTTP
+ * <p>
+ * Positions are read from the source named by POSITION-SOURCE, as in the graphical interface, and
+ * each snapshot is served by a SnapshotServer on HEADLESS-HOST (default 127.0.0.1) and HEADLESS-PORT
+ * (default 8765). Config, favorites and notes are written and tracks committed on shutdown.
+ * <p>
+ * Usage: HeadlessDriver [--host HOST] [--port PORT]
+ *
+ * @author Brian Hooper
+ * @since 0.9.8
+ */
+public class HeadlessDriver {
+
+    public static void main(String[] args) {
+        String host = null;
+        String port = null;
+        for(int i = 0; i < args.length; i++) {
+            if(args[i].equals("--host") && i + 1 < args.length) {
+                host = args[++i];
+            } else if(args[i].equals("--port") && i + 1 < args.length) {
+                port = args[++i];
+            } else {
+                System.err.println("Usage: HeadlessDriver [--host HOST] [--port PORT]");
+                return;
+            }
+        }
+
+        LogDriver.activate();
+        LogDriver logger = LogDriver.getInstance();
+        Navigator navigator = new Navigator();
+        LogDriver.configure(navigator::getConfigValue);
+        if(host == null) {
+            host = navigator.getConfigValue("HEADLESS-HOST", "127.0.0.1");
+        }
+        if(port == null) {
+            port = navigator.getConfigValue("HEADLESS-PORT", "8765");
+        }
+
+        int threads = 2;
+        try {
+            threads = Integer.parseInt(navigator.getConfigValue("SCHEDULER-THREADS", "2"));
+        } catch(NumberFormatException e) {
+            logger.warning(HeadlessDriver.class, "Invalid SCHEDULER-THREADS: " + e.getMessage());
+        }
+        TaskScheduler scheduler = new TaskScheduler("scheduler", threads, navigator::getConfigValue);
+
+        SnapshotServer server;
+        try {
+            server = new SnapshotServer(host, Integer.parseInt(port.trim()));
+        } catch(IOException | NumberFormatException e) {
+            System.err.println("Unable to serve on " + host + ":" + port + ": " + e.getMessage());
+            logger.severe(HeadlessDriver.class, "Unable to serve on " + host + ":" + port + ": " + e.getMessage());
+            logger.close();
+            return;
+        }
+        server.setNavigation(navigator);
+        server.start(scheduler);
+        navigator.whenLoaded(() -> server.setNavigation(navigator));
+        navigator.whenRoutesBuilt(() -> server.setNavigation(navigator));
+
+        CoordinateListener coordinateListener = new CoordinateListener(navigator, server, scheduler);
+        coordinateListener.start();
+
+        CountDownLatch stopped = new CountDownLatch(1);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            coordinateListener.terminate();
+            server.stop();
+            navigator.close();
+            scheduler.shutdown(2000);
+            logger.close();
+            stopped.countDown();
+        }, "headless-shutdown"));
+        System.out.println("Serving " + server.getAddress() + "/snapshot and " + server.getAddress() + "/stream");
+
+        // Every other thread is a daemon, so the main thread waits until shutdown
+        try {
+            stopped.await();
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
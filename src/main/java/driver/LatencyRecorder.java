@@ -0,0 +1,101 @@
+package driver;
+
+import java.util.Arrays;
+
+/**
+ * Class LatencyRecorder
+ * <p>
+ * Collects durations in nanoseconds and reports percentiles
+ * <p>
+ * Samples are kept in a growable array so recording does not allocate once it has warmed up,
+ * and are only sorted when a report is requested
+ *
+ * @author Brian Hooper
+ * @since 0.9.8
+ */
+public class LatencyRecorder {
+    // Recorded samples in nanoseconds
+    private long[] samples = new long[1024];
+
+    // Number of recorded samples
+    private int size = 0;
+
+    // True if samples are sorted
+    private boolean sorted = true;
+
+    /**
+     * Records a sample
+     *
+     * @param nanos duration in nanoseconds
+     */
+    public void record(long nanos) {
+        if(size == samples.length) {
+            samples = Arrays.copyOf(samples, size * 2);
+        }
+        samples[size++] = nanos;
+        sorted = false;
+    }
+
+    /**
+     * Discards all samples
+     */
+    public void clear() {
+        size = 0;
+        sorted = true;
+    }
+
+    /**
+     * Getter for size
+     *
+     * @return number of samples
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the sample at a percentile, using the nearest rank
+     *
+     * @param percentile percentile from 0 to 100
+     * @return nanoseconds, or 0 if there are no samples
+     */
+    public long percentile(double percentile) {
+        if(size == 0) {
+            return 0;
+        }
+        if(!sorted) {
+            Arrays.sort(samples, 0, size);
+            sorted = true;
+        }
+        int rank = (int) Math.ceil(percentile / 100 * size);
+        return samples[Math.min(Math.max(rank - 1, 0), size - 1)];
+    }
+
+    /**
+     * Returns the mean of all samples
+     *
+     * @return nanoseconds, or 0 if there are no samples
+     */
+    public double mean() {
+        if(size == 0) {
+            return 0;
+        }
+        double total = 0;
+        for(int i = 0; i < size; i++) {
+            total += samples[i];
+        }
+        return total / size;
+    }
+
+    /**
+     * Returns a one line summary in microseconds
+     *
+     * @return String
+     */
+    @Override
+    public String toString() {
+        return String.format("n=%d mean=%.1f p50=%.1f p90=%.1f p99=%.1f p99.9=%.1f max=%.1f (us)",
+                size, mean() / 1000, percentile(50) / 1000.0, percentile(90) / 1000.0,
+                percentile(99) / 1000.0, percentile(99.9) / 1000.0, percentile(100) / 1000.0);
+    }
+}
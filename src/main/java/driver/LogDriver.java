@@ -1,15 +1,29 @@
 package driver;
 
 import java.io.*;
-import java.lang.annotation.Annotation;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BinaryOperator;
+import java.util.function.Supplier;
 import java.util.logging.Level;
 
 /**
  * Class LogDriver
  * <p>
  * Responsible for logging errors and warnings
+ * <p>
+ * Logging does not block the caller. Records are copied into a preallocated ring buffer that any
+ * thread can claim slots in without locking, and a background writer thread formats them and writes
+ * them to the logfile in batches. When the buffer is full, records are dropped and counted, or the
+ * caller waits for space if blocking is enabled. Messages below the minimum level are discarded
+ * before they are built when passed as a Supplier. The logfile is rotated when it reaches a maximum
+ * size, keeping a number of older files named logfile.log.1, logfile.log.2 and so on.
  *
  * @author Brian Hooper
  * @since 0.9.0
@@ -19,14 +33,57 @@ public class LogDriver {
     // Singleton instance
     private static LogDriver instance;
 
-    // Global logger instance
-    private Writer writer;
-
     // Relative path to logfile
     private static final String logfile = "config/logfile.log";
 
+    // Number of records the buffer holds, a power of two
+    private static final int capacity = 8192;
+
     // Only activate when expilicity told to activate
-    private static boolean isActive = false;
+    private static volatile boolean isActive = false;
+
+    // Minimum level written
+    private static volatile Level minimumLevel = Level.INFO;
+
+    // True to wait for space when the buffer is full, false to drop records
+    private static volatile boolean blockWhenFull = false;
+
+    // Rotation limits, size in bytes and number of old files kept
+    private static volatile long maximumSize = 1 << 20;
+    private static volatile int maximumFiles = 3;
+
+    // Preallocated records, and the sequence published in each slot
+    private final Record[] records = new Record[capacity];
+    private final AtomicLongArray published = new AtomicLongArray(capacity);
+
+    // Next sequence to claim, and number of records consumed by the writer
+    private final AtomicLong claimed = new AtomicLong();
+    private volatile long consumed = 0;
+
+    // Records dropped because the buffer was full
+    private final AtomicLong dropped = new AtomicLong();
+
+    // Guards the file writer, which is otherwise only used by the writer thread
+    private final Object fileLock = new Object();
+
+    // Global logger instance
+    private Writer writer;
+
+    // Characters written to the current logfile
+    private long written;
+
+    // Background writer, null until activated
+    private volatile Thread writerThread;
+
+    // True while the writer thread is parked waiting for records
+    private volatile boolean writerWaiting = false;
+
+    // Set by close, the writer thread drains the buffer and exits
+    private volatile boolean closing = false;
+
+    // Cached timestamp of the last formatted minute
+    private long timestampMinute = -1;
+    private String timestamp;
 
     /**
      * Constructor
@@ -40,11 +97,11 @@ public class LogDriver {
             directory.mkdir();
         }
 
-        try {
-            writer = new BufferedWriter(new FileWriter(logfile, true));
-        } catch(IOException e) {
-            System.err.println("Unable to open logfile " + logfile);
+        for(int i = 0; i < capacity; i++) {
+            records[i] = new Record();
+            published.set(i, -1);
         }
+        open();
     }
 
     /**
@@ -52,7 +109,7 @@ public class LogDriver {
      *
      * @return LogDriver object
      */
-    public static LogDriver getInstance() {
+    public static synchronized LogDriver getInstance() {
         if(instance == null) {
             instance = new LogDriver();
         }
@@ -61,9 +118,13 @@ public class LogDriver {
 
     /**
      * Reads the logfile into a String
+     * <p>
+     * Waits briefly for records still in the buffer to be written first
+     *
      * @return String log data
      */
     public static ArrayList<String> readLog() {
+        getInstance().awaitWritten(500);
         return FileManager.readLines(logfile);
     }
 
@@ -71,14 +132,128 @@ public class LogDriver {
      * Deletes the contents of the log file on the disk
      */
     public static void clearLog() {
-        File logFile = new File(logfile);
-        if(logFile.exists()) {
-            boolean deleted = logFile.delete();
+        LogDriver logDriver = getInstance();
+        synchronized(logDriver.fileLock) {
+            boolean reopen = logDriver.writer != null;
+            logDriver.closeFile();
+            File logFile = new File(logfile);
+            if(logFile.exists()) {
+                boolean deleted = logFile.delete();
+            }
+            if(reopen) {
+                logDriver.open();
+            }
+        }
+    }
+
+    /**
+     * Opens the logfile for appending
+     */
+    private void open() {
+        synchronized(fileLock) {
+            try {
+                writer = new BufferedWriter(new FileWriter(logfile, true));
+                written = new File(logfile).length();
+            } catch(IOException e) {
+                System.err.println("Unable to open logfile " + logfile);
+            }
+        }
+    }
+
+    /**
+     * Closes the logfile if it is open
+     */
+    private void closeFile() {
+        synchronized(fileLock) {
+            if(writer != null) {
+                try {
+                    writer.close();
+                } catch(IOException ignored) {
+                }
+                writer = null;
+            }
+        }
+    }
+
+//**********************
+// Getters and setters
+//**********************
+
+    /**
+     * Checks if messages of a level are written
+     *
+     * @param level Level
+     * @return true if the logger is active and the level is at least the minimum level
+     */
+    public static boolean isLoggable(Level level) {
+        return isActive && level.intValue() >= minimumLevel.intValue();
+    }
+
+    /**
+     * Setter for the minimum level written
+     *
+     * @param level Level
+     */
+    public static void setLevel(Level level) {
+        minimumLevel = level;
+    }
+
+    /**
+     * Setter for the overflow policy
+     *
+     * @param block true to wait for space when the buffer is full, false to drop records
+     */
+    public static void setBlockWhenFull(boolean block) {
+        blockWhenFull = block;
+    }
+
+    /**
+     * Setter for the rotation limits
+     *
+     * @param size  maximum logfile size in bytes before it is rotated, 0 or less to never rotate
+     * @param files number of rotated files kept
+     */
+    public static void setRotation(long size, int files) {
+        maximumSize = size;
+        maximumFiles = Math.max(files, 0);
+    }
+
+    /**
+     * Applies the LOG-LEVEL, LOG-OVERFLOW, LOG-MAX-SIZE and LOG-FILES config values
+     *
+     * @param config config lookup of key and default value, such as Navigator::getConfigValue
+     */
+    public static void configure(BinaryOperator<String> config) {
+        LogDriver logger = getInstance();
+        try {
+            setLevel(Level.parse(config.apply("LOG-LEVEL", "INFO").trim()));
+        } catch(IllegalArgumentException e) {
+            logger.warning(LogDriver.class, "Invalid LOG-LEVEL: " + e.getMessage());
         }
+        setBlockWhenFull("block".equalsIgnoreCase(config.apply("LOG-OVERFLOW", "drop").trim()));
+        try {
+            setRotation(Long.parseLong(config.apply("LOG-MAX-SIZE", "1048576").trim()),
+                    Integer.parseInt(config.apply("LOG-FILES", "3").trim()));
+        } catch(NumberFormatException e) {
+            logger.warning(LogDriver.class, "Invalid LOG-MAX-SIZE or LOG-FILES: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Getter for the number of dropped records
+     *
+     * @return records dropped because the buffer was full
+     */
+    public long getDropped() {
+        return dropped.get();
     }
 
+//**********************
+// Class methods
+//**********************
+
     /**
-     * Writes a log message to the logfile
+     * Queues a log message for the logfile
      *
      * @param classType class of object throwing the log file, pass with 'ClassName.class' for static objects
      *                  or with 'this.getClass()' for non-static
@@ -86,23 +261,200 @@ public class LogDriver {
      * @param message   String log message
      */
     private void log(Class<?> classType, Level level, String message) {
-        if(!isActive) {
+        if(!isLoggable(level)) {
             return;
         }
-
-        Annotation[] a = classType.getAnnotations();
-        if(writer == null) {
+        Thread writing = writerThread;
+        if(writing == null || closing) {
             System.err.println("Error writing \'" + message + "\': logfile is closed.");
             return;
         }
-        String className = classType.getName();
-        String time = ClockDriver.dfFull.format(LocalDateTime.now());
 
-        String line = time + "\t" + level.getName() + "\t" + className + "\n\t" + message;
-        try {
-            writer.write(line + '\n');
-            writer.flush();
-        } catch(IOException ignored) {
+        long sequence;
+        while(true) {
+            sequence = claimed.get();
+            if(sequence - consumed >= capacity) {
+                if(!blockWhenFull || Thread.currentThread() == writing || closing) {
+                    dropped.incrementAndGet();
+                    return;
+                }
+                LockSupport.unpark(writing);
+                LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(100));
+                continue;
+            }
+            if(claimed.compareAndSet(sequence, sequence + 1)) {
+                break;
+            }
+        }
+
+        int slot = (int) (sequence & (capacity - 1));
+        Record record = records[slot];
+        record.time = System.currentTimeMillis();
+        record.level = level;
+        record.classType = classType;
+        record.message = message;
+        published.lazySet(slot, sequence);
+        if(writerWaiting) {
+            LockSupport.unpark(writing);
+        }
+    }
+
+    /**
+     * Writer thread process
+     * <p>
+     * Writes batches of records until closed, parking while the buffer is empty
+     */
+    private void runWriter() {
+        StringBuilder batch = new StringBuilder(8192);
+        while(true) {
+            if(writeBatch(batch) > 0) {
+                continue;
+            }
+            if(closing) {
+                if(writeBatch(batch) == 0) {
+                    break;
+                }
+                continue;
+            }
+            writerWaiting = true;
+            if(!isPublished(consumed)) {
+                LockSupport.parkNanos(this, TimeUnit.SECONDS.toNanos(1));
+            }
+            writerWaiting = false;
+        }
+        closeFile();
+    }
+
+    /**
+     * Checks if the record with a sequence number has been published
+     *
+     * @param sequence sequence number
+     * @return true if it can be consumed
+     */
+    private boolean isPublished(long sequence) {
+        return published.get((int) (sequence & (capacity - 1))) == sequence;
+    }
+
+    /**
+     * Formats and writes all published records
+     *
+     * @param batch reusable StringBuilder
+     * @return number of records written
+     */
+    private int writeBatch(StringBuilder batch) {
+        batch.setLength(0);
+        long next = consumed;
+        int count = 0;
+        while(isPublished(next)) {
+            Record record = records[(int) (next & (capacity - 1))];
+            batch.append(formatTime(record.time)).append('\t').append(record.level.getName()).append('\t')
+                    .append(record.classType.getName()).append("\n\t").append(record.message).append('\n');
+            record.classType = null;
+            record.message = null;
+            next++;
+            count++;
+            consumed = next;
+            if(maximumSize > 0 && written + batch.length() >= maximumSize) {
+                write(batch);
+            }
+        }
+        long droppedCount = dropped.getAndSet(0);
+        if(droppedCount > 0) {
+            batch.append(formatTime(System.currentTimeMillis())).append('\t').append(Level.WARNING.getName())
+                    .append('\t').append(LogDriver.class.getName()).append("\n\t").append(droppedCount)
+                    .append(" log messages dropped, buffer full\n");
+            count = Math.max(count, 1);
+        }
+        write(batch);
+        return count;
+    }
+
+    /**
+     * Writes and clears formatted records, rotating the logfile if it reached the maximum size
+     *
+     * @param batch StringBuilder of formatted records
+     */
+    private void write(StringBuilder batch) {
+        if(batch.length() == 0) {
+            return;
+        }
+        synchronized(fileLock) {
+            if(writer == null) {
+                System.err.print(batch);
+            } else {
+                try {
+                    writer.write(batch.toString());
+                    writer.flush();
+                    written += batch.length();
+                } catch(IOException ignored) {
+                }
+                if(maximumSize > 0 && written >= maximumSize) {
+                    rotate();
+                }
+            }
+        }
+        batch.setLength(0);
+    }
+
+    /**
+     * Formats a time to the minute, reusing the last result within the same minute
+     *
+     * @param millis epoch millis
+     * @return String timestamp
+     */
+    private String formatTime(long millis) {
+        long minute = millis / 60000;
+        if(minute != timestampMinute) {
+            timestampMinute = minute;
+            timestamp = ClockDriver.dfFull.format(
+                    LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault()));
+        }
+        return timestamp;
+    }
+
+    /**
+     * Renames the logfile to logfile.log.1, shifting older files up, and opens a new logfile
+     */
+    @SuppressWarnings("ResultOfMethodCallIgnored")
+    private void rotate() {
+        closeFile();
+        int files = maximumFiles;
+        if(files == 0) {
+            new File(logfile).delete();
+        } else {
+            new File(logfile + "." + files).delete();
+            for(int i = files - 1; i >= 1; i--) {
+                new File(logfile + "." + i).renameTo(new File(logfile + "." + (i + 1)));
+            }
+            new File(logfile).renameTo(new File(logfile + ".1"));
+        }
+        open();
+    }
+
+    /**
+     * Waits until all queued records are written
+     *
+     * @param timeout maximum milliseconds to wait
+     */
+    private void awaitWritten(long timeout) {
+        Thread writing = writerThread;
+        long deadline = System.currentTimeMillis() + timeout;
+        while(writing != null && writing.isAlive() && consumed < claimed.get() &&
+                System.currentTimeMillis() < deadline) {
+            LockSupport.unpark(writing);
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+    }
+
+    /**
+     * Starts the writer thread if it is not running
+     */
+    private synchronized void startWriter() {
+        if(writerThread == null && !closing) {
+            Thread thread = new Thread(this::runWriter, "log-writer");
+            thread.setDaemon(true);
+            writerThread = thread;
+            thread.start();
         }
     }
 
@@ -117,6 +469,18 @@ public class LogDriver {
         log(classType, Level.SEVERE, message);
     }
 
+    /**
+     * Writes a severe log message to the logfile, building it only if severe messages are written
+     *
+     * @param classType class of object throwing the log file
+     * @param message   Supplier of the log message
+     */
+    public void severe(Class<?> classType, Supplier<String> message) {
+        if(isLoggable(Level.SEVERE)) {
+            log(classType, Level.SEVERE, message.get());
+        }
+    }
+
     /**
      * Writes a warning log message to the logfile
      *
@@ -128,6 +492,18 @@ public class LogDriver {
         log(classType, Level.WARNING, message);
     }
 
+    /**
+     * Writes a warning log message to the logfile, building it only if warnings are written
+     *
+     * @param classType class of object throwing the log file
+     * @param message   Supplier of the log message
+     */
+    public void warning(Class<?> classType, Supplier<String> message) {
+        if(isLoggable(Level.WARNING)) {
+            log(classType, Level.WARNING, message.get());
+        }
+    }
+
     /**
      * Writes a info log message to the logfile
      *
@@ -140,14 +516,35 @@ public class LogDriver {
     }
 
     /**
-     * Closes the log file
+     * Writes a info log message to the logfile, building it only if info messages are written
+     *
+     * @param classType class of object throwing the log file
+     * @param message   Supplier of the log message
+     */
+    public void info(Class<?> classType, Supplier<String> message) {
+        if(isLoggable(Level.INFO)) {
+            log(classType, Level.INFO, message.get());
+        }
+    }
+
+    /**
+     * Writes queued messages and closes the log file
      */
     public void close() {
-        try {
-            writer.close();
-            writer = null;
-        } catch(IOException ignored) {
+        Thread writing;
+        synchronized(this) {
+            closing = true;
+            writing = writerThread;
         }
+        if(writing != null) {
+            LockSupport.unpark(writing);
+            try {
+                writing.join(1000);
+            } catch(InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        closeFile();
     }
 
     /**
@@ -155,6 +552,7 @@ public class LogDriver {
      */
     public static void activate() {
         isActive = true;
+        getInstance().startWriter();
     }
 
     /**
@@ -163,4 +561,16 @@ public class LogDriver {
     public static void deactivate() {
         isActive = false;
     }
+
+    /**
+     * Class Record
+     * <p>
+     * Reusable slot of the ring buffer
+     */
+    private static class Record {
+        long time;
+        Level level;
+        Class<?> classType;
+        String message;
+    }
 }
@@ -0,0 +1,231 @@
+package driver;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+import sun.misc.Unsafe;
+
+/**
+ * Class MappedPositionSource
+ * <p>
+ * Reads positions from a memory-mapped single-slot file shared with the GPS process
+ * <p>
+ * Slot layout, little-endian: long sequence at offset 0, double latitude at 8, double longitude at 16.
+ * Writers make the sequence odd, write the position, then make the sequence even again, so readers
+ * can detect and retry a torn read without locking. Plain buffer reads and writes may be reordered by the
+ * compiler or the processor, so the reader puts a load fence between the sequence and position reads, and
+ * the writer a store fence between the sequence and position writes. Writers in other processes need the
+ * same barriers. The slot is checked at a fixed interval, which costs a single memory read when no new
+ * position has arrived.
+ *
+ * @author Brian Hooper
+ * @since 0.9.8
+ */
+public class MappedPositionSource implements PositionSource {
+    // Size of the slot file in bytes
+    static final int slotSize = 32;
+
+    // Offsets of the slot fields
+    private static final int sequenceOffset = 0;
+    private static final int latitudeOffset = 8;
+    private static final int longitudeOffset = 16;
+
+    // Provides the memory fences around the position fields
+    private static final Unsafe unsafe = getUnsafe();
+
+    // Path to slot file
+    private final String path;
+
+    // Interval between slot checks, in milliseconds
+    private final long pollInterval;
+
+    // Logger
+    private final LogDriver logger = LogDriver.getInstance();
+
+    // Mapped slot
+    private MappedByteBuffer slot;
+
+    // Reading thread, null if polling on a scheduler
+    private Thread thread;
+
+    // Polling task, null if polling on a thread
+    private TaskScheduler.Task task;
+
+    // Keeps reading thread running until closed
+    private volatile boolean keepRunning;
+
+    // Sequence number of the last position delivered
+    private long lastSequence;
+
+    /**
+     * Constructor
+     *
+     * @param path         path to slot file, created if it does not exist
+     * @param pollInterval interval between slot checks, in milliseconds
+     */
+    public MappedPositionSource(String path, long pollInterval) {
+        this.path = path;
+        this.pollInterval = pollInterval;
+    }
+
+    /**
+     * Getter for Unsafe, which provides memory fences on Java 8
+     *
+     * @return Unsafe
+     */
+    private static Unsafe getUnsafe() {
+        try {
+            Field field = Unsafe.class.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            return (Unsafe) field.get(null);
+        } catch(ReflectiveOperationException e) {
+            throw new IllegalStateException("Memory fences unavailable: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Maps a slot file into memory, creating it if necessary
+     *
+     * @param path path to slot file
+     * @return MappedByteBuffer
+     * @throws IOException if the file cannot be mapped
+     */
+    private static MappedByteBuffer map(String path) throws IOException {
+        try(RandomAccessFile file = new RandomAccessFile(path, "rw")) {
+            if(file.length() < slotSize) {
+                file.setLength(slotSize);
+            }
+            MappedByteBuffer buffer = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, slotSize);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            return buffer;
+        }
+    }
+
+    /**
+     * Starts checking the slot
+     *
+     * @param listener PositionListener
+     * @throws IOException if the slot file cannot be mapped
+     */
+    @Override
+    public void start(PositionListener listener) throws IOException {
+        slot = map(path);
+        lastSequence = 0;
+        keepRunning = true;
+        thread = new Thread(() -> run(listener), "position-mapped");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Starts checking the slot as a "position" task on a scheduler
+     *
+     * @param listener  PositionListener
+     * @param scheduler TaskScheduler
+     * @throws IOException if the slot file cannot be mapped
+     */
+    @Override
+    public void start(PositionListener listener, TaskScheduler scheduler) throws IOException {
+        slot = map(path);
+        lastSequence = 0;
+        task = scheduler.schedule("position", pollInterval, () -> poll(listener));
+    }
+
+    /**
+     * Thread process
+     * <p>
+     * Checks the slot sequence number each interval
+     *
+     * @param listener PositionListener
+     */
+    private void run(PositionListener listener) {
+        try {
+            while(keepRunning) {
+                poll(listener);
+                Thread.sleep(pollInterval);
+            }
+        } catch(InterruptedException e) {
+            if(keepRunning) {
+                logger.severe(this.getClass(), "Mapped position thread interrupted: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Delivers the slot position if it changed since the last check
+     *
+     * @param listener PositionListener
+     */
+    void poll(PositionListener listener) {
+        long sequence = slot.getLong(sequenceOffset);
+        if(sequence == lastSequence || (sequence & 1) != 0) {
+            return;
+        }
+        unsafe.loadFence();
+        double latitude = slot.getDouble(latitudeOffset);
+        double longitude = slot.getDouble(longitudeOffset);
+        unsafe.loadFence();
+        if(slot.getLong(sequenceOffset) != sequence) {
+            // Writer updated the slot while reading, retry on the next check
+            return;
+        }
+        lastSequence = sequence;
+        listener.positionUpdated(latitude, longitude);
+    }
+
+    /**
+     * Stops checking the slot
+     */
+    @Override
+    public void close() {
+        keepRunning = false;
+        if(thread != null) {
+            thread.interrupt();
+        }
+        if(task != null) {
+            task.cancel();
+        }
+    }
+
+    /**
+     * Class Writer
+     * <p>
+     * Publishes positions into a slot file, for GPS processes and replay tools running on the JVM
+     */
+    public static class Writer {
+        private final MappedByteBuffer slot;
+
+        /**
+         * Constructor
+         *
+         * @param path path to slot file, created if it does not exist
+         * @throws IOException if the file cannot be mapped
+         */
+        public Writer(String path) throws IOException {
+            slot = map(path);
+        }
+
+        /**
+         * Writes a position into the slot
+         *
+         * @param latitude  latitude
+         * @param longitude longitude
+         */
+        public synchronized void write(double latitude, double longitude) {
+            long sequence = slot.getLong(sequenceOffset);
+            if((sequence & 1) != 0) {
+                sequence++;
+            }
+            slot.putLong(sequenceOffset, sequence + 1);
+            unsafe.storeFence();
+            slot.putDouble(latitudeOffset, latitude);
+            slot.putDouble(longitudeOffset, longitude);
+            unsafe.storeFence();
+            slot.putLong(sequenceOffset, sequence + 2);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package driver;
+
+import navigation.Navigator;
+
+/**
+ * Interface NavigationSink
+ * <p>
+ * Receives navigation updates for display, such as the Swing view or the headless snapshot server
+ *
+ * @author Brian Hooper
+ * @since 0.9.8
+ */
+public interface NavigationSink {
+
+    /**
+     * Called after the navigator state changes
+     * <p>
+     * May be called from any thread
+     *
+     * @param navigator Navigator
+     */
+    void setNavigation(Navigator navigator);
+
+    /**
+     * Called with each new GPS position
+     * <p>
+     * May be called from any thread
+     *
+     * @param latitude  latitude
+     * @param longitude longitude
+     */
+    void setLocation(double latitude, double longitude);
+}
@@ -0,0 +1,171 @@
+package driver;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+
+/**
+ * Class NmeaReplayServer
+ * <p>
+ * Stand-in for gpsd that replays a recorded NMEA log to local clients, one line per interval
+ * <p>
+ * Usage: NmeaReplayServer logfile [port] [interval in milliseconds]
+ * <p>
+ * With --check, the log is instead replayed once to GpsStreamParser with corrupt lines mixed in, read in
+ * pieces of a few bytes so lines are split across feeds, and the fixes are compared to those parsed from
+ * the clean log. Usage: NmeaReplayServer --check [logfile], exits with status 1 if the check fails.
+ *
+ * @author Brian Hooper
+ * @since 0.9.8
+ */
+public class NmeaReplayServer {
+
+    // Default log checked by --check
+    private static final String samplePath = "config/sample.nmea";
+
+    /**
+     * Replays the log to a client until it disconnects
+     *
+     * @param client   connected Socket
+     * @param lines    recorded lines
+     * @param interval delay between lines in milliseconds
+     * @param repeat   true to restart at the end of the log, false to disconnect
+     * @throws InterruptedException if interrupted while waiting
+     */
+    private static void replay(Socket client, ArrayList<String> lines, long interval, boolean repeat)
+            throws InterruptedException {
+        try(Socket socket = client) {
+            OutputStream output = socket.getOutputStream();
+            do {
+                for(String line : lines) {
+                    output.write((line + "\r\n").getBytes(StandardCharsets.US_ASCII));
+                    output.flush();
+                    Thread.sleep(interval);
+                }
+            } while(repeat);
+        } catch(IOException e) {
+            System.out.println("Client disconnected: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Appends the checksum to an NMEA sentence
+     *
+     * @param body sentence from '$' up to the checksum
+     * @return sentence with checksum
+     */
+    private static String withChecksum(String body) {
+        return body + '*' + String.format("%02X", checksum(body));
+    }
+
+    /**
+     * Computes the checksum of an NMEA sentence, the xor of all characters after '$'
+     *
+     * @param body sentence from '$' up to the checksum
+     * @return checksum
+     */
+    private static int checksum(String body) {
+        int checksum = 0;
+        for(int i = 1; i < body.length(); i++) {
+            checksum ^= body.charAt(i);
+        }
+        return checksum;
+    }
+
+    /**
+     * Replays a log with corrupt lines through the parser and compares the fixes to the clean log
+     * <p>
+     * Corrupt lines are a plain line and a sentence with overlong numbers, a sentence with a wrong
+     * checksum and a cut off sentence, none of which may produce a fix or stop the parser.
+     *
+     * @param path path to log
+     * @return true if the fixes match
+     * @throws IOException          if the log can't be served
+     * @throws InterruptedException if interrupted while waiting
+     */
+    private static boolean check(String path) throws IOException, InterruptedException {
+        ArrayList<String> lines = FileManager.readLines(path);
+        if(lines == null || lines.isEmpty()) {
+            System.err.println("Unable to read " + path);
+            return false;
+        }
+
+        ArrayList<String> expected = new ArrayList<>();
+        byte[] clean = (String.join("\r\n", lines) + "\r\n").getBytes(StandardCharsets.US_ASCII);
+        new GpsStreamParser((latitude, longitude) -> expected.add(latitude + "," + longitude))
+                .feed(clean, 0, clean.length);
+
+        String digits = String.join("", Collections.nCopies(40, "1"));
+        String sentence = "$GPGGA,120000.00,4000.0000,N,11900.0000,W,1,08,0.9,1190.0,M,-21.5,M,,";
+        ArrayList<String> corrupted = new ArrayList<>();
+        for(int i = 0; i < lines.size(); i++) {
+            corrupted.add(lines.get(i));
+            if(i % 10 == 5) {
+                corrupted.add(digits + ",1");
+                corrupted.add(withChecksum("$GPGGA,120000.00," + digits + ",N,11900.0000,W,1,08,0.9,1190.0,M,-21.5,M,,"));
+                corrupted.add(sentence + '*' + String.format("%02X", checksum(sentence) ^ 1));
+                corrupted.add(sentence.substring(0, 25));
+            }
+        }
+
+        ArrayList<String> parsed = new ArrayList<>();
+        GpsStreamParser parser = new GpsStreamParser((latitude, longitude) -> parsed.add(latitude + "," + longitude));
+        try(ServerSocket serverSocket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            Thread server = new Thread(() -> {
+                try {
+                    replay(serverSocket.accept(), corrupted, 0, false);
+                } catch(IOException | InterruptedException e) {
+                    System.err.println("Unable to replay: " + e.getMessage());
+                }
+            });
+            server.start();
+            try(Socket socket = new Socket(InetAddress.getLoopbackAddress(), serverSocket.getLocalPort())) {
+                InputStream input = socket.getInputStream();
+                byte[] buffer = new byte[8];
+                int reads = 0;
+                int count;
+                while((count = input.read(buffer, 0, 1 + reads++ % buffer.length)) >= 0) {
+                    parser.feed(buffer, 0, count);
+                }
+            } catch(RuntimeException e) {
+                System.out.println("Parser failed: " + e);
+                return false;
+            }
+            server.join();
+        }
+
+        if(!parsed.equals(expected)) {
+            System.out.println("Parsed " + parsed.size() + " fixes, expected " + expected.size() + ": " + parsed);
+            return false;
+        }
+        System.out.println("Parsed " + parsed.size() + " fixes from " + lines.size() + " lines and " +
+                (corrupted.size() - lines.size()) + " corrupt lines");
+        return true;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if(args.length >= 1 && args[0].equals("--check")) {
+            System.exit(check(args.length > 1 ? args[1] : samplePath) ? 0 : 1);
+        }
+        if(args.length < 1) {
+            System.err.println("Usage: NmeaReplayServer logfile [port] [interval in milliseconds]");
+            return;
+        }
+        ArrayList<String> lines = FileManager.readLines(args[0]);
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : 2947;
+        long interval = args.length > 2 ? Long.parseLong(args[2]) : 1000;
+
+        try(ServerSocket serverSocket = new ServerSocket(port, 1, InetAddress.getLoopbackAddress())) {
+            System.out.println("Replaying " + lines.size() + " lines on port " + port);
+            while(true) {
+                replay(serverSocket.accept(), lines, interval, true);
+            }
+        }
+    }
+}
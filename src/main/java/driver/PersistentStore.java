@@ -0,0 +1,516 @@
+package driver;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.zip.CRC32;
+
+/**
+ * Class PersistentStore
+ * <p>
+ * Ordered map of strings kept in a text snapshot file plus an append-only log of changes
+ * <p>
+ * The snapshot keeps its usual text format, read and written by a Format. Each put or remove is
+ * appended to a log next to it, named after the snapshot with ".wal" added, as a record of int length,
+ * int CRC32 and the operation, key and value in UTF-8. Commit forces appended records to disk, so a
+ * batch of changes costs a single fsync. On open the snapshot is read and the log replayed, stopping at
+ * the first torn or corrupt record, which is truncated. Once the log grows past a limit the snapshot
+ * is rewritten to a temporary file, synced and renamed over the old one, and the log is emptied.
+ * Replaying the log over a snapshot that already contains its changes gives the same result, so a
+ * crash at any point leaves either the old or the new state.
+ *
+ * @author Brian Hooper
+ * @since 0.9.8
+ */
+public class PersistentStore {
+    // Log file magic, "BMWL" little-endian, and format version
+    private static final int magic = 0x4C574D42;
+    private static final int version = 1;
+
+    // Size of the log header, magic and version
+    private static final int headerSize = 8;
+
+    // Record operations
+    private static final byte putRecord = 1;
+    private static final byte removeRecord = 2;
+
+    // Log size in bytes after which the snapshot is rewritten
+    private static final long compactSize = 64 << 10;
+
+    // True if renames are made durable by syncing the directory, Windows can't open directories and
+    // journals renames itself
+    private static final boolean syncDirectories = !System.getProperty("os.name", "").startsWith("Windows");
+
+    // Logger
+    private static final LogDriver logger = LogDriver.getInstance();
+
+    // Relative path of the snapshot file, and of the log
+    private final String path;
+    private final String logPath;
+
+    // Snapshot file format
+    private final Format format;
+
+    // Current entries, in insertion order
+    private final LinkedHashMap<String, String> entries = new LinkedHashMap<>();
+
+    // Open log, null if it could not be opened, in which case changes are written as snapshots
+    private FileChannel log;
+
+    // True if records were appended since the last sync
+    private boolean unsynced = false;
+
+    /**
+     * Interface Format
+     * <p>
+     * Reads and writes the entries of a snapshot file
+     */
+    public interface Format {
+        /**
+         * Reads entries from a snapshot
+         *
+         * @param in      InputStream of the snapshot
+         * @param entries Map to add entries to
+         * @throws IOException if the snapshot cannot be read
+         */
+        void read(InputStream in, Map<String, String> entries) throws IOException;
+
+        /**
+         * Writes entries to a snapshot
+         *
+         * @param entries Map of entries, in order
+         * @param out     OutputStream of the snapshot
+         * @throws IOException if the snapshot cannot be written
+         */
+        void write(Map<String, String> entries, OutputStream out) throws IOException;
+    }
+
+    /**
+     * Constructor
+     * <p>
+     * Reads the snapshot, replays the log and opens it for appending
+     *
+     * @param path   relative path of the snapshot file
+     * @param format Format of the snapshot
+     */
+    public PersistentStore(String path, Format format) {
+        this.path = path;
+        this.logPath = path + ".wal";
+        this.format = format;
+
+        File snapshot = new File(path);
+        if(snapshot.isFile()) {
+            try(InputStream in = new BufferedInputStream(new FileInputStream(snapshot))) {
+                format.read(in, entries);
+            } catch(IOException | RuntimeException e) {
+                logger.severe(PersistentStore.class, "Error reading \'" + path + "\': " + e.getMessage());
+            }
+        }
+
+        try {
+            int valid = replay();
+            log = FileChannel.open(Paths.get(logPath), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            if(valid < headerSize) {
+                resetLog();
+            } else if(valid < log.size()) {
+                log.truncate(valid);
+                log.force(false);
+            }
+            log.position(log.size());
+        } catch(IOException e) {
+            logger.severe(PersistentStore.class, "Unable to open log \'" + logPath + "\': " + e.getMessage());
+            closeLog();
+        }
+    }
+
+    /**
+     * Applies the records in the log
+     *
+     * @return length of the log up to the end of the last valid record, 0 if it has no valid header
+     * @throws IOException if the log cannot be read
+     */
+    private int replay() throws IOException {
+        File file = new File(logPath);
+        if(!file.isFile() || file.length() < headerSize) {
+            return 0;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file.toPath())).order(ByteOrder.LITTLE_ENDIAN);
+        if(buffer.getInt() != magic || buffer.getInt() != version) {
+            logger.severe(PersistentStore.class, "Ignoring log \'" + logPath + "\', unsupported format");
+            return 0;
+        }
+
+        int records = 0;
+        CRC32 crc = new CRC32();
+        while(buffer.remaining() >= 8) {
+            int start = buffer.position();
+            int length = buffer.getInt();
+            int checksum = buffer.getInt();
+            if(length <= 0 || length > buffer.remaining()) {
+                buffer.position(start);
+                break;
+            }
+            crc.reset();
+            crc.update(buffer.array(), buffer.position(), length);
+            if((int) crc.getValue() != checksum) {
+                buffer.position(start);
+                break;
+            }
+            apply(ByteBuffer.wrap(buffer.array(), buffer.position(), length).slice().order(ByteOrder.LITTLE_ENDIAN));
+            buffer.position(buffer.position() + length);
+            records++;
+        }
+
+        if(buffer.hasRemaining()) {
+            logger.warning(PersistentStore.class, "Discarding " + buffer.remaining() +
+                    " bytes of incomplete changes at the end of \'" + logPath + "\'");
+        }
+        if(records > 0) {
+            logger.info(PersistentStore.class, "Recovered " + records + " changes from \'" + logPath + "\'");
+        }
+        return buffer.position();
+    }
+
+    /**
+     * Applies one log record
+     *
+     * @param record ByteBuffer positioned at the operation
+     */
+    private void apply(ByteBuffer record) {
+        byte operation = record.get();
+        String key = readString(record);
+        if(operation == putRecord) {
+            entries.put(key, readString(record));
+        } else if(operation == removeRecord) {
+            entries.remove(key);
+        }
+    }
+
+    /**
+     * Reads a length-prefixed UTF-8 string
+     *
+     * @param buffer ByteBuffer
+     * @return String
+     */
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length,
+                StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+
+//**********************
+// Getters and setters
+//**********************
+
+    /**
+     * Getter for a value
+     *
+     * @param key key
+     * @return value, or null if there is none
+     */
+    public synchronized String get(String key) {
+        return entries.get(key);
+    }
+
+    /**
+     * Getter for a value
+     *
+     * @param key          key
+     * @param defaultValue value returned if there is none
+     * @return value
+     */
+    public synchronized String get(String key, String defaultValue) {
+        String value = entries.get(key);
+        return value == null ? defaultValue : value;
+    }
+
+    /**
+     * Getter for all entries
+     *
+     * @return unmodifiable copy of the entries, in insertion order
+     */
+    public synchronized Map<String, String> getEntries() {
+        return Collections.unmodifiableMap(new LinkedHashMap<>(entries));
+    }
+
+//**********************
+// Class methods
+//**********************
+
+    /**
+     * Sets a value, appending the change to the log unless the value is unchanged
+     * <p>
+     * The change is durable once committed
+     *
+     * @param key   key
+     * @param value value
+     */
+    public synchronized void put(String key, String value) {
+        Objects.requireNonNull(value);
+        if(value.equals(entries.put(key, value))) {
+            return;
+        }
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        byte[] valueBytes = value.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer record = ByteBuffer.allocate(9 + keyBytes.length + valueBytes.length).order(ByteOrder.LITTLE_ENDIAN);
+        record.put(putRecord).putInt(keyBytes.length).put(keyBytes).putInt(valueBytes.length).put(valueBytes);
+        append(record);
+    }
+
+    /**
+     * Removes a value, appending the change to the log if there was one
+     * <p>
+     * The change is durable once committed
+     *
+     * @param key key
+     */
+    public synchronized void remove(String key) {
+        if(!entries.containsKey(key)) {
+            return;
+        }
+        entries.remove(key);
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer record = ByteBuffer.allocate(5 + keyBytes.length).order(ByteOrder.LITTLE_ENDIAN);
+        record.put(removeRecord).putInt(keyBytes.length).put(keyBytes);
+        append(record);
+    }
+
+    /**
+     * Appends a record to the log, without syncing
+     *
+     * @param record ByteBuffer of operation, key and value, positioned at its end
+     */
+    private void append(ByteBuffer record) {
+        if(log == null) {
+            unsynced = true;
+            return;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(record.array(), 0, record.position());
+        ByteBuffer framed = ByteBuffer.allocate(8 + record.position()).order(ByteOrder.LITTLE_ENDIAN);
+        framed.putInt(record.position()).putInt((int) crc.getValue()).put(record.array(), 0, record.position());
+        framed.flip();
+        try {
+            while(framed.hasRemaining()) {
+                log.write(framed);
+            }
+            unsynced = true;
+        } catch(IOException e) {
+            logger.severe(PersistentStore.class, "Error appending to \'" + logPath + "\': " + e.getMessage());
+            closeLog();
+            unsynced = true;
+        }
+    }
+
+    /**
+     * Forces changes appended since the last commit to disk
+     * <p>
+     * Rewrites the snapshot once the log has grown past its limit, or if the log could not be opened
+     */
+    public synchronized void commit() {
+        if(!unsynced) {
+            return;
+        }
+        if(log == null) {
+            compact();
+            return;
+        }
+        try {
+            log.force(false);
+            unsynced = false;
+            if(log.size() > compactSize) {
+                compact();
+            }
+        } catch(IOException e) {
+            logger.severe(PersistentStore.class, "Error syncing \'" + logPath + "\': " + e.getMessage());
+        }
+    }
+
+    /**
+     * Rewrites the snapshot with the current entries and empties the log
+     * <p>
+     * The snapshot is written to a temporary file, synced, then renamed over the old snapshot, so the
+     * snapshot on disk is always complete. The directory is synced before the log is emptied, so after a
+     * power cut either the new snapshot or the old snapshot and the full log remain.
+     */
+    public synchronized void compact() {
+        Path target = Paths.get(path);
+        Path temporary = Paths.get(path + ".tmp");
+        try {
+            try(FileOutputStream out = new FileOutputStream(temporary.toFile())) {
+                BufferedOutputStream buffered = new BufferedOutputStream(out);
+                format.write(entries, buffered);
+                buffered.flush();
+                out.getFD().sync();
+            }
+            try {
+                Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch(AtomicMoveNotSupportedException e) {
+                Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            syncDirectory(target);
+            if(log != null) {
+                resetLog();
+            }
+            unsynced = false;
+        } catch(IOException e) {
+            logger.severe(PersistentStore.class, "Error writing \'" + path + "\': " + e.getMessage());
+        }
+    }
+
+    /**
+     * Syncs the directory holding a file, so a rename into it survives a power cut
+     *
+     * @param file Path of a file in the directory
+     * @throws IOException if the directory cannot be synced
+     */
+    private static void syncDirectory(Path file) throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        if(!syncDirectories || directory == null) {
+            return;
+        }
+        try(FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Empties the log, leaving only its header
+     *
+     * @throws IOException if the log cannot be written
+     */
+    private void resetLog() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(headerSize).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(magic).putInt(version).flip();
+        log.truncate(0);
+        while(header.hasRemaining()) {
+            log.write(header, header.position());
+        }
+        log.position(headerSize);
+        log.force(false);
+    }
+
+    /**
+     * Closes the log, changes are then written as snapshots
+     */
+    private void closeLog() {
+        if(log != null) {
+            try {
+                log.close();
+            } catch(IOException ignored) {
+            }
+            log = null;
+        }
+    }
+
+    /**
+     * Writes outstanding changes to the snapshot and closes the log
+     */
+    public synchronized void close() {
+        try {
+            if(unsynced || (log != null && log.size() > headerSize)) {
+                compact();
+            }
+        } catch(IOException e) {
+            logger.warning(PersistentStore.class, "Error closing \'" + logPath + "\': " + e.getMessage());
+        }
+        closeLog();
+    }
+
+    /**
+     * Format of one entry per line, the key, with empty values
+     *
+     * @return Format
+     */
+    public static Format lines() {
+        return new Format() {
+            @Override
+            public void read(InputStream in, Map<String, String> entries) throws IOException {
+                BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+                String line;
+                while((line = reader.readLine()) != null) {
+                    entries.put(line, "");
+                }
+            }
+
+            @Override
+            public void write(Map<String, String> entries, OutputStream out) throws IOException {
+                Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+                for(String key : entries.keySet()) {
+                    writer.write(key);
+                    writer.write('\n');
+                }
+                writer.flush();
+            }
+        };
+    }
+
+    /**
+     * Format of one entry per line, key and value separated by a delimiter
+     *
+     * @param delimiter String delimiter, not contained in any key
+     * @return Format
+     */
+    public static Format delimited(String delimiter) {
+        return new Format() {
+            @Override
+            public void read(InputStream in, Map<String, String> entries) throws IOException {
+                BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+                String line;
+                while((line = reader.readLine()) != null) {
+                    int split = line.indexOf(delimiter);
+                    if(split >= 0) {
+                        entries.put(line.substring(0, split), line.substring(split + delimiter.length()));
+                    }
+                }
+            }
+
+            @Override
+            public void write(Map<String, String> entries, OutputStream out) throws IOException {
+                Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+                for(Map.Entry<String, String> entry : entries.entrySet()) {
+                    writer.write(entry.getKey());
+                    writer.write(delimiter);
+                    writer.write(entry.getValue());
+                    writer.write('\n');
+                }
+                writer.flush();
+            }
+        };
+    }
+
+    /**
+     * Format of java.util.Properties files
+     *
+     * @return Format
+     */
+    public static Format properties() {
+        return new Format() {
+            @Override
+            public void read(InputStream in, Map<String, String> entries) throws IOException {
+                Properties properties = new Properties();
+                properties.load(in);
+                for(String key : properties.stringPropertyNames()) {
+                    entries.put(key, properties.getProperty(key));
+                }
+            }
+
+            @Override
+            public void write(Map<String, String> entries, OutputStream out) throws IOException {
+                Properties properties = new Properties();
+                properties.putAll(entries);
+                properties.store(out, "");
+            }
+        };
+    }
+}
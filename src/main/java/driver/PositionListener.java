@@ -0,0 +1,34 @@
+package driver;
+
+/**
+ * Interface PositionListener
+ * <p>
+ * Receives GPS positions from a PositionSource
+ *
+ * @author Brian Hooper
+ * @since 0.9.8
+ */
+public interface PositionListener {
+
+    /**
+     * Called by a PositionSource each time a new position arrives
+     *
+     * @param latitude  latitude
+     * @param longitude longitude
+     */
+    void positionUpdated(double latitude, double longitude);
+
+    /**
+     * Called by a PositionSource for a position with the time it was measured
+     * <p>
+     * Replayed positions carry their recorded times, so smoothing and speed estimates see the
+     * recorded intervals rather than the playback speed. By default the time is ignored.
+     *
+     * @param latitude  latitude
+     * @param longitude longitude
+     * @param time      time the position was measured in epoch milliseconds
+     */
+    default void positionUpdated(double latitude, double longitude, long time) {
+        positionUpdated(latitude, longitude);
+    }
+}
@@ -0,0 +1,43 @@
+package driver;
+
+import java.io.IOException;
+
+/**
+ * Interface PositionSource
+ * <p>
+ * Supplier of GPS positions, pushes each position to a listener as soon as it arrives
+ * <p>
+ * Sources run on their own daemon thread between start() and close(). Sources that poll can instead
+ * run as a task on a shared TaskScheduler.
+ *
+ * @author Brian Hooper
+ * @since 0.9.8
+ */
+public interface PositionSource {
+
+    /**
+     * Starts delivering positions to a listener
+     *
+     * @param listener PositionListener
+     * @throws IOException if the underlying file or socket cannot be opened
+     */
+    void start(PositionListener listener) throws IOException;
+
+    /**
+     * Starts delivering positions to a listener, polling on a shared scheduler if the source polls
+     * <p>
+     * Sources that block on a file or socket start their own thread
+     *
+     * @param listener  PositionListener
+     * @param scheduler TaskScheduler
+     * @throws IOException if the underlying file or socket cannot be opened
+     */
+    default void start(PositionListener listener, TaskScheduler scheduler) throws IOException {
+        start(listener);
+    }
+
+    /**
+     * Stops delivering positions and releases the underlying file or socket
+     */
+    void close();
+}
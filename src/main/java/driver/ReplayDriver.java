@@ -0,0 +1,124 @@
+package driver;
+
+import navigation.Navigator;
+
+import java.io.IOException;
+
+/**
+ * Class ReplayDriver
+ * <p>
+ * Headless entry point that replays a track through the Navigator update path and reports latency
+ * <p>
+ * Each fix runs Navigator.updateLocation with its recorded time, followed by Navigator.getSnapshot,
+ * the work done for a position before the view is redrawn. Update latency is the time spent on that work, and lag is how
+ * late each fix was delivered relative to its schedule.
+ * <p>
+ * Usage: ReplayDriver [options] source
+ * <p>
+ * source is a tracker file, a ".trk" segment, a directory of segments, or "random".
+ * Options are "--speed N" (default 1, 0 for unpaced), "--rate HZ" for a fixed fix rate,
+ * "--max-gap MS" (default 5000), "--count N" fixes for a random walk (default 10000),
+ * "--seed N" and "--warmup N" fixes excluded from the report (default 0).
+ *
+ * @author Brian Hooper
+ * @since 0.9.8
+ */
+public class ReplayDriver {
+    // Starting point of random walks, matching config/update_coordinate.py
+    private static final double walkLatitude = 40.7844;
+    private static final double walkLongitude = -119.2045;
+
+    public static void main(String[] args) throws IOException {
+        String source = null;
+        double speed = 1;
+        double rate = 0;
+        long maximumGap = 5000;
+        int count = 10000;
+        long seed = 0;
+        int warmup = 0;
+        try {
+            for(int i = 0; i < args.length; i++) {
+                switch(args[i]) {
+                    case "--speed":
+                        speed = Double.parseDouble(args[++i]);
+                        break;
+                    case "--rate":
+                        rate = Double.parseDouble(args[++i]);
+                        break;
+                    case "--max-gap":
+                        maximumGap = Long.parseLong(args[++i]);
+                        break;
+                    case "--count":
+                        count = Integer.parseInt(args[++i]);
+                        break;
+                    case "--seed":
+                        seed = Long.parseLong(args[++i]);
+                        break;
+                    case "--warmup":
+                        warmup = Integer.parseInt(args[++i]);
+                        break;
+                    default:
+                        source = args[i];
+                }
+            }
+        } catch(NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            source = null;
+        }
+        if(source == null) {
+            System.err.println("Usage: ReplayDriver [--speed N | --rate HZ] [--max-gap MS] [--count N] " +
+                    "[--seed N] [--warmup N] tracker.csv|segment.trk|directory|random");
+            return;
+        }
+
+        Track track;
+        if(source.equals("random")) {
+            long interval = rate > 0 ? (long) (1000 / rate) : 1000;
+            track = Track.randomWalk(walkLatitude, walkLongitude, count, interval, seed);
+        } else {
+            track = Track.read(source);
+        }
+        TrackReplay replay = rate > 0 ? new TrackReplay(track, rate) : new TrackReplay(track, speed, maximumGap);
+
+        long loadStart = System.nanoTime();
+        Navigator navigator = new Navigator();
+        double readyTime = (System.nanoTime() - loadStart) / 1e6;
+        navigator.awaitLoaded();
+        System.out.printf("Navigator ready in %.1f ms, loaded in %.1f ms, replaying %d fixes%n",
+                readyTime, (System.nanoTime() - loadStart) / 1e6, track.size());
+
+        LatencyRecorder latency = new LatencyRecorder();
+        LatencyRecorder lag = rate > 0 || speed > 0 ? new LatencyRecorder() : null;
+        int[] delivered = {0};
+        final int skip = warmup;
+        long start = System.nanoTime();
+        replay.replay(new PositionListener() {
+            @Override
+            public void positionUpdated(double latitude, double longitude) {
+                positionUpdated(latitude, longitude, System.currentTimeMillis());
+            }
+
+            @Override
+            public void positionUpdated(double latitude, double longitude, long time) {
+                long updateStart = System.nanoTime();
+                navigator.updateLocation(latitude, longitude, time);
+                navigator.getSnapshot();
+                long elapsed = System.nanoTime() - updateStart;
+                if(delivered[0]++ == skip && skip > 0) {
+                    latency.clear();
+                    if(lag != null) {
+                        lag.clear();
+                    }
+                }
+                latency.record(elapsed);
+            }
+        }, lag);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("Replayed %d fixes in %.2f s (%.1f fixes/s)%n", delivered[0], seconds, delivered[0] / seconds);
+        System.out.println("Update latency: " + latency);
+        if(lag != null) {
+            System.out.println("Delivery lag:   " + lag);
+        }
+        LogDriver.getInstance().close();
+    }
+}
@@ -0,0 +1,416 @@
+package driver;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import navigation.NavigationSnapshot;
+import navigation.Navigator;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Class SnapshotServer
+ * <p>
+ * Publishes navigation snapshots as JSON over a local HTTP endpoint, for displays without Swing
+ * <p>
+ * GET /snapshot returns the latest snapshot. GET /stream is a Server-Sent Events stream that sends the
+ * latest snapshot on connect and again each time it or the position changes, with a comment line as a
+ * heartbeat every 15 seconds. Each snapshot is an object of sequence number, time in epoch millis,
+ * latitude and longitude of the latest position, null until the first, and the snapshot fields. Updates
+ * are coalesced on a single publisher thread, so a slow client never blocks the position source. Each
+ * stream has its own writer thread and a bounded queue of events, and a stream whose queue fills is
+ * dropped, so a stalled client never delays the others or the heartbeat.
+ *
+ * @author Brian Hooper
+ * @since 0.9.8
+ */
+public class SnapshotServer implements NavigationSink {
+    // Logger
+    private static final LogDriver logger = LogDriver.getInstance();
+
+    // Events a stream may have waiting before it is dropped as stalled, about a minute of updates
+    private static final int streamCapacity = 64;
+
+    // HTTP server and its request threads
+    private final HttpServer server;
+    private final ExecutorService requestExecutor;
+
+    // Single thread formatting snapshots and queueing them for streams
+    private final ExecutorService publisher;
+
+    // Threads writing to streams, one for each open stream
+    private final ExecutorService writers;
+
+    // Open streams, only used on the publisher thread
+    private final ArrayList<Stream> streams = new ArrayList<>();
+
+    // Set while a publish is queued on the publisher thread
+    private final AtomicBoolean publishQueued = new AtomicBoolean(false);
+
+    // Latest snapshot and position, the snapshot last published and whether the position changed since
+    private NavigationSnapshot snapshot;
+    private NavigationSnapshot publishedSnapshot;
+    private boolean located = false;
+    private boolean moved = false;
+    private double latitude;
+    private double longitude;
+
+    // Latest published JSON and its sequence number
+    private volatile String json = null;
+    private long sequence = 0;
+
+    // Heartbeat task, null until started
+    private TaskScheduler.Task heartbeatTask;
+
+    /**
+     * Constructor
+     * <p>
+     * Binds the server, requests are served once started
+     *
+     * @param host address to bind, such as 127.0.0.1 for local clients only
+     * @param port TCP port
+     * @throws IOException if the address cannot be bound
+     */
+    public SnapshotServer(String host, int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(host, port), 0);
+        AtomicInteger threadCount = new AtomicInteger();
+        requestExecutor = Executors.newFixedThreadPool(2, runnable -> {
+            Thread thread = new Thread(runnable, "snapshot-http-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        publisher = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "snapshot-publisher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        AtomicInteger writerCount = new AtomicInteger();
+        writers = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "snapshot-stream-" + writerCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(requestExecutor);
+        server.createContext("/snapshot", this::handleSnapshot);
+        server.createContext("/stream", this::handleStream);
+    }
+
+    /**
+     * Starts serving requests and schedules the stream heartbeat
+     *
+     * @param scheduler TaskScheduler
+     */
+    public void start(TaskScheduler scheduler) {
+        server.start();
+        heartbeatTask = scheduler.schedule("stream-heartbeat", 15000,
+                () -> publisher.execute(() -> write(": heartbeat\n\n")));
+        logger.info(SnapshotServer.class, "Serving snapshots on " + getAddress());
+    }
+
+    /**
+     * Stops the server and closes open streams
+     */
+    public void stop() {
+        if(heartbeatTask != null) {
+            heartbeatTask.cancel();
+        }
+        server.stop(0);
+        publisher.execute(() -> {
+            for(Stream stream : streams) {
+                stream.close();
+            }
+            streams.clear();
+            writers.shutdown();
+        });
+        publisher.shutdown();
+        requestExecutor.shutdown();
+    }
+
+//**********************
+// Getters and setters
+//**********************
+
+    /**
+     * Getter for the bound address
+     *
+     * @return String URL of the server
+     */
+    public String getAddress() {
+        InetSocketAddress address = server.getAddress();
+        return "http://" + address.getHostString() + ":" + address.getPort();
+    }
+
+    /**
+     * Getter for the latest snapshot JSON
+     *
+     * @return String JSON, null until the first snapshot
+     */
+    public String getJson() {
+        return json;
+    }
+
+    /**
+     * Takes the latest snapshot from the navigator and queues it for publishing if it changed
+     *
+     * @param navigator Navigator
+     */
+    @Override
+    public void setNavigation(Navigator navigator) {
+        NavigationSnapshot latest = navigator.getSnapshot();
+        synchronized(this) {
+            snapshot = latest;
+        }
+        queuePublish();
+    }
+
+    /**
+     * Records the latest position and queues it for publishing if it changed
+     *
+     * @param latitude  latitude
+     * @param longitude longitude
+     */
+    @Override
+    public void setLocation(double latitude, double longitude) {
+        synchronized(this) {
+            if(located && latitude == this.latitude && longitude == this.longitude) {
+                return;
+            }
+            this.located = true;
+            this.moved = true;
+            this.latitude = latitude;
+            this.longitude = longitude;
+        }
+        queuePublish();
+    }
+
+//**********************
+// Class methods
+//**********************
+
+    /**
+     * Queues a publish unless one is already queued
+     */
+    private void queuePublish() {
+        if(publishQueued.compareAndSet(false, true)) {
+            try {
+                publisher.execute(this::publish);
+            } catch(RuntimeException e) {
+                publishQueued.set(false);
+            }
+        }
+    }
+
+    /**
+     * Converts the latest snapshot to JSON and sends it to every stream if the snapshot or position changed
+     * <p>
+     * Runs on the publisher thread
+     */
+    private void publish() {
+        publishQueued.set(false);
+        String latest;
+        synchronized(this) {
+            if(snapshot == null || (snapshot == publishedSnapshot && !moved)) {
+                return;
+            }
+            publishedSnapshot = snapshot;
+            moved = false;
+            latest = toJson(++sequence);
+        }
+        json = latest;
+        write("id: " + sequence + "\ndata: " + latest + "\n\n");
+    }
+
+    /**
+     * Formats the latest snapshot and position
+     *
+     * @param number sequence number
+     * @return String JSON
+     */
+    private synchronized String toJson(long number) {
+        StringBuilder builder = new StringBuilder(384);
+        builder.append("{\"sequence\":").append(number).append(",\"time\":").append(System.currentTimeMillis());
+        if(located) {
+            builder.append(",\"latitude\":").append(latitude).append(",\"longitude\":").append(longitude);
+        } else {
+            builder.append(",\"latitude\":null,\"longitude\":null");
+        }
+        return builder.append(",\"snapshot\":").append(publishedSnapshot.toJson()).append('}').toString();
+    }
+
+    /**
+     * Queues text for every open stream, dropping streams that failed or fell too far behind
+     * <p>
+     * Runs on the publisher thread
+     *
+     * @param text String event
+     */
+    private void write(String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        Iterator<Stream> iterator = streams.iterator();
+        while(iterator.hasNext()) {
+            Stream stream = iterator.next();
+            if(!stream.offer(bytes)) {
+                iterator.remove();
+                if(!stream.isClosed()) {
+                    logger.warning(SnapshotServer.class, "Dropped stalled stream");
+                }
+                stream.close();
+            }
+        }
+    }
+
+    /**
+     * Closes a stream, ignoring errors
+     *
+     * @param stream OutputStream
+     */
+    private static void close(OutputStream stream) {
+        try {
+            stream.close();
+        } catch(IOException ignored) {
+        }
+    }
+
+    /**
+     * Handles GET /snapshot
+     *
+     * @param exchange HttpExchange
+     * @throws IOException if the response cannot be written
+     */
+    private void handleSnapshot(HttpExchange exchange) throws IOException {
+        try {
+            if(!"GET".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            String latest = json;
+            if(latest == null) {
+                exchange.sendResponseHeaders(503, -1);
+                return;
+            }
+            byte[] body = latest.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+            exchange.getResponseHeaders().set("Cache-Control", "no-store");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Handles GET /stream, the response is kept open and written to by its own writer thread
+     *
+     * @param exchange HttpExchange
+     * @throws IOException if the response headers cannot be written
+     */
+    private void handleStream(HttpExchange exchange) throws IOException {
+        if(!"GET".equals(exchange.getRequestMethod())) {
+            exchange.sendResponseHeaders(405, -1);
+            exchange.close();
+            return;
+        }
+        exchange.getResponseHeaders().set("Content-Type", "text/event-stream; charset=utf-8");
+        exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+        exchange.sendResponseHeaders(200, 0);
+        Stream stream = new Stream(exchange.getResponseBody());
+        publisher.execute(() -> {
+            String latest = json;
+            if(latest != null) {
+                stream.offer(("id: " + sequence + "\ndata: " + latest + "\n\n").getBytes(StandardCharsets.UTF_8));
+            }
+            streams.add(stream);
+            writers.execute(stream);
+        });
+    }
+
+    /**
+     * Class Stream
+     * <p>
+     * An open stream response and the events waiting for it, written by its own writer thread
+     * <p>
+     * The publisher thread offers events and closes the stream. Closing ends the writer once any write
+     * in progress returns, after which the response is closed.
+     */
+    private static class Stream implements Runnable {
+        // Marks the end of the events
+        private static final byte[] endOfStream = new byte[0];
+
+        // Stream response
+        private final OutputStream out;
+
+        // Events waiting to be written
+        private final ArrayBlockingQueue<byte[]> events = new ArrayBlockingQueue<>(streamCapacity);
+
+        // Set once the stream is closed or a write fails
+        private volatile boolean closed = false;
+
+        /**
+         * Constructor
+         *
+         * @param out OutputStream of the response
+         */
+        Stream(OutputStream out) {
+            this.out = out;
+        }
+
+        /**
+         * Queues an event
+         *
+         * @param bytes UTF-8 event
+         * @return false if the stream is closed or its queue is full
+         */
+        boolean offer(byte[] bytes) {
+            return !closed && events.offer(bytes);
+        }
+
+        /**
+         * Checks whether the stream is closed
+         *
+         * @return true once closed or a write failed
+         */
+        boolean isClosed() {
+            return closed;
+        }
+
+        /**
+         * Discards waiting events and ends the writer
+         */
+        void close() {
+            closed = true;
+            events.clear();
+            events.offer(endOfStream);
+        }
+
+        /**
+         * Writes events until the stream is closed or a write fails
+         */
+        @Override
+        public void run() {
+            try {
+                out.flush();
+                while(true) {
+                    byte[] bytes = events.take();
+                    if(bytes == endOfStream) {
+                        break;
+                    }
+                    out.write(bytes);
+                    out.flush();
+                }
+            } catch(IOException | InterruptedException ignored) {
+            } finally {
+                closed = true;
+                SnapshotServer.close(out);
+            }
+        }
+    }
+}
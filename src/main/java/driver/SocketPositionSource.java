@@ -0,0 +1,108 @@
+package driver;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+
+/**
+ * Class SocketPositionSource
+ * <p>
+ * Listens on a local TCP port for a line stream of positions
+ * <p>
+ * Lines may be NMEA sentences, gpsd reports, or a latitude and longitude separated by a comma or
+ * whitespace, see GpsStreamParser. One client is served at a time, and a new client may connect after
+ * the previous one disconnects.
+ *
+ * @author Brian Hooper
+ * @since 0.9.8
+ */
+public class SocketPositionSource implements PositionSource {
+    // Local port to listen on
+    private final int port;
+
+    // Logger
+    private final LogDriver logger = LogDriver.getInstance();
+
+    // Listening socket and current client
+    private ServerSocket serverSocket;
+    private volatile Socket client;
+
+    // Reading thread
+    private Thread thread;
+
+    // Keeps reading thread running until closed
+    private volatile boolean keepRunning;
+
+    /**
+     * Constructor
+     *
+     * @param port local port to listen on
+     */
+    public SocketPositionSource(int port) {
+        this.port = port;
+    }
+
+    /**
+     * Starts listening on the port
+     *
+     * @param listener PositionListener
+     * @throws IOException if the port cannot be bound
+     */
+    @Override
+    public void start(PositionListener listener) throws IOException {
+        serverSocket = new ServerSocket(port, 1, InetAddress.getLoopbackAddress());
+        keepRunning = true;
+        thread = new Thread(() -> run(listener), "position-socket");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Thread process
+     * <p>
+     * Accepts clients and reads their lines until closed
+     *
+     * @param listener PositionListener
+     */
+    private void run(PositionListener listener) {
+        byte[] buffer = new byte[4096];
+        while(keepRunning) {
+            try(Socket socket = serverSocket.accept()) {
+                client = socket;
+                GpsStreamParser parser = new GpsStreamParser(listener);
+                InputStream input = socket.getInputStream();
+                int count;
+                while((count = input.read(buffer)) > 0) {
+                    parser.feed(buffer, 0, count);
+                }
+            } catch(IOException e) {
+                if(keepRunning) {
+                    logger.warning(this.getClass(), "Position client disconnected: " + e.getMessage());
+                }
+            } finally {
+                client = null;
+            }
+        }
+    }
+
+    /**
+     * Stops listening and disconnects the current client
+     */
+    @Override
+    public void close() {
+        keepRunning = false;
+        try {
+            if(serverSocket != null) {
+                serverSocket.close();
+            }
+            Socket socket = client;
+            if(socket != null) {
+                socket.close();
+            }
+        } catch(IOException e) {
+            logger.warning(this.getClass(), "Cannot close position socket: " + e.getMessage());
+        }
+    }
+}
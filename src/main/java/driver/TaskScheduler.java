@@ -0,0 +1,275 @@
+package driver;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BinaryOperator;
+
+/**
+ * Class TaskScheduler
+ * <p>
+ * Runs named periodic tasks on a small shared pool of daemon threads
+ * <p>
+ * The period of every task can be overridden with a config value named after the task, in milliseconds:
+ * NAME-INTERVAL for a task named "name", such as TRACK-COMMIT-INTERVAL for "track-commit" or
+ * TEMPERATURE-INTERVAL for "temperature". A period of 0 or less disables the task. Tasks run at a fixed rate. The delay between when a run was due and when it
+ * started is recorded as jitter. An exception thrown by a task is logged and does not cancel it.
+ *
+ * @author Brian Hooper
+ * @since 0.9.8
+ */
+public class TaskScheduler {
+    // Logger
+    private static final LogDriver logger = LogDriver.getInstance();
+
+    // Shared executor
+    private final ScheduledThreadPoolExecutor executor;
+
+    // Config lookup of key and default value, may be null
+    private final BinaryOperator<String> config;
+
+    // Scheduled tasks, in order of scheduling
+    private final List<Task> tasks = new ArrayList<>();
+
+    /**
+     * Constructor
+     *
+     * @param name    thread name prefix
+     * @param threads number of threads
+     * @param config  config lookup of key and default value, such as Navigator::getConfigValue, may be null
+     */
+    public TaskScheduler(String name, int threads, BinaryOperator<String> config) {
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ScheduledThreadPoolExecutor(Math.max(threads, 1), runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.executor.setRemoveOnCancelPolicy(true);
+        this.executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        this.config = config;
+    }
+
+    /**
+     * Schedules a periodic task, starting immediately
+     *
+     * @param name          task name, lowercase words separated by hyphens
+     * @param defaultPeriod period in milliseconds if none is configured
+     * @param action        Runnable
+     * @return Task, or null if the period is 0 or less, or the scheduler is shut down
+     */
+    public Task schedule(String name, long defaultPeriod, Runnable action) {
+        long period = defaultPeriod;
+        if(config != null) {
+            String key = name.toUpperCase(Locale.ROOT) + "-INTERVAL";
+            try {
+                period = Long.parseLong(config.apply(key, String.valueOf(defaultPeriod)).trim());
+            } catch(NumberFormatException e) {
+                logger.warning(TaskScheduler.class, "Invalid " + key + ", using " + defaultPeriod + ": " +
+                        e.getMessage());
+            }
+        }
+        if(period <= 0) {
+            logger.info(TaskScheduler.class, "Task " + name + " disabled");
+            return null;
+        }
+
+        Task task = new Task(name, period, action);
+        synchronized(this) {
+            if(executor.isShutdown()) {
+                return null;
+            }
+            task.start(executor);
+            tasks.add(task);
+        }
+        return task;
+    }
+
+    /**
+     * Cancels all tasks and waits for running tasks to finish
+     * <p>
+     * Task metrics are logged
+     *
+     * @param timeout maximum milliseconds to wait
+     * @return true if all tasks finished in time
+     */
+    public boolean shutdown(long timeout) {
+        synchronized(this) {
+            for(Task task : tasks) {
+                task.cancel();
+            }
+            executor.shutdown();
+        }
+        boolean finished = false;
+        try {
+            finished = executor.awaitTermination(timeout, TimeUnit.MILLISECONDS);
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if(!finished) {
+            logger.warning(TaskScheduler.class, "Tasks still running after " + timeout + " ms");
+            executor.shutdownNow();
+        }
+        logger.info(TaskScheduler.class, getMetrics());
+        return finished;
+    }
+
+//**********************
+// Getters and setters
+//**********************
+
+    /**
+     * Getter for the metrics of every task
+     *
+     * @return String, one task per line
+     */
+    public synchronized String getMetrics() {
+        StringBuilder metrics = new StringBuilder("Task metrics");
+        for(Task task : tasks) {
+            metrics.append('\n').append(task);
+        }
+        return metrics.toString();
+    }
+
+    /**
+     * Class Task
+     * <p>
+     * A named periodic task and its run statistics
+     */
+    public static class Task implements Runnable {
+        // Task name
+        private final String name;
+
+        // Period in milliseconds
+        private final long period;
+
+        // Work done each period
+        private final Runnable action;
+
+        // Handle for cancellation, null until started
+        private ScheduledFuture<?> future;
+
+        // Time the first run was due, in System.nanoTime
+        private long firstRun;
+
+        // Run statistics, jitter in nanoseconds
+        private long runs;
+        private long failures;
+        private long totalJitter;
+        private long maximumJitter;
+
+        /**
+         * Constructor
+         *
+         * @param name   task name
+         * @param period period in milliseconds
+         * @param action Runnable
+         */
+        private Task(String name, long period, Runnable action) {
+            this.name = name;
+            this.period = period;
+            this.action = action;
+        }
+
+        /**
+         * Schedules the task
+         *
+         * @param executor ScheduledThreadPoolExecutor
+         */
+        private synchronized void start(ScheduledThreadPoolExecutor executor) {
+            firstRun = System.nanoTime();
+            future = executor.scheduleAtFixedRate(this, 0, period, TimeUnit.MILLISECONDS);
+        }
+
+        /**
+         * Runs the action once and records its jitter
+         */
+        @Override
+        public void run() {
+            long start = System.nanoTime();
+            synchronized(this) {
+                long jitter = Math.max(0, start - firstRun - runs * TimeUnit.MILLISECONDS.toNanos(period));
+                runs++;
+                totalJitter += jitter;
+                maximumJitter = Math.max(maximumJitter, jitter);
+            }
+            try {
+                action.run();
+            } catch(RuntimeException e) {
+                synchronized(this) {
+                    failures++;
+                }
+                logger.severe(TaskScheduler.class, "Task " + name + " failed: " + e);
+            }
+        }
+
+        /**
+         * Cancels the task, a run in progress is allowed to finish
+         */
+        public synchronized void cancel() {
+            if(future != null) {
+                future.cancel(false);
+            }
+        }
+
+        /**
+         * Getter for name
+         *
+         * @return task name
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Getter for period
+         *
+         * @return period in milliseconds
+         */
+        public long getPeriod() {
+            return period;
+        }
+
+        /**
+         * Getter for the number of runs
+         *
+         * @return runs started
+         */
+        public synchronized long getRuns() {
+            return runs;
+        }
+
+        /**
+         * Getter for mean jitter
+         *
+         * @return mean delay past the due time in nanoseconds
+         */
+        public synchronized double getMeanJitter() {
+            return runs == 0 ? 0 : (double) totalJitter / runs;
+        }
+
+        /**
+         * Getter for maximum jitter
+         *
+         * @return maximum delay past the due time in nanoseconds
+         */
+        public synchronized long getMaximumJitter() {
+            return maximumJitter;
+        }
+
+        /**
+         * Formats the task statistics
+         *
+         * @return String
+         */
+        @Override
+        public synchronized String toString() {
+            return String.format("%s: period=%d ms runs=%d failures=%d jitter mean=%.1f max=%.1f (us)",
+                    name, period, runs, failures, getMeanJitter() / 1e3, maximumJitter / 1e3);
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package driver;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Class Track
+ * <p>
+ * Immutable sequence of timestamped GPS fixes used for replay
+ * <p>
+ * Tracks are read from the text tracker file, from binary segments written by TrackWriter,
+ * or generated as a random walk
+ *
+ * @author Brian Hooper
+ * @since 0.9.8
+ */
+public class Track {
+    // Recorded positions and times in epoch millis
+    private final double[] latitudes;
+    private final double[] longitudes;
+    private final long[] times;
+
+    /**
+     * Constructor
+     *
+     * @param latitudes  latitudes
+     * @param longitudes longitudes
+     * @param times      times in epoch millis, not decreasing
+     */
+    private Track(double[] latitudes, double[] longitudes, long[] times) {
+        this.latitudes = latitudes;
+        this.longitudes = longitudes;
+        this.times = times;
+    }
+
+    /**
+     * Reads a track from a path
+     * <p>
+     * A directory is read as all binary segments it contains, a ".trk" file as a single segment,
+     * and anything else as a text tracker file
+     *
+     * @param path path to directory, segment or tracker file
+     * @return Track
+     * @throws IOException if a segment cannot be read
+     */
+    public static Track read(String path) throws IOException {
+        if(new File(path).isDirectory()) {
+            return readSegments(TrackReader.listSegments(path));
+        } else if(path.endsWith(TrackWriter.extension)) {
+            return readSegments(Collections.singletonList(path));
+        }
+        return readCsv(path);
+    }
+
+    /**
+     * Reads a text tracker file of "latitude,longitude,yyyy-MM-dd HH:mm" lines
+     * <p>
+     * "Program started" lines and malformed lines are skipped. Fixes sharing a minute are spread
+     * evenly across that minute.
+     *
+     * @param path path to tracker file
+     * @return Track
+     */
+    public static Track readCsv(String path) {
+        ArrayList<String> lines = FileManager.readLines(path);
+        int count = 0;
+        double[] latitudes = new double[lines.size()];
+        double[] longitudes = new double[lines.size()];
+        long[] times = new long[lines.size()];
+        for(String line : lines) {
+            String[] split = line.split(",");
+            if(split.length < 3 || split[0].startsWith("Program started")) {
+                continue;
+            }
+            try {
+                latitudes[count] = Double.parseDouble(split[0].trim());
+                longitudes[count] = Double.parseDouble(split[1].trim());
+                times[count] = LocalDateTime.parse(split[2].trim(), ClockDriver.dfFull)
+                        .atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+                count++;
+            } catch(NumberFormatException | DateTimeParseException e) {
+                LogDriver.getInstance().warning(Track.class, "Skipping tracker line: " + line);
+            }
+        }
+
+        for(int start = 0; start < count; ) {
+            int end = start + 1;
+            while(end < count && times[end] == times[start]) {
+                end++;
+            }
+            for(int i = start + 1; i < end; i++) {
+                times[i] += 60000L * (i - start) / (end - start);
+            }
+            start = end;
+        }
+        return new Track(Arrays.copyOf(latitudes, count), Arrays.copyOf(longitudes, count), Arrays.copyOf(times, count));
+    }
+
+    /**
+     * Reads binary track segments, in the given order
+     *
+     * @param paths paths to segments
+     * @return Track
+     * @throws IOException if a segment cannot be read
+     */
+    public static Track readSegments(List<String> paths) throws IOException {
+        ArrayList<TrackReader> segments = new ArrayList<>();
+        int count = 0;
+        for(String path : paths) {
+            TrackReader segment = new TrackReader(path);
+            segments.add(segment);
+            count += segment.size();
+        }
+
+        double[] latitudes = new double[count];
+        double[] longitudes = new double[count];
+        long[] times = new long[count];
+        int index = 0;
+        for(TrackReader segment : segments) {
+            for(int i = 0; i < segment.size(); i++, index++) {
+                latitudes[index] = segment.getLatitude(i);
+                longitudes[index] = segment.getLongitude(i);
+                times[index] = segment.getTime(i);
+            }
+        }
+        return new Track(latitudes, longitudes, times);
+    }
+
+    /**
+     * Generates a random walk around a starting point
+     * <p>
+     * Matches config/update_coordinate.py, each step moves up to 0.0002 degrees on each axis
+     *
+     * @param latitude  starting latitude
+     * @param longitude starting longitude
+     * @param count     number of fixes
+     * @param interval  milliseconds between fixes
+     * @param seed      random seed, so runs can be repeated
+     * @return Track
+     */
+    public static Track randomWalk(double latitude, double longitude, int count, long interval, long seed) {
+        Random random = new Random(seed);
+        double[] latitudes = new double[count];
+        double[] longitudes = new double[count];
+        long[] times = new long[count];
+        long start = System.currentTimeMillis();
+        for(int i = 0; i < count; i++) {
+            latitude += (random.nextDouble() * 2 - 1) * 0.0002;
+            longitude += (random.nextDouble() * 2 - 1) * 0.0002;
+            latitudes[i] = latitude;
+            longitudes[i] = longitude;
+            times[i] = start + i * interval;
+        }
+        return new Track(latitudes, longitudes, times);
+    }
+
+//**********************
+// Getters and setters
+//**********************
+
+    /**
+     * Getter for size
+     *
+     * @return number of fixes
+     */
+    public int size() {
+        return times.length;
+    }
+
+    /**
+     * Getter for the latitude of a fix
+     *
+     * @param index fix index
+     * @return latitude
+     */
+    public double getLatitude(int index) {
+        return latitudes[index];
+    }
+
+    /**
+     * Getter for the longitude of a fix
+     *
+     * @param index fix index
+     * @return longitude
+     */
+    public double getLongitude(int index) {
+        return longitudes[index];
+    }
+
+    /**
+     * Getter for the time of a fix
+     *
+     * @param index fix index
+     * @return epoch millis
+     */
+    public long getTime(int index) {
+        return times[index];
+    }
+}
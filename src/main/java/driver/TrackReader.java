@@ -0,0 +1,218 @@
+package driver;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Class TrackReader
+ * <p>
+ * Reads binary track segments written by TrackWriter, and exports them as CSV or GPX
+ * <p>
+ * Segment format, little-endian: a 16 byte header of int magic "BMTK", short version, short record size
+ * and long creation time in epoch millis, followed by fixed-width records of double latitude,
+ * double longitude and long epoch millis. A segment that was not closed cleanly ends with zeroed
+ * records, which are ignored.
+ * <p>
+ * Usage: TrackReader [--gpx] segment...
+ *
+ * @author Brian Hooper
+ * @since 0.9.8
+ */
+public class TrackReader {
+    // Formatter for CSV export times
+    private static final DateTimeFormatter dfCsv = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    // Mapped segment
+    private final MappedByteBuffer data;
+
+    // Number of valid records
+    private final int size;
+
+    // Segment creation time in epoch millis
+    private final long created;
+
+    /**
+     * Constructor
+     * <p>
+     * Maps a segment file for reading
+     *
+     * @param path path to segment
+     * @throws IOException if the file cannot be read or is not a track segment
+     */
+    public TrackReader(String path) throws IOException {
+        try(RandomAccessFile file = new RandomAccessFile(path, "r")) {
+            if(file.length() < TrackWriter.headerSize) {
+                throw new IOException("Track segment " + path + " is too short");
+            }
+            data = file.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, file.length());
+        }
+        data.order(ByteOrder.LITTLE_ENDIAN);
+        if(data.getInt(0) != TrackWriter.magic || data.getShort(4) != TrackWriter.version ||
+                data.getShort(6) != TrackWriter.recordSize) {
+            throw new IOException("Unsupported track segment " + path);
+        }
+        created = data.getLong(8);
+
+        int records = (data.capacity() - TrackWriter.headerSize) / TrackWriter.recordSize;
+        int count = 0;
+        while(count < records && getTime(count) != 0) {
+            count++;
+        }
+        size = count;
+    }
+
+    /**
+     * Lists the segments in a directory, oldest first
+     *
+     * @param directory directory containing segments
+     * @return ArrayList of paths
+     */
+    public static ArrayList<String> listSegments(String directory) {
+        ArrayList<String> segments = new ArrayList<>();
+        File[] files = new File(directory).listFiles((dir, name) -> name.endsWith(TrackWriter.extension));
+        if(files != null) {
+            Arrays.sort(files);
+            for(File file : files) {
+                segments.add(file.getPath());
+            }
+        }
+        return segments;
+    }
+
+//**********************
+// Getters and setters
+//**********************
+
+    /**
+     * Getter for size
+     *
+     * @return number of records
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Getter for segment creation time
+     *
+     * @return epoch millis
+     */
+    public long getCreated() {
+        return created;
+    }
+
+    /**
+     * Getter for the latitude of a record
+     *
+     * @param index record index
+     * @return latitude
+     */
+    public double getLatitude(int index) {
+        return data.getDouble(offset(index));
+    }
+
+    /**
+     * Getter for the longitude of a record
+     *
+     * @param index record index
+     * @return longitude
+     */
+    public double getLongitude(int index) {
+        return data.getDouble(offset(index) + 8);
+    }
+
+    /**
+     * Getter for the time of a record
+     *
+     * @param index record index
+     * @return epoch millis
+     */
+    public long getTime(int index) {
+        return data.getLong(offset(index) + 16);
+    }
+
+    /**
+     * Byte offset of a record
+     *
+     * @param index record index
+     * @return offset
+     */
+    private static int offset(int index) {
+        return TrackWriter.headerSize + index * TrackWriter.recordSize;
+    }
+
+//**********************
+// Class methods
+//**********************
+
+    /**
+     * Writes the records as "latitude,longitude,yyyy-MM-dd HH:mm:ss" lines in local time
+     *
+     * @param writer output Writer
+     * @throws IOException if writing fails
+     */
+    public void writeCsv(Writer writer) throws IOException {
+        for(int i = 0; i < size; i++) {
+            LocalDateTime time = LocalDateTime.ofInstant(Instant.ofEpochMilli(getTime(i)), ZoneId.systemDefault());
+            writer.write(getLatitude(i) + "," + getLongitude(i) + "," + dfCsv.format(time) + "\n");
+        }
+    }
+
+    /**
+     * Writes segments as a GPX track, with one track segment per file
+     *
+     * @param segments TrackReaders in time order
+     * @param writer   output Writer
+     * @throws IOException if writing fails
+     */
+    public static void writeGpx(List<TrackReader> segments, Writer writer) throws IOException {
+        writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        writer.write("<gpx version=\"1.1\" creator=\"BurningMan-Navigation\" " +
+                "xmlns=\"http://www.topografix.com/GPX/1/1\">\n");
+        writer.write("  <trk>\n");
+        for(TrackReader segment : segments) {
+            writer.write("    <trkseg>\n");
+            for(int i = 0; i < segment.size; i++) {
+                writer.write("      <trkpt lat=\"" + segment.getLatitude(i) + "\" lon=\"" +
+                        segment.getLongitude(i) + "\"><time>" + Instant.ofEpochMilli(segment.getTime(i)) +
+                        "</time></trkpt>\n");
+            }
+            writer.write("    </trkseg>\n");
+        }
+        writer.write("  </trk>\n");
+        writer.write("</gpx>\n");
+    }
+
+    public static void main(String[] args) throws IOException {
+        boolean gpx = args.length > 0 && args[0].equals("--gpx");
+        ArrayList<TrackReader> segments = new ArrayList<>();
+        for(int i = gpx ? 1 : 0; i < args.length; i++) {
+            segments.add(new TrackReader(args[i]));
+        }
+
+        Writer writer = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+        if(gpx) {
+            writeGpx(segments, writer);
+        } else {
+            for(TrackReader segment : segments) {
+                segment.writeCsv(writer);
+            }
+        }
+        writer.flush();
+    }
+}
@@ -0,0 +1,168 @@
+package driver;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Class TrackReplay
+ * <p>
+ * Feeds a recorded or synthetic Track to a PositionListener, replacing config/update_coordinate.py
+ * <p>
+ * Fixes are paced by their recorded times divided by a speed factor, with long pauses between
+ * sessions shortened to a maximum gap, or at a fixed rate regardless of recorded times.
+ * A speed of zero replays as fast as the listener allows. Each fix is delivered with a time that
+ * follows the recorded times from the start of the first replay, with the same shortened pauses, so
+ * the intervals between fixes are real whatever the playback speed. As a PositionSource the track
+ * loops until closed, so it can drive the full application, and the times keep increasing across loops.
+ *
+ * @author Brian Hooper
+ * @since 0.9.8
+ */
+public class TrackReplay implements PositionSource {
+    // Milliseconds between the last fix of a loop and the first fix of the next
+    private static final long loopGap = 1000;
+
+    // Track to replay
+    private final Track track;
+
+    // Playback speed relative to recorded times, or zero for no pacing
+    private final double speed;
+
+    // Longest pause between fixes in recorded milliseconds
+    private final long maximumGap;
+
+    // Fixed interval between fixes in nanoseconds, or zero to use recorded times
+    private final long fixedInterval;
+
+    // Time in epoch milliseconds given to the last delivered fix, or -1 before the first replay
+    private long fixTime = -1;
+
+    // Replaying thread
+    private Thread thread;
+
+    // Keeps replaying thread running until closed
+    private volatile boolean keepRunning = true;
+
+    /**
+     * Constructor
+     * <p>
+     * Paces fixes by their recorded times
+     *
+     * @param track      Track to replay
+     * @param speed      playback speed, 1 for real time, 0 for no pacing
+     * @param maximumGap longest pause between fixes in recorded milliseconds
+     */
+    public TrackReplay(Track track, double speed, long maximumGap) {
+        this.track = track;
+        this.speed = speed;
+        this.maximumGap = maximumGap;
+        this.fixedInterval = 0;
+    }
+
+    /**
+     * Constructor
+     * <p>
+     * Paces fixes at a fixed rate
+     *
+     * @param track Track to replay
+     * @param rate  fixes per second
+     */
+    public TrackReplay(Track track, double rate) {
+        this.track = track;
+        this.speed = 1;
+        this.maximumGap = Long.MAX_VALUE;
+        this.fixedInterval = (long) (1000000000 / rate);
+    }
+
+    /**
+     * Starts replaying the track in a loop
+     *
+     * @param listener PositionListener
+     */
+    @Override
+    public void start(PositionListener listener) {
+        keepRunning = true;
+        thread = new Thread(() -> {
+            while(keepRunning && track.size() > 0) {
+                replay(listener, null);
+            }
+        }, "position-replay");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Replays the track once on the calling thread
+     * <p>
+     * Each fix is delivered at its scheduled time, with its recorded time. If a lag recorder is given, the delay between the
+     * scheduled and actual delivery of each fix is recorded, so a listener that cannot keep up shows
+     * as growing lag.
+     *
+     * @param listener PositionListener
+     * @param lag      LatencyRecorder for delivery lag, may be null
+     * @return number of fixes delivered
+     */
+    public int replay(PositionListener listener, LatencyRecorder lag) {
+        long scheduled = System.nanoTime();
+        fixTime = fixTime < 0 ? System.currentTimeMillis() : fixTime + loopGap;
+        for(int i = 0; i < track.size(); i++) {
+            if(!keepRunning) {
+                return i;
+            }
+            if(i > 0) {
+                scheduled += delay(i);
+                fixTime += gap(i);
+            }
+
+            long now = System.nanoTime();
+            while(now < scheduled) {
+                LockSupport.parkNanos(scheduled - now);
+                if(Thread.interrupted()) {
+                    keepRunning = false;
+                    return i;
+                }
+                now = System.nanoTime();
+            }
+            if(lag != null) {
+                lag.record(now - scheduled);
+            }
+            listener.positionUpdated(track.getLatitude(i), track.getLongitude(i), fixTime);
+        }
+        return track.size();
+    }
+
+    /**
+     * Returns the delay before a fix, relative to the previous fix
+     *
+     * @param index fix index
+     * @return nanoseconds
+     */
+    private long delay(int index) {
+        if(fixedInterval > 0) {
+            return fixedInterval;
+        } else if(speed <= 0) {
+            return 0;
+        }
+        return (long) (gap(index) * 1000000 / speed);
+    }
+
+    /**
+     * Returns the recorded time between a fix and the previous fix, with long pauses shortened
+     *
+     * @param index fix index
+     * @return milliseconds
+     */
+    private long gap(int index) {
+        return Math.min(Math.max(track.getTime(index) - track.getTime(index - 1), 0), maximumGap);
+    }
+
+    /**
+     * Stops replaying
+     */
+    @Override
+    public void close() {
+        keepRunning = false;
+        if(thread != null) {
+            thread.interrupt();
+        }
+    }
+}
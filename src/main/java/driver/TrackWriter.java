@@ -0,0 +1,180 @@
+package driver;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Class TrackWriter
+ * <p>
+ * Records GPS fixes into append-only binary segment files
+ * <p>
+ * Each segment is preallocated and memory-mapped, so appending a fix is a 24 byte copy. Data is
+ * forced to the card in groups, after a number of records or an interval, rather than once per fix.
+ * A new segment is started when the current one is full or older than the rotation interval.
+ * See TrackReader for the file format.
+ *
+ * @author Brian Hooper
+ * @since 0.9.8
+ */
+public class TrackWriter {
+    // Segment header: int magic, short version, short record size, long creation time in epoch millis
+    static final int magic = 0x424D544B;
+    static final short version = 1;
+    static final int headerSize = 16;
+
+    // Record: double latitude, double longitude, long epoch millis
+    static final int recordSize = 24;
+
+    // File name extension of segments
+    static final String extension = ".trk";
+
+    // Formatter for segment file names
+    private static final DateTimeFormatter dfSegment = DateTimeFormatter.ofPattern("yyyy-MM-dd_HH-mm-ss");
+
+    // Directory containing segments
+    private final File directory;
+
+    // Segment size in bytes, including header
+    private final int segmentSize;
+
+    // Maximum age of a segment in milliseconds
+    private final long rotateInterval;
+
+    // Group commit thresholds
+    private final int commitRecords;
+    private final long commitInterval;
+
+    // Logger
+    private final LogDriver logger = LogDriver.getInstance();
+
+    // Current segment, null if none is open
+    private RandomAccessFile file;
+    private MappedByteBuffer segment;
+    private long segmentCreated;
+
+    // Records written but not yet forced to disk, and time of the last force
+    private int uncommitted;
+    private long lastCommit;
+
+    /**
+     * Constructor
+     *
+     * @param directory      directory to write segments into, created if necessary
+     * @param segmentSize    segment size in bytes
+     * @param rotateInterval maximum age of a segment in milliseconds
+     * @param commitRecords  records per forced write
+     * @param commitInterval maximum milliseconds between forced writes
+     */
+    public TrackWriter(String directory, int segmentSize, long rotateInterval, int commitRecords,
+                       long commitInterval) {
+        this.directory = new File(directory);
+        this.segmentSize = Math.max(segmentSize, headerSize + recordSize);
+        this.rotateInterval = rotateInterval;
+        this.commitRecords = Math.max(commitRecords, 1);
+        this.commitInterval = commitInterval;
+    }
+
+    /**
+     * Appends a fix to the current segment
+     *
+     * @param latitude  latitude
+     * @param longitude longitude
+     * @param time      time of fix in epoch millis
+     */
+    public synchronized void append(double latitude, double longitude, long time) {
+        try {
+            if(segment == null || segment.remaining() < recordSize || time - segmentCreated >= rotateInterval) {
+                rotate(time);
+            }
+            segment.putDouble(latitude);
+            segment.putDouble(longitude);
+            segment.putLong(time);
+            uncommitted++;
+            if(uncommitted >= commitRecords || time - lastCommit >= commitInterval) {
+                commit();
+            }
+        } catch(IOException e) {
+            logger.severe(this.getClass(), "Error writing track segment: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Forces any uncommitted records to disk
+     */
+    public synchronized void commit() {
+        if(segment != null && uncommitted > 0) {
+            segment.force();
+        }
+        uncommitted = 0;
+        lastCommit = System.currentTimeMillis();
+    }
+
+    /**
+     * Closes the current segment and opens a new one
+     *
+     * @param time creation time in epoch millis
+     * @throws IOException if the segment cannot be created
+     */
+    private void rotate(long time) throws IOException {
+        closeSegment();
+        if(!directory.exists() && !directory.mkdirs()) {
+            throw new IOException("Could not create non-existant directory " + directory.getAbsolutePath());
+        }
+
+        String name = dfSegment.format(LocalDateTime.now());
+        File path = new File(directory, name + extension);
+        for(int i = 1; path.exists(); i++) {
+            path = new File(directory, name + "_" + i + extension);
+        }
+
+        file = new RandomAccessFile(path, "rw");
+        file.setLength(segmentSize);
+        segment = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        segment.order(ByteOrder.LITTLE_ENDIAN);
+        segment.putInt(magic);
+        segment.putShort(version);
+        segment.putShort((short) recordSize);
+        segment.putLong(time);
+        segmentCreated = time;
+        lastCommit = time;
+    }
+
+    /**
+     * Forces and closes the current segment, trimming the unused preallocated space
+     *
+     * @throws IOException if the file cannot be closed
+     */
+    private void closeSegment() throws IOException {
+        if(segment == null) {
+            return;
+        }
+        segment.force();
+        int used = segment.position();
+        segment = null;
+        uncommitted = 0;
+        try {
+            file.setLength(used);
+        } catch(IOException e) {
+            // Some platforms cannot truncate a mapped file, readers stop at the zeroed tail instead
+        }
+        file.close();
+        file = null;
+    }
+
+    /**
+     * Commits and closes the current segment
+     */
+    public synchronized void close() {
+        try {
+            closeSegment();
+        } catch(IOException e) {
+            logger.severe(this.getClass(), "Cannot close track segment: " + e.getMessage());
+        }
+    }
+}
@@ -218,6 +218,15 @@ public class Event {
         return startTime;
     }
 
+    /**
+     * Getter for end time
+     *
+     * @return LocalDateTime end time, null if the event has no end time
+     */
+    LocalDateTime getEndTime() {
+        return endTime;
+    }
+
     /**
      * Getter for category
      *
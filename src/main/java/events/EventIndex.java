@@ -0,0 +1,239 @@
+package events;
+
+import driver.Dataset;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Class EventIndex
+ * <p>
+ * Immutable search index over a list of events
+ * <p>
+ * Events are stored sorted by name, so a query that walks matching ids in order needs no sorting.
+ * Names and locations are lowercased once and indexed by trigram: a search term of three or more
+ * characters intersects the posting lists of its trigrams, and only the remaining candidates are
+ * checked with contains. Categories and start dates each have a BitSet of matching ids.
+ * <p>
+ * The whole index can be written to a compiled dataset and read back without rebuilding it.
+ *
+ * @author Brian Hooper
+ * @since 0.9.8
+ */
+class EventIndex {
+    // Events sorted by name, ignoring case
+    private final Event[] events;
+
+    // Index in the source list of each event, by id
+    private final int[] order;
+
+    // Lowercase names and locations, by id
+    private final String[] names;
+    private final String[] locations;
+
+    // Trigram posting lists of ascending ids for names and locations
+    private final Trigrams nameTrigrams;
+    private final Trigrams locationTrigrams;
+
+    // Ids of events in each category, by EventCategory ordinal
+    private final BitSet[] categories;
+
+    // Ids of events starting on each calendar date
+    private final HashMap<LocalDate, BitSet> days = new HashMap<>();
+
+    /**
+     * Constructor
+     * <p>
+     * Builds the index, events with equal names keep their order in the list
+     *
+     * @param eventList events to index
+     */
+    EventIndex(List<Event> eventList) {
+        Integer[] sorted = new Integer[eventList.size()];
+        for(int i = 0; i < sorted.length; i++) {
+            sorted[i] = i;
+        }
+        Arrays.sort(sorted, (o1, o2) -> eventList.get(o1).getName().compareToIgnoreCase(eventList.get(o2).getName()));
+        order = new int[sorted.length];
+        events = new Event[sorted.length];
+        for(int i = 0; i < sorted.length; i++) {
+            order[i] = sorted[i];
+            events[i] = eventList.get(order[i]);
+        }
+
+        names = new String[events.length];
+        locations = new String[events.length];
+        categories = new BitSet[EventCategory.values().length];
+        for(int i = 0; i < categories.length; i++) {
+            categories[i] = new BitSet(events.length);
+        }
+        for(int id = 0; id < events.length; id++) {
+            Event event = events[id];
+            names[id] = event.getName().toLowerCase();
+            locations[id] = event.getLocation().toLowerCase();
+            if(event.getCategory() != null) {
+                categories[event.getCategory().ordinal()].set(id);
+            }
+            days.computeIfAbsent(event.getStartTime().toLocalDate(), k -> new BitSet(events.length)).set(id);
+        }
+        nameTrigrams = Trigrams.build(names);
+        locationTrigrams = Trigrams.build(locations);
+    }
+
+    /**
+     * Constructor
+     * <p>
+     * Restores an index written by write
+     *
+     * @param in        Dataset.Input positioned at the index
+     * @param eventList events the index was built from, in the same order
+     * @throws IllegalArgumentException if the index does not match the events
+     */
+    private EventIndex(Dataset.Input in, List<Event> eventList) {
+        order = in.readInts();
+        names = in.readStrings();
+        locations = in.readStrings();
+        if(order.length != eventList.size() || names.length != order.length || locations.length != order.length) {
+            throw new IllegalArgumentException("Event index has " + order.length + " events, expected " +
+                    eventList.size());
+        }
+        events = new Event[order.length];
+        for(int id = 0; id < order.length; id++) {
+            events[id] = eventList.get(order[id]);
+        }
+
+        categories = new BitSet[in.readInt()];
+        if(categories.length != EventCategory.values().length) {
+            throw new IllegalArgumentException("Event index has " + categories.length + " categories");
+        }
+        for(int i = 0; i < categories.length; i++) {
+            categories[i] = BitSet.valueOf(in.readLongs());
+        }
+        int dayCount = in.readInt();
+        for(int i = 0; i < dayCount; i++) {
+            days.put(LocalDate.ofEpochDay(in.readLong()), BitSet.valueOf(in.readLongs()));
+        }
+        nameTrigrams = Trigrams.read(in, order.length);
+        locationTrigrams = Trigrams.read(in, order.length);
+    }
+
+    /**
+     * Reads an index written by write
+     *
+     * @param in        Dataset.Input positioned at the index
+     * @param eventList events the index was built from, in the same order
+     * @return EventIndex
+     * @throws IllegalArgumentException if the index does not match the events
+     */
+    static EventIndex read(Dataset.Input in, List<Event> eventList) {
+        return new EventIndex(in, eventList);
+    }
+
+    /**
+     * Writes the order, lowercase text, category and date sets and trigram postings
+     *
+     * @param out Dataset.Output
+     */
+    void write(Dataset.Output out) {
+        out.writeInts(order);
+        out.writeStrings(names);
+        out.writeStrings(locations);
+        out.writeInt(categories.length);
+        for(BitSet category : categories) {
+            out.writeLongs(category.toLongArray());
+        }
+        out.writeInt(days.size());
+        for(Map.Entry<LocalDate, BitSet> day : days.entrySet()) {
+            out.writeLong(day.getKey().toEpochDay());
+            out.writeLongs(day.getValue().toLongArray());
+        }
+        nameTrigrams.write(out);
+        locationTrigrams.write(out);
+    }
+
+//**********************
+// Class methods
+//**********************
+
+    /**
+     * Returns events matching all given terms, sorted by name
+     *
+     * @param name     lowercase substring of name, empty to ignore
+     * @param camp     lowercase substring of location, empty to ignore
+     * @param start    start of day range, null to ignore
+     * @param end      end of day range, inclusive
+     * @param category EventCategory, null to ignore
+     * @return ArrayList of Event objects
+     */
+    ArrayList<Event> search(String name, String camp, LocalDateTime start, LocalDateTime end, EventCategory category) {
+        BitSet candidates = null;
+        if(category != null) {
+            candidates = (BitSet) categories[category.ordinal()].clone();
+        }
+        if(start != null) {
+            BitSet inRange = new BitSet(events.length);
+            for(LocalDate day = start.toLocalDate(); !day.isAfter(end.toLocalDate()); day = day.plusDays(1)) {
+                BitSet bucket = days.get(day);
+                if(bucket != null) {
+                    inRange.or(bucket);
+                }
+            }
+            candidates = intersect(candidates, inRange);
+        }
+        if(name.length() >= 3) {
+            candidates = intersect(candidates, lookup(nameTrigrams, name));
+        }
+        if(camp.length() >= 3) {
+            candidates = intersect(candidates, lookup(locationTrigrams, camp));
+        }
+
+        ArrayList<Event> matchingEvents = new ArrayList<>();
+        int id = candidates == null ? 0 : candidates.nextSetBit(0);
+        while(id >= 0 && id < events.length) {
+            Event event = events[id];
+            if((start == null || !(event.getStartTime().isBefore(start) || event.getStartTime().isAfter(end))) &&
+                    (name.isEmpty() || names[id].contains(name)) &&
+                    (camp.isEmpty() || locations[id].contains(camp))) {
+                matchingEvents.add(event);
+            }
+            id = candidates == null ? id + 1 : candidates.nextSetBit(id + 1);
+        }
+        return matchingEvents;
+    }
+
+    /**
+     * Intersects two candidate sets
+     *
+     * @param candidates current candidates, null for all events
+     * @param other      BitSet
+     * @return intersection
+     */
+    private static BitSet intersect(BitSet candidates, BitSet other) {
+        if(candidates == null) {
+            return other;
+        }
+        candidates.and(other);
+        return candidates;
+    }
+
+    /**
+     * Returns ids containing every trigram of a search term
+     *
+     * @param postings trigram posting lists
+     * @param term     lowercase term of at least three characters
+     * @return BitSet of candidate ids
+     */
+    private BitSet lookup(Trigrams postings, String term) {
+        BitSet bits = new BitSet(events.length);
+        for(int id : postings.candidates(term)) {
+            bits.set(id);
+        }
+        return bits;
+    }
+}
@@ -1,11 +1,11 @@
 package events;
 
+import driver.Dataset;
 import driver.FileManager;
 import driver.LogDriver;
 
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
+import java.time.ZoneOffset;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
@@ -24,12 +24,15 @@ public class EventManager {
     private static final String eventsPath = "config/eventList.csv";
     private static final String eventsTSVPath = "config/events.tsv";
 
-    private static DateTimeFormatter dfWithoutMin = DateTimeFormatter.ofPattern("yyyy MMMM d ha");
-    private static DateTimeFormatter dfWithMin = DateTimeFormatter.ofPattern("yyyy MMMM d h:mma");
-
     // main list of events
     private final ArrayList<Event> events;
 
+    // Search index over events
+    private EventIndex index;
+
+    // Events by start and end time
+    private EventTimeline timeline;
+
     // Logger
     private static final LogDriver logger = LogDriver.getInstance();
 
@@ -41,6 +44,121 @@ public class EventManager {
     public EventManager() {
         events = new ArrayList<>();
         readEventsTSV();
+        index = new EventIndex(events);
+        timeline = new EventTimeline(events);
+    }
+
+    /**
+     * Constructor
+     * <p>
+     * Initializes from events and indexes read from a dataset
+     *
+     * @param events   list of events
+     * @param index    EventIndex over the events
+     * @param timeline EventTimeline over the events
+     */
+    private EventManager(ArrayList<Event> events, EventIndex index, EventTimeline timeline) {
+        this.events = events;
+        this.index = index;
+        this.timeline = timeline;
+    }
+
+    /**
+     * Creates a manager without events
+     *
+     * @return EventManager
+     */
+    public static EventManager empty() {
+        ArrayList<Event> noEvents = new ArrayList<>();
+        return new EventManager(noEvents, new EventIndex(noEvents), new EventTimeline(noEvents));
+    }
+
+    /**
+     * Getter for the paths of the event files
+     *
+     * @return String array of relative paths
+     */
+    public static String[] getSourcePaths() {
+        return new String[]{eventsTSVPath};
+    }
+
+    /**
+     * Reads events and their indexes from a compiled dataset
+     * <p>
+     * Text columns are stored as tables of distinct Strings, times in epoch seconds
+     *
+     * @param dataset Dataset
+     * @return EventManager, or null if the dataset has no valid events
+     */
+    public static EventManager read(Dataset dataset) {
+        Dataset.Input eventSection = dataset.getSection("events");
+        Dataset.Input indexSection = dataset.getSection("eventIndex");
+        Dataset.Input timelineSection = dataset.getSection("eventTimeline");
+        if(eventSection == null || indexSection == null || timelineSection == null) {
+            return null;
+        }
+        try {
+            String[] names = eventSection.readStrings();
+            String[] locations = eventSection.readStrings();
+            String[] descriptions = eventSection.readStrings();
+            byte[] categories = eventSection.readBytes();
+            long[] starts = eventSection.readLongs();
+            long[] ends = eventSection.readLongs();
+            int size = names.length;
+            if(locations.length != size || descriptions.length != size || categories.length != size ||
+                    starts.length != size || ends.length != size) {
+                throw new IllegalArgumentException("Inconsistent event columns");
+            }
+
+            EventCategory[] categoryValues = EventCategory.values();
+            ArrayList<Event> datasetEvents = new ArrayList<>(size);
+            for(int i = 0; i < size; i++) {
+                EventCategory category = categories[i] == 0 ? null : categoryValues[categories[i] - 1];
+                LocalDateTime startTime = LocalDateTime.ofEpochSecond(starts[i], 0, ZoneOffset.UTC);
+                LocalDateTime endTime = ends[i] == Long.MIN_VALUE ? null :
+                        LocalDateTime.ofEpochSecond(ends[i], 0, ZoneOffset.UTC);
+                datasetEvents.add(new Event(names[i], locations[i], descriptions[i], category, startTime, endTime));
+            }
+            return new EventManager(datasetEvents, EventIndex.read(indexSection, datasetEvents),
+                    EventTimeline.read(timelineSection, datasetEvents));
+        } catch(RuntimeException e) {
+            logger.warning(EventManager.class, "Invalid events in dataset: " + e.getMessage());
+        }
+        return null;
+    }
+
+    /**
+     * Adds the events and their indexes to a dataset
+     *
+     * @param writer Dataset.Writer
+     */
+    public void writeDataset(Dataset.Writer writer) {
+        int size = events.size();
+        String[] names = new String[size];
+        String[] locations = new String[size];
+        String[] descriptions = new String[size];
+        byte[] categories = new byte[size];
+        long[] starts = new long[size];
+        long[] ends = new long[size];
+        for(int i = 0; i < size; i++) {
+            Event event = events.get(i);
+            names[i] = event.getName();
+            locations[i] = event.getLocation();
+            descriptions[i] = event.getDescription();
+            categories[i] = (byte) (event.getCategory() == null ? 0 : event.getCategory().ordinal() + 1);
+            starts[i] = event.getStartTime().toEpochSecond(ZoneOffset.UTC);
+            ends[i] = event.getEndTime() == null ? Long.MIN_VALUE : event.getEndTime().toEpochSecond(ZoneOffset.UTC);
+        }
+
+        Dataset.Output out = writer.addSection("events");
+        out.writeStrings(names);
+        out.writeStrings(locations);
+        out.writeStrings(descriptions);
+        out.writeBytes(categories);
+        out.writeLongs(starts);
+        out.writeLongs(ends);
+        index.write(writer.addSection("eventIndex"));
+        timeline.write(writer.addSection("eventTimeline"));
     }
 
     /**
@@ -94,122 +212,42 @@ public class EventManager {
         }
     }
 
-    private void parseSingleDate(String name, String location, String eventType, String description, String dateString) {
-        dateString = dateString.replaceAll("\\[", "");
-        dateString = dateString.replaceAll("\\]", "");
-
-        String[] splitDate = dateString.split(",");
-        String[] daySplit;
-        if(splitDate[1].charAt(0) == ' ') {
-            daySplit = splitDate[1].substring(1).split(" ");
-        } else {
-            daySplit = splitDate[1].split(" ");
-        }
-
-        String[] timeSplit = splitDate[3].split(" – ");
-
-        String month = daySplit[0].replaceAll(" ", "");
-        String day = daySplit[1].substring(0, daySplit[1].length() - 2).replaceAll(" ", "");
-        String year = splitDate[2].replaceAll(" ", "");
-        String startTime = timeSplit[0].replaceAll(" ", "").replaceAll("\'", "");
-        String endTime = timeSplit[1].replaceAll(" ", "").replaceAll("\'", "");
-
-        String formattedStartDate = year + " " + month + " " + day + " " + startTime;
-        String formattedEndDate = year + " " + month + " " + day + " " + endTime;
-
-        LocalDateTime startDate = null, endDate = null;
-        try {
-            if(startTime.contains(":")) {
-                startDate = LocalDateTime.parse(formattedStartDate, dfWithMin);
-            } else {
-                startDate = LocalDateTime.parse(formattedStartDate, dfWithoutMin);
-            }
-
-            if(endTime.contains(":")) {
-                endDate = LocalDateTime.parse(formattedEndDate, dfWithMin);
-            } else {
-                endDate = LocalDateTime.parse(formattedEndDate, dfWithoutMin);
-            }
-        } catch(DateTimeParseException e) {
-            System.err.println("Error on " + dateString);
-            return;
-        }
-
-        if(EventCategory.of(eventType) == null) {
-            System.out.println(eventType);
-        }
-        events.add(new Event(name, location, description, EventCategory.of(eventType), startDate, endDate));
-    }
-
-    private void parseEventDate(String name, String location, String eventType, String description, String dateString) {
-
-
-        String[] allDates = dateString.split("<-->");
-        for(String singleDate : allDates) {
-            parseSingleDate(name, location, eventType, description, singleDate);
-        }
-//        if(dateString.charAt(0) == '[') {
-//            dateString = dateString.substring(1, dateString.length() - 1);
-//        }
-//        String[] indivudialDates = dateString.split("', '");
-//        for(String SingleDateString : indivudialDates) {
-//            String[] dateParts = SingleDateString.split(",");
-//            if(dateParts.length == 4) {
-//                String[] day = dateParts[1].split(" ");
-//                String[] times = dateParts[3].split(" – ");
-//                System.out.println();
-//            }
-//            System.out.println();
-//        }
-    }
-
+    /**
+     * Read events from the tsv guide export
+     */
     private void readEventsTSV() {
-        ArrayList<String> lines = FileManager.readLines(eventsTSVPath);
-        if(lines == null) {
-            return;
-        }
-
-        for(String line : lines) {
-            String[] split = line.split("\t");
-            if(split.length == 4 || split.length == 5) {
-                String name = split[0];
-                String location = split[1];
-                String category = split[2];
-                String dateListString = split[3];
-                String description = split[4];
-                parseEventDate(name, location, category, description, dateListString);
-            }
-        }
+        new EventTsvReader().read(eventsTSVPath, events);
     }
 
     /**
-     * Returns all events happening between a start time and an end time
+     * Returns all events starting between a start time and an end time
      *
      * @param start beginning LocalDateTime object
      * @param end   end LocalDateTime object
-     * @return ArrayList of Event objects
+     * @return ArrayList of Event objects sorted by start time
      */
     private ArrayList<Event> listBetween(LocalDateTime start, LocalDateTime end) {
-        ArrayList<Event> matchingEvents = new ArrayList<>();
-
-        for(Event event : events) {
-            if(event.getStartTime().isAfter(start) && event.getStartTime().isBefore(end)) {
-                matchingEvents.add(event);
-            }
-        }
-        return matchingEvents;
+        return timeline.startingBetween(start, end);
     }
 
     /**
-     * Returns an ArrayList of events happening in the next 24 hours
+     * Returns an ArrayList of events starting in the next hours
      *
      * @param hours number of hours ahead to search
-     * @return ArrayList of Event objects
+     * @return ArrayList of Event objects sorted by start time
      */
     public ArrayList<Event> listHappeningSoon(int hours) {
         LocalDateTime now = LocalDateTime.now();
-        LocalDateTime tomorrow = LocalDateTime.now().plusHours(hours);
-        return listBetween(now, tomorrow);
+        return listBetween(now, now.plusHours(hours));
+    }
+
+    /**
+     * Returns an ArrayList of events running now
+     *
+     * @return ArrayList of Event objects sorted by start time
+     */
+    public ArrayList<Event> listHappeningNow() {
+        return timeline.runningAt(LocalDateTime.now());
     }
 
     /**
@@ -230,46 +268,11 @@ public class EventManager {
         }
         day--;
 
-        ArrayList<Event> matchingEvents = new ArrayList<>();
-        for(Event event : events) {
-            if(matches(event, name, camp, day, eventCategory)) {
-                matchingEvents.add(event);
-            }
-        }
-        matchingEvents.sort((o1, o2) -> o1.getName().compareToIgnoreCase(o2.getName()));
-        return matchingEvents;
-    }
-
-    /**
-     * Checks that an individual event matches a search term
-     *
-     * @param event         Event object
-     * @param name          String name
-     * @param camp          String camp
-     * @param day           int day
-     * @param eventCategory EventCategory enum
-     * @return true if event matches all search terms
-     */
-    private boolean matches(Event event, String name, String camp, int day, EventCategory eventCategory) {
-        name = name.toLowerCase();
-        camp = camp.toLowerCase();
-
-        if(eventCategory != null && eventCategory != event.getCategory()) {
-            return false;
-        }
-
+        LocalDateTime start = null, end = null;
         if(day >= 0) {
-            LocalDateTime start = Event.globalEventStartTime.plusDays(day);
-            LocalDateTime end = start.plusDays(1);
-            if(event.getStartTime().isBefore(start) || event.getStartTime().isAfter(end)) {
-                return false;
-            }
+            start = Event.globalEventStartTime.plusDays(day);
+            end = start.plusDays(1);
         }
-
-        if(name.length() > 0 && !event.getName().toLowerCase().contains(name)) {
-            return false;
-        }
-
-        return camp.length() <= 0 || event.getLocation().toLowerCase().contains(camp);
+        return index.search(name.toLowerCase(), camp.toLowerCase(), start, end, eventCategory);
     }
 }
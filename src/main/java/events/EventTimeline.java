@@ -0,0 +1,268 @@
+package events;
+
+import driver.Dataset;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Class EventTimeline
+ * <p>
+ * Immutable index of events by time
+ * <p>
+ * Events are sorted by start time in epoch seconds, so events starting in a range are found by binary
+ * search. A tree of maximum end times over the sorted array answers which events are running at a
+ * time, visiting only the subtrees that contain a match. An event without an end time ends when it
+ * starts, and an end time before the start time is taken to be on the following day.
+ *
+ * @author Brian Hooper
+ * @since 0.9.8
+ */
+class EventTimeline {
+    // Events sorted by start time, events with equal start times keep their order in the list
+    private final Event[] events;
+
+    // Index in the source list of each event, by index
+    private final int[] order;
+
+    // Start and end times in epoch seconds, by index
+    private final long[] starts;
+    private final long[] ends;
+
+    // Maximum end time of each subtree, leaves start at index leaves
+    private final long[] maximumEnds;
+    private final int leaves;
+
+    /**
+     * Constructor
+     *
+     * @param eventList events to index
+     */
+    EventTimeline(List<Event> eventList) {
+        this(eventList, sortByStart(eventList));
+    }
+
+    /**
+     * Constructor
+     * <p>
+     * Builds the timeline from a known order
+     *
+     * @param eventList events to index
+     * @param order     index in the list of each event, sorted by start time
+     */
+    private EventTimeline(List<Event> eventList, int[] order) {
+        this.order = order;
+        events = new Event[order.length];
+        starts = new long[order.length];
+        ends = new long[order.length];
+        for(int i = 0; i < order.length; i++) {
+            events[i] = eventList.get(order[i]);
+            starts[i] = toSeconds(events[i].getStartTime());
+            LocalDateTime endTime = events[i].getEndTime();
+            ends[i] = endTime == null ? starts[i] : toSeconds(endTime);
+            if(ends[i] < starts[i]) {
+                ends[i] += 24 * 60 * 60;
+            }
+        }
+        leaves = leaves(order.length);
+        maximumEnds = buildMaximumEnds(ends, leaves);
+    }
+
+    /**
+     * Constructor
+     * <p>
+     * Restores a timeline written by write
+     *
+     * @param in        Dataset.Input positioned at the timeline
+     * @param eventList events the timeline was built from, in the same order
+     * @throws IllegalArgumentException if the timeline does not match the events
+     */
+    private EventTimeline(Dataset.Input in, List<Event> eventList) {
+        order = in.readInts();
+        starts = in.readLongs();
+        ends = in.readLongs();
+        if(order.length != eventList.size() || starts.length != order.length || ends.length != order.length) {
+            throw new IllegalArgumentException("Event timeline has " + order.length + " events, expected " +
+                    eventList.size());
+        }
+        events = new Event[order.length];
+        for(int i = 0; i < order.length; i++) {
+            events[i] = eventList.get(order[i]);
+            if(ends[i] < starts[i] || (i > 0 && starts[i] < starts[i - 1])) {
+                throw new IllegalArgumentException("Event timeline is not sorted");
+            }
+        }
+        leaves = leaves(order.length);
+        maximumEnds = buildMaximumEnds(ends, leaves);
+    }
+
+    /**
+     * Sorts list indexes by start time
+     *
+     * @param eventList events to sort
+     * @return indexes in the list, sorted by start time
+     */
+    private static int[] sortByStart(List<Event> eventList) {
+        Integer[] sorted = new Integer[eventList.size()];
+        for(int i = 0; i < sorted.length; i++) {
+            sorted[i] = i;
+        }
+        Arrays.sort(sorted, (o1, o2) -> eventList.get(o1).getStartTime().compareTo(eventList.get(o2).getStartTime()));
+        int[] order = new int[sorted.length];
+        for(int i = 0; i < sorted.length; i++) {
+            order[i] = sorted[i];
+        }
+        return order;
+    }
+
+    /**
+     * Returns the number of leaves of a tree over events
+     *
+     * @param count number of events
+     * @return smallest power of two not less than count
+     */
+    private static int leaves(int count) {
+        int size = 1;
+        while(size < count) {
+            size *= 2;
+        }
+        return size;
+    }
+
+    /**
+     * Builds the tree of maximum end times
+     *
+     * @param ends   end times by index
+     * @param leaves number of leaves
+     * @return tree, leaves start at index leaves
+     */
+    private static long[] buildMaximumEnds(long[] ends, int leaves) {
+        long[] tree = new long[2 * leaves];
+        Arrays.fill(tree, Long.MIN_VALUE);
+        System.arraycopy(ends, 0, tree, leaves, ends.length);
+        for(int node = leaves - 1; node > 0; node--) {
+            tree[node] = Math.max(tree[2 * node], tree[2 * node + 1]);
+        }
+        return tree;
+    }
+
+    /**
+     * Reads a timeline written by write
+     *
+     * @param in        Dataset.Input positioned at the timeline
+     * @param eventList events the timeline was built from, in the same order
+     * @return EventTimeline
+     * @throws IllegalArgumentException if the timeline does not match the events
+     */
+    static EventTimeline read(Dataset.Input in, List<Event> eventList) {
+        return new EventTimeline(in, eventList);
+    }
+
+    /**
+     * Writes the order and times of the timeline
+     *
+     * @param out Dataset.Output
+     */
+    void write(Dataset.Output out) {
+        out.writeInts(order);
+        out.writeLongs(starts);
+        out.writeLongs(ends);
+    }
+
+    /**
+     * Converts a time to epoch seconds
+     * <p>
+     * Event times have no zone, UTC is used only to give them a consistent order
+     *
+     * @param time LocalDateTime
+     * @return seconds
+     */
+    private static long toSeconds(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    /**
+     * Returns the index of the first event starting after a time
+     *
+     * @param seconds epoch seconds
+     * @return index, or the number of events if none start after the time
+     */
+    private int firstAfter(long seconds) {
+        int low = 0;
+        int high = starts.length;
+        while(low < high) {
+            int middle = (low + high) >>> 1;
+            if(starts[middle] <= seconds) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+//**********************
+// Class methods
+//**********************
+
+    /**
+     * Returns events starting strictly between two times, sorted by start time
+     *
+     * @param start beginning LocalDateTime object
+     * @param end   end LocalDateTime object
+     * @return ArrayList of Event objects
+     */
+    ArrayList<Event> startingBetween(LocalDateTime start, LocalDateTime end) {
+        ArrayList<Event> matchingEvents = new ArrayList<>();
+        long endSeconds = toSeconds(end) + (end.getNano() > 0 ? 1 : 0);
+        for(int i = firstAfter(toSeconds(start)); i < starts.length && starts[i] < endSeconds; i++) {
+            matchingEvents.add(events[i]);
+        }
+        return matchingEvents;
+    }
+
+    /**
+     * Returns events running at a time, sorted by start time
+     * <p>
+     * An event is running from its start time, inclusive, to its end time, exclusive
+     *
+     * @param time LocalDateTime object
+     * @return ArrayList of Event objects
+     */
+    ArrayList<Event> runningAt(LocalDateTime time) {
+        ArrayList<Event> matchingEvents = new ArrayList<>();
+        long seconds = toSeconds(time);
+        int count = firstAfter(seconds);
+        if(count > 0) {
+            collectRunning(1, 0, leaves, count, seconds, matchingEvents);
+        }
+        return matchingEvents;
+    }
+
+    /**
+     * Adds events in a subtree that end after a time, in index order
+     *
+     * @param node           subtree root
+     * @param low            first index covered by the subtree
+     * @param high           index after the last covered by the subtree
+     * @param count          number of events starting at or before the time
+     * @param seconds        time in epoch seconds
+     * @param matchingEvents ArrayList to add to
+     */
+    private void collectRunning(int node, int low, int high, int count, long seconds,
+                                ArrayList<Event> matchingEvents) {
+        if(low >= count || maximumEnds[node] <= seconds) {
+            return;
+        }
+        if(node >= leaves) {
+            matchingEvents.add(events[low]);
+            return;
+        }
+        int middle = (low + high) >>> 1;
+        collectRunning(2 * node, low, middle, count, seconds, matchingEvents);
+        collectRunning(2 * node + 1, middle, high, count, seconds, matchingEvents);
+    }
+}
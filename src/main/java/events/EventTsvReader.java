@@ -0,0 +1,257 @@
+package events;
+
+import driver.LogDriver;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+
+/**
+ * Class EventTsvReader
+ * <p>
+ * Streams events from the tab separated guide export in a single pass
+ * <p>
+ * Each line holds name, location, category, dates and description. The dates field is a list of
+ * occurrences separated by "&lt;--&gt;", in the form "['Sunday, August 25th, 2019, 12 PM – 3 PM ']",
+ * where minutes are optional and the dash may be an en dash or a hyphen. Occurrences are scanned in
+ * place without splitting or regular expressions. Malformed occurrences are skipped and logged with
+ * their line number.
+ *
+ * @author Brian Hooper
+ * @since 0.9.8
+ */
+class EventTsvReader {
+    // Month names, matched case-insensitively
+    private static final String[] months = {"january", "february", "march", "april", "may", "june", "july",
+            "august", "september", "october", "november", "december"};
+
+    // Separator between occurrences
+    private static final String occurrenceSeparator = "<-->";
+
+    // Logger
+    private static final LogDriver logger = LogDriver.getInstance();
+
+    // Line being scanned, its number, and the scan position
+    private String line;
+    private int lineNumber;
+    private int position;
+
+//**********************
+// Class methods
+//**********************
+
+    /**
+     * Reads all events from a file
+     *
+     * @param path   path to file
+     * @param events ArrayList to add events to
+     */
+    void read(String path, ArrayList<Event> events) {
+        try(BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new FileInputStream(path), StandardCharsets.UTF_8), 1 << 16)) {
+            lineNumber = 0;
+            while((line = reader.readLine()) != null) {
+                lineNumber++;
+                readLine(events);
+            }
+        } catch(IOException e) {
+            logger.severe(EventTsvReader.class, "IOException while reading file " + path + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Reads the events on the current line
+     *
+     * @param events ArrayList to add events to
+     */
+    private void readLine(ArrayList<Event> events) {
+        int nameEnd = line.indexOf('\t');
+        int locationEnd = nameEnd < 0 ? -1 : line.indexOf('\t', nameEnd + 1);
+        int categoryEnd = locationEnd < 0 ? -1 : line.indexOf('\t', locationEnd + 1);
+        if(categoryEnd < 0) {
+            if(!line.isEmpty()) {
+                logger.warning(EventTsvReader.class, "Line " + lineNumber + ": expected 5 fields");
+            }
+            return;
+        }
+        int datesEnd = line.indexOf('\t', categoryEnd + 1);
+        if(datesEnd < 0) {
+            datesEnd = line.length();
+        } else if(line.indexOf('\t', datesEnd + 1) >= 0) {
+            logger.warning(EventTsvReader.class, "Line " + lineNumber + ": too many fields");
+            return;
+        }
+
+        String name = line.substring(0, nameEnd);
+        String location = line.substring(nameEnd + 1, locationEnd);
+        EventCategory category = EventCategory.of(line.substring(locationEnd + 1, categoryEnd));
+        String description = datesEnd < line.length() ? line.substring(datesEnd + 1) : "";
+
+        position = categoryEnd + 1;
+        while(position < datesEnd) {
+            int occurrenceEnd = line.indexOf(occurrenceSeparator, position);
+            if(occurrenceEnd < 0 || occurrenceEnd > datesEnd) {
+                occurrenceEnd = datesEnd;
+            }
+            try {
+                readOccurrence(name, location, description, category, occurrenceEnd, events);
+            } catch(ParseException | DateTimeException e) {
+                logger.warning(EventTsvReader.class, "Line " + lineNumber + ", column " + (position + 1) +
+                        ": " + e.getMessage());
+            }
+            position = occurrenceEnd + occurrenceSeparator.length();
+        }
+    }
+
+    /**
+     * Scans one occurrence, "Sunday, August 25th, 2019, 12 PM – 3 PM", ending before an index
+     *
+     * @param name        event name
+     * @param location    event location
+     * @param description event description
+     * @param category    EventCategory, may be null
+     * @param end         index after the occurrence
+     * @param events      ArrayList to add the event to
+     * @throws ParseException if the occurrence does not match the grammar
+     */
+    private void readOccurrence(String name, String location, String description, EventCategory category,
+                                int end, ArrayList<Event> events) throws ParseException {
+        // Weekday, which is implied by the date
+        int comma = line.indexOf(',', position);
+        if(comma < 0 || comma >= end) {
+            throw new ParseException("expected weekday", position);
+        }
+        position = comma + 1;
+
+        skipSpaces(end);
+        int month = readMonth(end);
+        skipSpaces(end);
+        int day = readNumber(end);
+        while(position < end && Character.isLetter(line.charAt(position))) {
+            position++;
+        }
+        expect(',', end);
+        skipSpaces(end);
+        int year = readNumber(end);
+        expect(',', end);
+
+        int startMinutes = readTime(end);
+        skipSpaces(end);
+        if(position >= end || (line.charAt(position) != '–' && line.charAt(position) != '-')) {
+            throw new ParseException("expected dash between times", position);
+        }
+        position++;
+        int endMinutes = readTime(end);
+
+        LocalDateTime startTime = LocalDateTime.of(year, month, day, startMinutes / 60, startMinutes % 60);
+        LocalDateTime endTime = LocalDateTime.of(year, month, day, endMinutes / 60, endMinutes % 60);
+        events.add(new Event(name, location, description, category, startTime, endTime));
+    }
+
+    /**
+     * Skips spaces and quote or bracket characters
+     *
+     * @param end index to stop at
+     */
+    private void skipSpaces(int end) {
+        while(position < end) {
+            char c = line.charAt(position);
+            if(c != ' ' && c != '\'' && c != '[' && c != ']') {
+                return;
+            }
+            position++;
+        }
+    }
+
+    /**
+     * Consumes an expected character
+     *
+     * @param expected character
+     * @param end      index to stop at
+     * @throws ParseException if the next character differs
+     */
+    private void expect(char expected, int end) throws ParseException {
+        if(position >= end || line.charAt(position) != expected) {
+            throw new ParseException("expected '" + expected + "'", position);
+        }
+        position++;
+    }
+
+    /**
+     * Reads a month name
+     *
+     * @param end index to stop at
+     * @return month, 1 to 12
+     * @throws ParseException if there is no month name
+     */
+    private int readMonth(int end) throws ParseException {
+        int start = position;
+        while(position < end && Character.isLetter(line.charAt(position))) {
+            position++;
+        }
+        int length = position - start;
+        for(int i = 0; i < months.length; i++) {
+            if(months[i].length() == length && line.regionMatches(true, start, months[i], 0, length)) {
+                return i + 1;
+            }
+        }
+        throw new ParseException("expected month", start);
+    }
+
+    /**
+     * Reads an unsigned decimal number
+     *
+     * @param end index to stop at
+     * @return number
+     * @throws ParseException if there are no digits
+     */
+    private int readNumber(int end) throws ParseException {
+        int start = position;
+        int value = 0;
+        while(position < end && position - start < 9) {
+            char c = line.charAt(position);
+            if(c < '0' || c > '9') {
+                break;
+            }
+            value = value * 10 + (c - '0');
+            position++;
+        }
+        if(position == start) {
+            throw new ParseException("expected number", start);
+        }
+        return value;
+    }
+
+    /**
+     * Reads a 12 hour time, "12 PM" or "4:15 AM"
+     *
+     * @param end index to stop at
+     * @return minutes after midnight
+     * @throws ParseException if the time is malformed
+     */
+    private int readTime(int end) throws ParseException {
+        skipSpaces(end);
+        int hour = readNumber(end);
+        int minute = 0;
+        if(position < end && line.charAt(position) == ':') {
+            position++;
+            minute = readNumber(end);
+        }
+        skipSpaces(end);
+        if(position + 2 > end || Character.toUpperCase(line.charAt(position + 1)) != 'M') {
+            throw new ParseException("expected AM or PM", position);
+        }
+        char meridiem = Character.toUpperCase(line.charAt(position));
+        if((meridiem != 'A' && meridiem != 'P') || hour < 1 || hour > 12 || minute > 59) {
+            throw new ParseException("invalid time", position);
+        }
+        position += 2;
+        return ((hour % 12) + (meridiem == 'P' ? 12 : 0)) * 60 + minute;
+    }
+}
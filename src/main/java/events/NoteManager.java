@@ -1,6 +1,6 @@
 package events;
 
-import driver.FileManager;
+import driver.PersistentStore;
 
 import java.util.ArrayList;
 import java.util.TreeMap;
@@ -10,6 +10,9 @@ import java.util.TreeMap;
  * Class NoteManager
  * <p>
  * Creates, updates, and deletes notes
+ * <p>
+ * Each change is appended to the log of a PersistentStore and synced, rather than rewriting the
+ * notes file
  *
  * @author Brian Hooper
  * @since 0.9.0
@@ -21,6 +24,9 @@ public class NoteManager {
     // Main list of note names and notes
     private final TreeMap<String, String> notes;
 
+    // Notes file and log of changes
+    private final PersistentStore store;
+
     // Static delimiter to separate note names and notes in file
     private static final String delimiter = String.valueOf((char) 25);
 
@@ -30,38 +36,20 @@ public class NoteManager {
     /**
      * Constructor
      * <p>
-     * Initializes empty list of notes
+     * Reads notes from the notes file and replays changes logged since it was written
      */
     public NoteManager() {
         this.notes = new TreeMap<>();
-        readNotes();
+        this.store = new PersistentStore(notesPath, PersistentStore.delimited(delimiter));
+        notes.putAll(store.getEntries());
         size = notes.size();
     }
 
     /**
-     * Reads notes from a file
-     */
-    private void readNotes() {
-        ArrayList<String> lines = FileManager.readLines(notesPath);
-        if(lines == null)
-            return;
-        for(String line : lines) {
-            String[] split = line.split(delimiter);
-            if(split.length == 2) {
-                notes.put(split[0], split[1]);
-            }
-        }
-    }
-
-    /**
-     * Saves notes to a file
+     * Writes notes to the notes file and closes the log of changes
      */
-    public void saveNotes() {
-        ArrayList<String> lines = new ArrayList<>();
-        for(String noteTitle : notes.keySet()) {
-            lines.add(noteTitle + delimiter + notes.get(noteTitle));
-        }
-        FileManager.writeLines(notesPath, lines);
+    public void close() {
+        store.close();
     }
 
     /**
@@ -92,6 +80,8 @@ public class NoteManager {
     public void createNote(String title, String body) {
         notes.put(title, body);
         size = notes.size();
+        store.put(title, body);
+        store.commit();
     }
 
     /**
@@ -102,6 +92,8 @@ public class NoteManager {
     public void deleteNote(String title) {
         notes.remove(title);
         size = notes.size();
+        store.remove(title);
+        store.commit();
     }
 
     /**
@@ -0,0 +1,220 @@
+package events;
+
+import driver.Dataset;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Class Trigrams
+ * <p>
+ * Immutable trigram posting lists over a list of Strings, used for substring search
+ * <p>
+ * Each trigram is packed into a long key. The lists are packed into arrays, with keys in ascending order
+ * and the ascending ids of key i stored in ids[offsets[i]] to ids[offsets[i + 1]]. A term of three or
+ * more characters can only be contained in the Strings found in the posting list of every one of its
+ * trigrams, which are then checked directly. Used by the event index and the camp search index.
+ *
+ * @author Brian Hooper
+ * @since 0.9.8
+ */
+public class Trigrams {
+//**********************
+// Class member fields
+//**********************
+
+    // Ascending trigram keys
+    private final long[] keys;
+
+    // Start of each posting list, followed by the total number of ids
+    private final int[] offsets;
+
+    // Ascending ids of each posting list
+    private final int[] ids;
+
+//**********************
+// Constructors and initializers
+//**********************
+
+    /**
+     * Constructor
+     *
+     * @param keys    ascending trigram keys
+     * @param offsets start of each posting list, followed by the total number of ids
+     * @param ids     ascending ids of each posting list
+     */
+    private Trigrams(long[] keys, int[] offsets, int[] ids) {
+        this.keys = keys;
+        this.offsets = offsets;
+        this.ids = ids;
+    }
+
+    /**
+     * Builds trigram posting lists
+     *
+     * @param texts Strings by id, normalized as search terms will be
+     * @return Trigrams
+     */
+    public static Trigrams build(String[] texts) {
+        HashMap<Long, int[]> postings = new HashMap<>();
+        HashMap<Long, Integer> sizes = new HashMap<>();
+        int total = 0;
+        for(int id = 0; id < texts.length; id++) {
+            String text = texts[id];
+            for(int i = 0; i + 3 <= text.length(); i++) {
+                Long key = trigram(text, i);
+                int[] list = postings.get(key);
+                int size = list == null ? 0 : sizes.get(key);
+                if(size > 0 && list[size - 1] == id) {
+                    continue;
+                }
+                if(list == null) {
+                    list = new int[4];
+                } else if(size == list.length) {
+                    list = Arrays.copyOf(list, size * 2);
+                }
+                list[size] = id;
+                postings.put(key, list);
+                sizes.put(key, size + 1);
+                total++;
+            }
+        }
+
+        long[] keys = new long[sizes.size()];
+        int k = 0;
+        for(Long key : sizes.keySet()) {
+            keys[k++] = key;
+        }
+        Arrays.sort(keys);
+        int[] offsets = new int[keys.length + 1];
+        int[] ids = new int[total];
+        for(int i = 0; i < keys.length; i++) {
+            int size = sizes.get(keys[i]);
+            System.arraycopy(postings.get(keys[i]), 0, ids, offsets[i], size);
+            offsets[i + 1] = offsets[i] + size;
+        }
+        return new Trigrams(keys, offsets, ids);
+    }
+
+    /**
+     * Reads posting lists written by write
+     *
+     * @param in    Dataset.Input
+     * @param count number of Strings the lists were built from
+     * @return Trigrams
+     * @throws IllegalArgumentException if the lists are inconsistent
+     */
+    public static Trigrams read(Dataset.Input in, int count) {
+        long[] keys = in.readLongs();
+        int[] offsets = in.readInts();
+        int[] ids = in.readInts();
+        if(offsets.length != keys.length + 1 || offsets[0] != 0 || offsets[keys.length] != ids.length) {
+            throw new IllegalArgumentException("Inconsistent trigram postings");
+        }
+        for(int i = 0; i < keys.length; i++) {
+            if(offsets[i + 1] < offsets[i] || (i > 0 && keys[i] <= keys[i - 1])) {
+                throw new IllegalArgumentException("Unsorted trigram postings");
+            }
+        }
+        for(int id : ids) {
+            if(id < 0 || id >= count) {
+                throw new IllegalArgumentException("Invalid id in trigram postings");
+            }
+        }
+        return new Trigrams(keys, offsets, ids);
+    }
+
+    /**
+     * Writes the posting lists
+     *
+     * @param out Dataset.Output
+     */
+    public void write(Dataset.Output out) {
+        out.writeLongs(keys);
+        out.writeInts(offsets);
+        out.writeInts(ids);
+    }
+
+//**********************
+// Class methods
+//**********************
+
+    /**
+     * Packs the three characters at an index into a trigram key
+     *
+     * @param text  String
+     * @param index start of the trigram
+     * @return trigram key
+     */
+    private static long trigram(String text, int index) {
+        return ((long) text.charAt(index) << 32) | ((long) text.charAt(index + 1) << 16) | text.charAt(index + 2);
+    }
+
+    /**
+     * Finds the ids of Strings containing every trigram of a term
+     * <p>
+     * Starts from the shortest posting list, then keeps ids found in all the others
+     *
+     * @param term search term of at least three characters, normalized as the Strings were
+     * @return new array of ascending ids
+     */
+    public int[] candidates(String term) {
+        int count = term.length() - 2;
+        int[] lists = new int[count];
+        for(int i = 0; i < count; i++) {
+            lists[i] = Arrays.binarySearch(keys, trigram(term, i));
+            if(lists[i] < 0) {
+                return new int[0];
+            }
+        }
+        int shortest = 0;
+        for(int i = 1; i < count; i++) {
+            if(size(lists[i]) < size(lists[shortest])) {
+                shortest = i;
+            }
+        }
+
+        int[] result = Arrays.copyOfRange(ids, offsets[lists[shortest]], offsets[lists[shortest] + 1]);
+        int size = result.length;
+        for(int i = 0; i < count && size > 0; i++) {
+            if(i != shortest) {
+                size = intersect(result, size, lists[i]);
+            }
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    /**
+     * Returns the length of a posting list
+     *
+     * @param list index of the list
+     * @return number of ids
+     */
+    private int size(int list) {
+        return offsets[list + 1] - offsets[list];
+    }
+
+    /**
+     * Intersects ascending ids with a posting list
+     *
+     * @param result ascending ids, overwritten with the intersection
+     * @param size   number of ids in result
+     * @param list   index of the posting list
+     * @return size of the intersection, stored at the start of result
+     */
+    private int intersect(int[] result, int size, int list) {
+        int count = 0;
+        int j = offsets[list];
+        int end = offsets[list + 1];
+        for(int i = 0; i < size && j < end; i++) {
+            int id = result[i];
+            while(j < end && ids[j] < id) {
+                j++;
+            }
+            if(j < end && ids[j] == id) {
+                result[count++] = id;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,459 @@
+package navigation;
+
+import events.Trigrams;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Class CampSearchIndex
+ * <p>
+ * Name search over the rows of a LocationStore, fast enough to run on every keystroke
+ * <p>
+ * Names and queries are normalized by removing accents, case and punctuation. A trie over the suffixes
+ * of each name that start a word answers prefix queries. Trigram posting lists give the candidates for
+ * substring queries. Names whose words start within a small edit distance of the query are found with a
+ * bounded Levenshtein distance, so a typo still matches. Matches are ranked by how well they match,
+ * then by distance from a location, then by name.
+ *
+ * @author Brian Hooper
+ * @since 0.9.8
+ */
+class CampSearchIndex {
+//**********************
+// Class member fields
+//**********************
+
+    // Relevance of each kind of match, lower is better, a fuzzy match adds its edit distance
+    static final int exactMatch = 0;
+    static final int prefixMatch = 1;
+    static final int wordPrefixMatch = 2;
+    static final int substringMatch = 3;
+    static final int fuzzyMatch = 3;
+
+    // Maximum depth of the trie, longer queries are compared against the names below it
+    private static final int maximumDepth = 12;
+
+    // Indexed landmarks
+    private final LocationStore store;
+
+    // Normalized name of each row
+    private final String[] names;
+
+    // Suffixes starting a word, sorted by text, as row and start index
+    private final int[] entryRows;
+    private final int[] entryStarts;
+
+    // Trie nodes, children in ascending label order, each covering the entries [entryLow, entryHigh)
+    private char[] labels;
+    private int[] firstChildren;
+    private int[] nextSiblings;
+    private int[] entryLows;
+    private int[] entryHighs;
+    private int nodeCount;
+
+    // Trigram posting lists of normalized names, by row
+    private final Trigrams trigrams;
+
+//**********************
+// Constructors and initializers
+//**********************
+
+    /**
+     * Constructor
+     * <p>
+     * Builds an index over the names of every row of a store
+     *
+     * @param store LocationStore
+     */
+    CampSearchIndex(LocationStore store) {
+        this.store = store;
+        this.names = new String[store.size()];
+        int entryCount = 0;
+        for(int row = 0; row < names.length; row++) {
+            names[row] = normalize(store.getName(row));
+            entryCount += countWords(names[row]);
+        }
+
+        // Word-start suffixes, sorted so that every trie node covers a contiguous range
+        Integer[] order = new Integer[entryCount];
+        int[] rows = new int[entryCount];
+        int[] starts = new int[entryCount];
+        int entry = 0;
+        for(int row = 0; row < names.length; row++) {
+            String name = names[row];
+            for(int i = 0; i < name.length(); i++) {
+                if(i == 0 || name.charAt(i - 1) == ' ') {
+                    rows[entry] = row;
+                    starts[entry] = i;
+                    order[entry] = entry;
+                    entry++;
+                }
+            }
+        }
+        Arrays.sort(order, (a, b) -> compareSuffixes(names[rows[a]], starts[a], names[rows[b]], starts[b]));
+        entryRows = new int[entryCount];
+        entryStarts = new int[entryCount];
+        for(int i = 0; i < entryCount; i++) {
+            entryRows[i] = rows[order[i]];
+            entryStarts[i] = starts[order[i]];
+        }
+
+        labels = new char[64];
+        firstChildren = new int[64];
+        nextSiblings = new int[64];
+        entryLows = new int[64];
+        entryHighs = new int[64];
+        buildNode('\0', 0, entryCount, 0);
+
+        trigrams = Trigrams.build(names);
+    }
+
+    /**
+     * Adds a trie node and its children for a sorted range of entries
+     *
+     * @param label character on the edge to this node
+     * @param low   first entry under the node
+     * @param high  entry after the last under the node
+     * @param depth length of the prefix the node represents
+     * @return node
+     */
+    private int buildNode(char label, int low, int high, int depth) {
+        int node = nodeCount++;
+        if(node == labels.length) {
+            int capacity = node * 2;
+            labels = Arrays.copyOf(labels, capacity);
+            firstChildren = Arrays.copyOf(firstChildren, capacity);
+            nextSiblings = Arrays.copyOf(nextSiblings, capacity);
+            entryLows = Arrays.copyOf(entryLows, capacity);
+            entryHighs = Arrays.copyOf(entryHighs, capacity);
+        }
+        labels[node] = label;
+        firstChildren[node] = -1;
+        nextSiblings[node] = -1;
+        entryLows[node] = low;
+        entryHighs[node] = high;
+        if(depth == maximumDepth) {
+            return node;
+        }
+
+        // Suffixes ending at this depth sort before their extensions
+        int i = low;
+        while(i < high && suffixLength(i) <= depth) {
+            i++;
+        }
+        int previous = -1;
+        while(i < high) {
+            char c = suffixChar(i, depth);
+            int j = i + 1;
+            while(j < high && suffixChar(j, depth) == c) {
+                j++;
+            }
+            int child = buildNode(c, i, j, depth + 1);
+            if(previous < 0) {
+                firstChildren[node] = child;
+            } else {
+                nextSiblings[previous] = child;
+            }
+            previous = child;
+            i = j;
+        }
+        return node;
+    }
+
+    /**
+     * Normalizes a name for searching
+     * <p>
+     * Accents are removed, letters lowercased, apostrophes dropped and any other run of characters that
+     * are not letters or digits replaced by a single space
+     *
+     * @param name String name
+     * @return normalized String, without leading or trailing spaces
+     */
+    static String normalize(String name) {
+        String decomposed = Normalizer.normalize(name, Normalizer.Form.NFD);
+        StringBuilder normalized = new StringBuilder(decomposed.length());
+        boolean space = false;
+        for(int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if(Character.getType(c) == Character.NON_SPACING_MARK || c == '\'' || c == '\u2019' || c == '`') {
+                continue;
+            }
+            if(Character.isLetterOrDigit(c)) {
+                if(space && normalized.length() > 0) {
+                    normalized.append(' ');
+                }
+                normalized.append(Character.toLowerCase(c));
+                space = false;
+            } else {
+                space = true;
+            }
+        }
+        return normalized.toString();
+    }
+
+    /**
+     * Counts the words of a normalized name
+     *
+     * @param name normalized name
+     * @return number of words
+     */
+    private static int countWords(String name) {
+        int words = name.isEmpty() ? 0 : 1;
+        for(int i = 0; i < name.length(); i++) {
+            if(name.charAt(i) == ' ') {
+                words++;
+            }
+        }
+        return words;
+    }
+
+    /**
+     * Compares two name suffixes
+     *
+     * @param a      first name
+     * @param aStart start of the first suffix
+     * @param b      second name
+     * @param bStart start of the second suffix
+     * @return negative, zero or positive as the first suffix sorts before, with or after the second
+     */
+    private static int compareSuffixes(String a, int aStart, String b, int bStart) {
+        int length = Math.min(a.length() - aStart, b.length() - bStart);
+        for(int i = 0; i < length; i++) {
+            char ac = a.charAt(aStart + i);
+            char bc = b.charAt(bStart + i);
+            if(ac != bc) {
+                return ac - bc;
+            }
+        }
+        return (a.length() - aStart) - (b.length() - bStart);
+    }
+
+//**********************
+// Getters and setters
+//**********************
+
+    /**
+     * Getter for the length of an entry's suffix
+     *
+     * @param entry entry
+     * @return number of characters
+     */
+    private int suffixLength(int entry) {
+        return names[entryRows[entry]].length() - entryStarts[entry];
+    }
+
+    /**
+     * Getter for a character of an entry's suffix
+     *
+     * @param entry entry
+     * @param index index within the suffix
+     * @return character
+     */
+    private char suffixChar(int entry, int index) {
+        return names[entryRows[entry]].charAt(entryStarts[entry] + index);
+    }
+
+//**********************
+// Class methods
+//**********************
+
+    /**
+     * Finds names matching a query
+     * <p>
+     * A name matches if it equals the query, starts with it, has a word starting with it, contains it,
+     * or has a word starting within one edit of a query of 4 or more characters, or two edits of 8 or
+     * more characters, after normalization
+     *
+     * @param query String query
+     * @param x     cartesian x of the location distances are measured from
+     * @param y     cartesian y of the location distances are measured from
+     * @return ArrayList of Matches, best first
+     */
+    ArrayList<Match> search(String query, double x, double y) {
+        ArrayList<Match> matches = new ArrayList<>();
+        String normalized = normalize(query);
+        if(normalized.isEmpty()) {
+            return matches;
+        }
+        int[] relevance = new int[names.length];
+        Arrays.fill(relevance, Integer.MAX_VALUE);
+
+        // Prefixes of the name or of any word, from the trie
+        int node = findNode(normalized);
+        if(node >= 0) {
+            for(int entry = entryLows[node]; entry < entryHighs[node]; entry++) {
+                int row = entryRows[entry];
+                int start = entryStarts[entry];
+                if(normalized.length() > maximumDepth && !names[row].startsWith(normalized, start)) {
+                    continue;
+                }
+                int match = start > 0 ? wordPrefixMatch :
+                        names[row].length() == normalized.length() ? exactMatch : prefixMatch;
+                relevance[row] = Math.min(relevance[row], match);
+            }
+        }
+
+        // Substrings, from rows containing every trigram of the query
+        if(normalized.length() >= 3) {
+            for(int row : trigrams.candidates(normalized)) {
+                if(relevance[row] > substringMatch && names[row].contains(normalized)) {
+                    relevance[row] = substringMatch;
+                }
+            }
+        } else {
+            for(int row = 0; row < names.length; row++) {
+                if(relevance[row] > substringMatch && names[row].contains(normalized)) {
+                    relevance[row] = substringMatch;
+                }
+            }
+        }
+
+        // Typos, by edit distance between the query and the start of any word
+        int maximumEdits = normalized.length() >= 8 ? 2 : normalized.length() >= 4 ? 1 : 0;
+        if(maximumEdits > 0) {
+            int[][] distances = new int[3][normalized.length() + 1];
+            for(int row = 0; row < names.length; row++) {
+                if(relevance[row] == Integer.MAX_VALUE) {
+                    int edits = prefixEditDistance(normalized, names[row], maximumEdits, distances);
+                    if(edits <= maximumEdits) {
+                        relevance[row] = fuzzyMatch + edits;
+                    }
+                }
+            }
+        }
+
+        for(int row = 0; row < names.length; row++) {
+            if(relevance[row] != Integer.MAX_VALUE) {
+                double dx = store.getX(row) - x;
+                double dy = store.getY(row) - y;
+                matches.add(new Match(store.getName(row), relevance[row], Math.sqrt(dx * dx + dy * dy)));
+            }
+        }
+        matches.sort(null);
+        return matches;
+    }
+
+    /**
+     * Walks the trie along a query
+     *
+     * @param query normalized query
+     * @return node for the query, or its first characters if it is longer than the trie, -1 if none
+     */
+    private int findNode(String query) {
+        int node = 0;
+        int depth = Math.min(query.length(), maximumDepth);
+        for(int i = 0; i < depth; i++) {
+            char c = query.charAt(i);
+            int child = firstChildren[node];
+            while(child >= 0 && labels[child] < c) {
+                child = nextSiblings[child];
+            }
+            if(child < 0 || labels[child] != c) {
+                return -1;
+            }
+            node = child;
+        }
+        return node;
+    }
+
+    /**
+     * Computes the smallest edit distance between a query and the start of any word of a name
+     * <p>
+     * The start of a word is any prefix of it and the rest of the name, so a partly typed name with a
+     * typo still matches. Insertions, deletions, substitutions and swaps of adjacent characters count as
+     * one edit. Each word is abandoned once every distance exceeds the limit.
+     *
+     * @param query     normalized query
+     * @param name      normalized name
+     * @param limit     maximum edit distance of interest
+     * @param distances three reusable rows of the query length plus one
+     * @return edit distance, or more than the limit if it exceeds it
+     */
+    private static int prefixEditDistance(String query, String name, int limit, int[][] distances) {
+        int n = query.length();
+        int best = limit + 1;
+        for(int start = 0; start < name.length() && best > 0; start++) {
+            if(start > 0 && name.charAt(start - 1) != ' ') {
+                continue;
+            }
+            int[] beforePrevious = distances[0];
+            int[] previous = distances[1];
+            int[] current = distances[2];
+            for(int j = 0; j <= n; j++) {
+                current[j] = j;
+            }
+            int end = Math.min(name.length(), start + n + limit);
+            for(int i = start; i < end; i++) {
+                int[] free = beforePrevious;
+                beforePrevious = previous;
+                previous = current;
+                current = free;
+                char c = name.charAt(i);
+                current[0] = i - start + 1;
+                int rowMinimum = current[0];
+                for(int j = 1; j <= n; j++) {
+                    int cost = query.charAt(j - 1) == c ? 0 : 1;
+                    int distance = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                    if(i > start && j > 1 && c == query.charAt(j - 2) && name.charAt(i - 1) == query.charAt(j - 1)) {
+                        distance = Math.min(distance, beforePrevious[j - 2] + 1);
+                    }
+                    current[j] = distance;
+                    rowMinimum = Math.min(rowMinimum, distance);
+                }
+                best = Math.min(best, current[n]);
+                if(rowMinimum > limit) {
+                    break;
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Class Match
+     * <p>
+     * A matching name, ordered by relevance, then distance, then name
+     */
+    static class Match implements Comparable<Match> {
+        // Original name
+        final String name;
+
+        // Kind of match, lower is better
+        final int relevance;
+
+        // Distance in feet from the search location
+        final double distance;
+
+        /**
+         * Constructor
+         *
+         * @param name      original name
+         * @param relevance kind of match
+         * @param distance  distance in feet
+         */
+        Match(String name, int relevance, double distance) {
+            this.name = name;
+            this.relevance = relevance;
+            this.distance = distance;
+        }
+
+        /**
+         * Compares by relevance, then distance, then name ignoring case
+         *
+         * @param other Match
+         * @return negative, zero or positive as this match ranks before, with or after the other
+         */
+        @Override
+        public int compareTo(Match other) {
+            if(relevance != other.relevance) {
+                return Integer.compare(relevance, other.relevance);
+            }
+            if(distance != other.distance) {
+                return Double.compare(distance, other.distance);
+            }
+            return name.compareToIgnoreCase(other.name);
+        }
+    }
+}
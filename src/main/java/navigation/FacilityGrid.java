@@ -0,0 +1,244 @@
+package navigation;
+
+import driver.Dataset;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Class FacilityGrid
+ * <p>
+ * Raster over the city holding the nearest facility of a LocationStore for each 25 foot cell
+ * <p>
+ * Each cell stores the row of the facility nearest its center, found with a SpatialIndex in a
+ * fork-join pass over bands of grid rows. A position in the cell can only have a different nearest
+ * facility if the second nearest is within a cell diagonal of the nearest, measured from the center,
+ * so such cells are marked unresolved instead. A lookup is then a single array read, giving exactly
+ * the facility the spatial index would, or -1 for unresolved cells and positions outside the raster,
+ * which the caller answers from the spatial index. The grid is written to the dataset with the store
+ * it was built from.
+ *
+ * @author Brian Hooper
+ * @since 0.9.8
+ */
+class FacilityGrid {
+//**********************
+// Class member fields
+//**********************
+
+    // Width of a cell in feet
+    private static final double cellSize = 25;
+
+    // Distance in feet the raster extends past the outer street
+    private static final int margin = 1000;
+
+    // Cell value for cells whose nearest facility depends on the position within the cell
+    private static final char unresolved = 0xFFFF;
+
+    // Largest number of facilities a grid can refer to
+    static final int maximumFacilities = unresolved;
+
+    // Grid rows per fork-join task
+    private static final int rowsPerTask = 16;
+
+    // Number of facilities in the store the grid was built from
+    private final int facilities;
+
+    // Position in feet of the corner of the first cell, and cells per grid row and column
+    private final double originX;
+    private final double originY;
+    private final int columns;
+    private final int rows;
+
+    // Facility row for each cell, by grid row then column, or unresolved
+    private final char[] cells;
+
+//**********************
+// Constructors and initializers
+//**********************
+
+    /**
+     * Constructor
+     * <p>
+     * Builds a square raster around the man, reaching past the outer street of a street grid
+     *
+     * @param store      LocationStore of facilities
+     * @param streetGrid StreetGrid the raster covers
+     * @throws IllegalArgumentException if the store holds maximumFacilities or more rows
+     */
+    FacilityGrid(LocationStore store, StreetGrid streetGrid) {
+        if(store.size() >= maximumFacilities) {
+            throw new IllegalArgumentException("Too many facilities for grid: " + store.size());
+        }
+        int radius = streetGrid.getDistance(streetGrid.size() - 1) + margin;
+        this.facilities = store.size();
+        this.columns = (int) Math.ceil(2 * radius / cellSize);
+        this.rows = columns;
+        this.originX = -radius;
+        this.originY = -radius;
+        this.cells = new char[columns * rows];
+
+        double[] x = new double[store.size()];
+        double[] y = new double[store.size()];
+        for(int row = 0; row < store.size(); row++) {
+            x[row] = store.getX(row);
+            y[row] = store.getY(row);
+        }
+        ForkJoinPool.commonPool().invoke(new Fill(new SpatialIndex(x, y), x, y, 0, rows));
+    }
+
+    /**
+     * Constructor
+     * <p>
+     * Private, used when reading a grid
+     */
+    private FacilityGrid(int facilities, double originX, double originY, int columns, int rows, char[] cells) {
+        this.facilities = facilities;
+        this.originX = originX;
+        this.originY = originY;
+        this.columns = columns;
+        this.rows = rows;
+        this.cells = cells;
+    }
+
+    /**
+     * Reads a grid written by write
+     *
+     * @param in    Dataset.Input positioned at the grid
+     * @param store LocationStore the grid was built from
+     * @return FacilityGrid
+     * @throws IllegalArgumentException if the grid is inconsistent or was built from a different store
+     */
+    static FacilityGrid read(Dataset.Input in, LocationStore store) {
+        int facilities = in.readInt();
+        double originX = Double.longBitsToDouble(in.readLong());
+        double originY = Double.longBitsToDouble(in.readLong());
+        int columns = in.readInt();
+        int rows = in.readInt();
+        char[] cells = in.readChars();
+        if(facilities != store.size() || columns < 0 || rows < 0 || (long) columns * rows != cells.length ||
+                Double.isNaN(originX) || Double.isNaN(originY)) {
+            throw new IllegalArgumentException("Inconsistent facility grid");
+        }
+        for(char cell : cells) {
+            if(cell != unresolved && cell >= facilities) {
+                throw new IllegalArgumentException("Facility grid row " + (int) cell + " out of range");
+            }
+        }
+        return new FacilityGrid(facilities, originX, originY, columns, rows, cells);
+    }
+
+    /**
+     * Writes the grid to a dataset section
+     *
+     * @param out Dataset.Output
+     */
+    void write(Dataset.Output out) {
+        out.writeInt(facilities);
+        out.writeLong(Double.doubleToLongBits(originX));
+        out.writeLong(Double.doubleToLongBits(originY));
+        out.writeInt(columns);
+        out.writeInt(rows);
+        out.writeChars(cells);
+    }
+
+//**********************
+// Class methods
+//**********************
+
+    /**
+     * Finds the facility nearest a position
+     *
+     * @param x x position in feet
+     * @param y y position in feet
+     * @return row of the nearest facility, or -1 if the position is outside the raster or its cell is
+     * unresolved
+     */
+    int nearest(double x, double y) {
+        double column = Math.floor((x - originX) / cellSize);
+        double row = Math.floor((y - originY) / cellSize);
+        if(!(column >= 0 && column < columns && row >= 0 && row < rows)) {
+            return -1;
+        }
+        char cell = cells[(int) row * columns + (int) column];
+        return cell == unresolved ? -1 : cell;
+    }
+
+    /**
+     * Class Fill
+     * <p>
+     * Fills a band of grid rows, splitting it between tasks until it is small enough to fill directly
+     */
+    private class Fill extends RecursiveAction {
+        // Index over the facilities and their positions in feet, only read
+        private final SpatialIndex index;
+        private final double[] x;
+        private final double[] y;
+
+        // Band of grid rows [start, end)
+        private final int start;
+        private final int end;
+
+        /**
+         * Constructor
+         *
+         * @param index SpatialIndex over the facilities
+         * @param x     x position of each facility in feet
+         * @param y     y position of each facility in feet
+         * @param start first grid row
+         * @param end   grid row after the last
+         */
+        Fill(SpatialIndex index, double[] x, double[] y, int start, int end) {
+            this.index = index;
+            this.x = x;
+            this.y = y;
+            this.start = start;
+            this.end = end;
+        }
+
+        /**
+         * Fills the band, or splits it in two
+         */
+        @Override
+        protected void compute() {
+            if(end - start > rowsPerTask) {
+                int middle = (start + end) >>> 1;
+                invokeAll(new Fill(index, x, y, start, middle), new Fill(index, x, y, middle, end));
+                return;
+            }
+
+            // A position is at most half a diagonal from its cell center, so the nearest facility
+            // can only change within the cell if the second nearest is within a diagonal of it
+            double diagonal = cellSize * Math.sqrt(2);
+            for(int row = start; row < end; row++) {
+                double centerY = originY + (row + 0.5) * cellSize;
+                for(int column = 0; column < columns; column++) {
+                    double centerX = originX + (column + 0.5) * cellSize;
+                    int[] nearest = index.nearest(centerX, centerY, 2);
+                    char cell = unresolved;
+                    if(nearest.length == 1) {
+                        cell = (char) nearest[0];
+                    } else if(nearest.length == 2 &&
+                            distance(nearest[1], centerX, centerY) - distance(nearest[0], centerX, centerY) > diagonal) {
+                        cell = (char) nearest[0];
+                    }
+                    cells[row * columns + column] = cell;
+                }
+            }
+        }
+
+        /**
+         * Computes the distance from a facility to a position
+         *
+         * @param id        facility row
+         * @param positionX x position in feet
+         * @param positionY y position in feet
+         * @return distance in feet
+         */
+        private double distance(int id, double positionX, double positionY) {
+            double deltaX = x[id] - positionX;
+            double deltaY = y[id] - positionY;
+            return Math.sqrt(deltaX * deltaX + deltaY * deltaY);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package navigation;
+
+import java.util.ArrayList;
+
+/**
+ * Class LandmarkIndex
+ * <p>
+ * Spatial index over the rows of a LocationStore, answers nearest and within-radius queries
+ *
+ * @author Brian Hooper
+ * @since 0.9.8
+ */
+class LandmarkIndex {
+//**********************
+// Class member fields
+//**********************
+
+    // Indexed landmarks, row in the store is the id used by the spatial index
+    private final LocationStore store;
+
+    // Tree over landmark positions
+    private final SpatialIndex index;
+
+//**********************
+// Constructors and initializers
+//**********************
+
+    /**
+     * Constructor
+     * <p>
+     * Builds an index over every row of a store
+     *
+     * @param store LocationStore
+     */
+    LandmarkIndex(LocationStore store) {
+        this.store = store;
+        double[] x = new double[store.size()];
+        double[] y = new double[store.size()];
+        for(int row = 0; row < store.size(); row++) {
+            x[row] = store.getX(row);
+            y[row] = store.getY(row);
+        }
+        this.index = new SpatialIndex(x, y);
+    }
+
+//**********************
+// Class methods
+//**********************
+
+    /**
+     * Finds the location of the landmark closest to a location
+     *
+     * @param location Location to compare
+     * @return closest Location, or null if the index is empty
+     */
+    Location nearestLocation(Location location) {
+        int row = index.nearest(location.getX(), location.getY());
+        return row < 0 ? null : store.getLocation(row);
+    }
+
+    /**
+     * Finds the landmarks closest to a location
+     *
+     * @param location Location to compare
+     * @param count    maximum number of landmarks
+     * @return ArrayList of Landmarks, closest first
+     */
+    ArrayList<Landmark> nearest(Location location, int count) {
+        return toLandmarks(index.nearest(location.getX(), location.getY(), count));
+    }
+
+    /**
+     * Finds all landmarks within a distance of a location
+     *
+     * @param location Location to compare
+     * @param radius   distance in feet
+     * @return ArrayList of Landmarks, closest first
+     */
+    ArrayList<Landmark> withinRadius(Location location, int radius) {
+        return toLandmarks(index.withinRadius(location.getX(), location.getY(), radius));
+    }
+
+    /**
+     * Converts store rows to landmarks
+     *
+     * @param rows int array of rows
+     * @return ArrayList of Landmarks
+     */
+    private ArrayList<Landmark> toLandmarks(int[] rows) {
+        ArrayList<Landmark> result = new ArrayList<>(rows.length);
+        for(int row : rows) {
+            result.add(store.getLandmark(row));
+        }
+        return result;
+    }
+}
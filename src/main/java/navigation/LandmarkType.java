@@ -0,0 +1,13 @@
+package navigation;
+
+/**
+ * enum LandmarkType
+ * <p>
+ * Kinds of landmark that can be searched by position
+ *
+ * @author Brian Hooper
+ * @since 0.9.8
+ */
+public enum LandmarkType {
+    BATHROOM, CAMP, FACILITY
+}
@@ -1,19 +1,21 @@
 package navigation;
 
+import driver.Dataset;
 import driver.FileManager;
 import driver.LogDriver;
+import driver.PersistentStore;
 
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
-import java.util.TreeMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 
 /**
  * Class Landmarks
  * <p>
  * Maintains lists of Location objects and methods for interacting with them
  * <p>
- * CSV files for list data are stored in the config directory
+ * CSV files for list data are stored in the config directory, and are loaded into
+ * immutable LocationStores
  *
  * @author Brian Hooper
  * @since 0.9.0
@@ -28,15 +30,35 @@ class Landmarks {
     private static final String campsPath = "config/theme_camps.tsv";
     private static final String favoritesPath = "config/facilities.tsv";
 
-    // Key-Value pairs representing the name and location of a favorite
-    private final TreeMap<String, Location> favorites;
+    // Facilities as read from file
+    private LocationStore facilities;
+
+    // Editable list of favorites, initially views over the facilities
     private final ArrayList<Landmark> favoriteLandmarks;
 
-    // Key-Value pairs representing the name and location of camps
-    private final TreeMap<String, Location> camps;
+    // Favorites file and log of changes, null until read
+    private PersistentStore favorites;
+
+    // Line of the favorites file each favorite was read from or written to
+    private final IdentityHashMap<Landmark, String> favoriteLines;
+
+    // Names and locations of camps, sorted by name
+    private LocationStore camps;
+
+    // Bathroom locations
+    private LocationStore bathrooms;
 
-    // List of bathroom locations
-    private final ArrayList<Location> bathrooms;
+    // Spatial indexes for each landmark type, null until first queried after a change
+    private LandmarkIndex bathroomIndex;
+    private LandmarkIndex campIndex;
+    private LandmarkIndex facilityIndex;
+
+    // Nearest bathroom for each cell of the city, null until built after a change
+    private FacilityGrid bathroomGrid;
+
+    // Name search indexes for camps and favorites, null until first searched after a change
+    private CampSearchIndex campSearchIndex;
+    private CampSearchIndex favoriteSearchIndex;
 
     // Logger
     private static final LogDriver logger = LogDriver.getInstance();
@@ -51,10 +73,28 @@ class Landmarks {
      * Initializes empty sets
      */
     Landmarks() {
-        this.bathrooms = new ArrayList<>();
-        this.camps = new TreeMap<>();
-        this.favorites = new TreeMap<>();
+        this.bathrooms = LocationStore.EMPTY;
+        this.camps = LocationStore.EMPTY;
+        this.facilities = LocationStore.EMPTY;
         this.favoriteLandmarks = new ArrayList<>();
+        this.favoriteLines = new IdentityHashMap<>();
+    }
+
+    /**
+     * Converts a street, either a letter or a distance in feet, to a distance
+     *
+     * @param street String street
+     * @return distance in feet
+     * @throws NumberFormatException if the street is empty
+     */
+    private static int parseStreet(String street) {
+        if(street.isEmpty()) {
+            throw new NumberFormatException("Empty street");
+        }
+        if(Character.isDigit(street.charAt(0))) {
+            return Integer.parseInt(street);
+        }
+        return Location.toDistance(street.charAt(0));
     }
 
     /**
@@ -64,22 +104,19 @@ class Landmarks {
         ArrayList<String> lines = FileManager.readLines(bathroomsPath);
         if(lines == null)
             return;
+        LocationStore.Builder builder = new LocationStore.Builder();
         for(String line : lines) {
             try {
                 String[] split = line.split(",");
                 if(split.length == 2) {
                     double latitude = Double.parseDouble(split[0]);
                     double longitude = Double.parseDouble(split[1]);
-                    bathrooms.add(new Location(latitude, longitude));
+                    Location location = new Location(latitude, longitude);
+                    builder.add("", null, location.getHour(), location.getMinute(), location.getDistance());
                 } else if(split.length == 3) {
                     int hour = Integer.parseInt(split[0]);
                     int minute = Integer.parseInt(split[1]);
-                    if(split[2].matches("0-9")) {
-                        int distance = Integer.parseInt(split[2]);
-                        bathrooms.add(new Location(hour, minute, distance));
-                    } else {
-                        bathrooms.add(new Location(hour, minute, split[2].charAt(0)));
-                    }
+                    builder.add("", null, hour, minute, parseStreet(split[2]));
                 }
             } catch(NumberFormatException e) {
                 logger.warning(this.getClass(),
@@ -87,16 +124,19 @@ class Landmarks {
                                 line + "\': " + e.getMessage());
             }
         }
-
+        bathrooms = builder.build(false);
+        bathroomIndex = null;
+        bathroomGrid = null;
+        getBathroomGrid();
     }
 
     /**
-     * Populates a list of named locations into a HashSet
+     * Reads a list of named locations into a LocationStore builder
      *
-     * @param map      HashSet of String-Location
+     * @param builder  LocationStore.Builder
      * @param filename relative path of file
      */
-    private void readNamedLocations(TreeMap<String, Location> map, String filename) {
+    private void readNamedLocations(LocationStore.Builder builder, String filename) {
         ArrayList<String> lines = FileManager.readLines(filename);
         if(lines == null)
             return;
@@ -106,16 +146,12 @@ class Landmarks {
                 if(split.length == 3) {
                     double latitude = Double.parseDouble(split[1]);
                     double longitude = Double.parseDouble(split[2]);
-                    map.put(split[0], new Location(latitude, longitude));
+                    Location location = new Location(latitude, longitude);
+                    builder.add(split[0], null, location.getHour(), location.getMinute(), location.getDistance());
                 } else if(split.length == 4) {
                     int hour = Integer.parseInt(split[1]);
                     int minute = Integer.parseInt(split[2]);
-                    if(split[3].matches("0-9")) {
-                        int distance = Integer.parseInt(split[2]);
-                        map.put(split[0], new Location(hour, minute, distance));
-                    } else {
-                        map.put(split[0], new Location(hour, minute, split[3].charAt(0)));
-                    }
+                    builder.add(split[0], null, hour, minute, parseStreet(split[3]));
                 }
             } catch(NumberFormatException e) {
                 logger.warning(this.getClass(),
@@ -129,14 +165,21 @@ class Landmarks {
      * Populates the list of camp locations from a file
      */
     void readCamps() {
-        readNamedLocations(camps, campsPath);
+        LocationStore.Builder builder = new LocationStore.Builder();
+        readNamedLocations(builder, campsPath);
+        camps = builder.build(true);
+        campIndex = null;
+        campSearchIndex = null;
     }
 
+    /**
+     * Populates the list of camp locations from a tab separated file
+     */
     void readCampsTSV() {
         ArrayList<String> lines = FileManager.readLines(campsPath);
         if(lines == null)
             return;
-        String regex = "[0-9]+";
+        LocationStore.Builder builder = new LocationStore.Builder();
         for(String line : lines) {
 
             String[] split = line.split("\t");
@@ -149,11 +192,7 @@ class Landmarks {
                         try {
                             int hour = Integer.parseInt(time[0]);
                             int minute = Integer.parseInt(time[1]);
-                            if(address[1].matches(regex)) {
-                                camps.put(campName, new Location(hour, minute, Integer.parseInt(address[2])));
-                            } else {
-                                camps.put(campName, new Location(hour, minute, address[2].charAt(0)));
-                            }
+                            builder.add(campName, null, hour, minute, parseStreet(address[2]));
                         } catch (NumberFormatException e) {
                             logger.warning(this.getClass(),
                                     "NumberFormatException while reading named locations, error parsing line \'" +
@@ -169,20 +208,31 @@ class Landmarks {
                 logger.warning(this.getClass(),"No breaks at all: " + line);
             }
         }
+        camps = builder.build(true);
+        campIndex = null;
+        campSearchIndex = null;
     }
 
     /**
      * Reads the favorites from a file
      */
     void readFavorites() {
-        readNamedLocations(favorites, favoritesPath);
+        LocationStore.Builder builder = new LocationStore.Builder();
+        readNamedLocations(builder, favoritesPath);
+        setFacilities(builder.build(false));
     }
 
+    /**
+     * Reads the favorites from a tab separated file
+     * <p>
+     * Changes logged since the file was written are replayed, and later changes are logged through
+     * addFavorite and removeFavorite
+     */
     void readFavoritesTSV() {
-        ArrayList<String> lines = FileManager.readLines(favoritesPath);
-        if(lines == null)
-            return;
-        for(String line : lines) {
+        favorites = new PersistentStore(favoritesPath, PersistentStore.lines());
+        ArrayList<String> lines = new ArrayList<>();
+        LocationStore.Builder builder = new LocationStore.Builder();
+        for(String line : favorites.getEntries().keySet()) {
             String[] split = line.split("\t");
 
             String description;
@@ -204,18 +254,153 @@ class Landmarks {
             }
             String[] time = address[0].split(":");
             try {
-                String hour = time[0];
-                String minute = time[1];
-                String street = address[1];
-
-                Landmark landmark = new Landmark(name, description, hour, minute, street);
-                if(landmark.getLocation() != null) {
-                    favoriteLandmarks.add(landmark);
-                }
+                int hour = Integer.parseInt(time[0]);
+                int minute = Integer.parseInt(time[1]);
+                builder.add(name, description, hour, minute, parseStreet(address[1]));
+                lines.add(line);
             } catch(Exception e) {
-                logger.warning(this.getClass(),"Error parsing favorite: " + line + "\n\t" + e.getStackTrace());
+                logger.warning(this.getClass(),"Error parsing favorite: " + line + "\n\t" + e.getMessage());
             }
         }
+        setFacilities(builder.build(false));
+        for(int i = 0; i < favoriteLandmarks.size(); i++) {
+            favoriteLines.put(favoriteLandmarks.get(i), lines.get(i));
+        }
+    }
+
+    /**
+     * Adds a favorite and logs it to the favorites file
+     *
+     * @param landmark Landmark
+     */
+    void addFavorite(Landmark landmark) {
+        String line = landmark.toStringForOutput();
+        favoriteLandmarks.add(landmark);
+        favoriteLines.put(landmark, line);
+        favoritesChanged();
+        if(favorites != null) {
+            favorites.put(line, "");
+            favorites.commit();
+        }
+    }
+
+    /**
+     * Removes a favorite and logs the removal to the favorites file
+     *
+     * @param landmark Landmark
+     * @return true if it was a favorite
+     */
+    boolean removeFavorite(Landmark landmark) {
+        if(!favoriteLandmarks.remove(landmark)) {
+            return false;
+        }
+        String line = favoriteLines.remove(landmark);
+        favoritesChanged();
+        if(favorites != null && line != null && !favoriteLines.containsValue(line)) {
+            favorites.remove(line);
+            favorites.commit();
+        }
+        return true;
+    }
+
+    /**
+     * Writes the favorites file and closes its log of changes
+     */
+    void closeFavorites() {
+        if(favorites != null) {
+            favorites.close();
+        }
+    }
+
+    /**
+     * Getter for the paths of the landmark files compiled into the dataset
+     * <p>
+     * Favorites are not included, as changes to them are logged rather than written to their file
+     *
+     * @return String array of relative paths
+     */
+    static String[] getSourcePaths() {
+        return new String[]{bathroomsPath, campsPath};
+    }
+
+    /**
+     * Populates bathrooms and camps from a compiled dataset
+     * <p>
+     * The nearest bathroom grid is read with them, or built if the dataset has none
+     *
+     * @param dataset Dataset
+     * @return true if both were read, otherwise the landmarks are unchanged
+     */
+    boolean readDataset(Dataset dataset) {
+        Dataset.Input bathroomSection = dataset.getSection("bathrooms");
+        Dataset.Input campSection = dataset.getSection("camps");
+        if(bathroomSection == null || campSection == null) {
+            return false;
+        }
+        try {
+            LocationStore datasetBathrooms = LocationStore.read(bathroomSection);
+            LocationStore datasetCamps = LocationStore.read(campSection);
+            bathrooms = datasetBathrooms;
+            bathroomIndex = null;
+            bathroomGrid = readGrid(dataset.getSection("bathroom-grid"), datasetBathrooms);
+            getBathroomGrid();
+            camps = datasetCamps;
+            campIndex = null;
+            campSearchIndex = null;
+            return true;
+        } catch(RuntimeException e) {
+            logger.warning(this.getClass(), "Invalid landmarks in dataset: " + e.getMessage());
+        }
+        return false;
+    }
+
+    /**
+     * Reads a nearest facility grid from a dataset section
+     *
+     * @param section Dataset.Input, may be null
+     * @param store   LocationStore the grid was built from
+     * @return FacilityGrid, or null if there is no grid or it is invalid
+     */
+    private FacilityGrid readGrid(Dataset.Input section, LocationStore store) {
+        if(section == null) {
+            return null;
+        }
+        try {
+            return FacilityGrid.read(section, store);
+        } catch(RuntimeException e) {
+            logger.warning(this.getClass(), "Invalid facility grid in dataset: " + e.getMessage());
+        }
+        return null;
+    }
+
+    /**
+     * Adds bathrooms and camps as read from file, and the nearest bathroom grid, to a dataset
+     *
+     * @param writer Dataset.Writer
+     */
+    void writeDataset(Dataset.Writer writer) {
+        bathrooms.write(writer.addSection("bathrooms"));
+        camps.write(writer.addSection("camps"));
+        FacilityGrid grid = getBathroomGrid();
+        if(grid != null) {
+            grid.write(writer.addSection("bathroom-grid"));
+        }
+    }
+
+    /**
+     * Replaces the facilities and resets the favorites to views over them
+     *
+     * @param facilities LocationStore
+     */
+    private void setFacilities(LocationStore facilities) {
+        this.facilities = facilities;
+        favoriteLandmarks.clear();
+        favoriteLines.clear();
+        for(int row = 0; row < facilities.size(); row++) {
+            favoriteLandmarks.add(facilities.getLandmark(row));
+        }
+        facilityIndex = null;
+        favoriteSearchIndex = null;
     }
 
 //**********************
@@ -230,7 +415,8 @@ class Landmarks {
      */
     @SuppressWarnings("unused")
     public void addBathroom(double latitude, double longitude) {
-        this.bathrooms.add(new Location(latitude, longitude));
+        Location location = new Location(latitude, longitude);
+        addBathroom(location.getHour(), location.getMinute(), location.getDistance());
     }
 
     /**
@@ -242,7 +428,9 @@ class Landmarks {
      */
     @SuppressWarnings("unused")
     public void addBathroom(int hour, int minute, int distance) {
-        this.bathrooms.add(new Location(hour, minute, distance));
+        this.bathrooms = new LocationStore.Builder(bathrooms).add("", null, hour, minute, distance).build(false);
+        bathroomIndex = null;
+        bathroomGrid = null;
     }
 
     /**
@@ -254,7 +442,7 @@ class Landmarks {
      */
     @SuppressWarnings("unused")
     public void addBathroom(int hour, int minute, char street) {
-        this.bathrooms.add(new Location(hour, minute, street));
+        addBathroom(hour, minute, Location.toDistance(street));
     }
 
     /**
@@ -265,7 +453,8 @@ class Landmarks {
      */
     @SuppressWarnings("unused")
     public void addCamp(String name, double latitude, double longitude) {
-        this.camps.put(name, new Location(latitude, longitude));
+        Location location = new Location(latitude, longitude);
+        addCamp(name, location.getHour(), location.getMinute(), location.getDistance());
     }
 
     /**
@@ -277,7 +466,9 @@ class Landmarks {
      */
     @SuppressWarnings("unused")
     public void addCamp(String name, int hour, int minute, int distance) {
-        this.camps.put(name, new Location(hour, minute, distance));
+        this.camps = new LocationStore.Builder(camps).add(name, null, hour, minute, distance).build(true);
+        campIndex = null;
+        campSearchIndex = null;
     }
 
     /**
@@ -289,7 +480,7 @@ class Landmarks {
      */
     @SuppressWarnings("unused")
     public void addCamp(String name, int hour, int minute, char street) {
-        this.camps.put(name, new Location(hour, minute, street));
+        addCamp(name, hour, minute, Location.toDistance(street));
     }
 
     /**
@@ -299,16 +490,20 @@ class Landmarks {
      * @return Location or null
      */
     Location getCamp(String exactCampName) {
-        Location camp = camps.get(exactCampName);
-        if(camp == null) {
-            return favorites.get(exactCampName);
-        } else {
-            return camp;
+        int row = camps.indexOf(exactCampName);
+        if(row >= 0) {
+            return camps.getLocation(row);
+        }
+        for(Landmark favorite : favoriteLandmarks) {
+            if(favorite.getName().equals(exactCampName)) {
+                return favorite.getLocation();
+            }
         }
+        return null;
     }
 
     /**
-     * Getter for favorites HashMap
+     * Getter for favorites
      *
      * @return favorites
      */
@@ -316,12 +511,23 @@ class Landmarks {
         return favoriteLandmarks;
     }
 
+    /**
+     * Getter for bathrooms
+     * <p>
+     * A new store is created whenever a bathroom is added
+     *
+     * @return LocationStore of bathrooms
+     */
+    LocationStore getBathrooms() {
+        return bathrooms;
+    }
+
     /**
      * Getter for camps
      *
-     * @return TreeMap of String-Locations
+     * @return LocationStore of camps sorted by name
      */
-    TreeMap<String, Location> getCamps() {
+    LocationStore getCamps() {
         return camps;
     }
 
@@ -330,36 +536,122 @@ class Landmarks {
 //**********************
 
     /**
-     * Finds the closest location to another location
+     * Returns the spatial index for a landmark type, building it if the landmarks have changed
      *
-     * @param locations       list of Locations
-     * @param currentLocation Location to compare
-     * @return closest Location
+     * @param type LandmarkType
+     * @return LandmarkIndex
      */
-    private Location findClosest(ArrayList<Location> locations, Location currentLocation) {
-        if(locations.isEmpty()) {
-            return null;
+    private LandmarkIndex getIndex(LandmarkType type) {
+        switch(type) {
+            case BATHROOM:
+                if(bathroomIndex == null) {
+                    bathroomIndex = new LandmarkIndex(bathrooms);
+                }
+                return bathroomIndex;
+            case CAMP:
+                if(campIndex == null) {
+                    campIndex = new LandmarkIndex(camps);
+                }
+                return campIndex;
+            default:
+                if(facilityIndex == null) {
+                    facilityIndex = new LandmarkIndex(LocationStore.of(favoriteLandmarks));
+                }
+                return facilityIndex;
         }
+    }
+
+    /**
+     * Returns the nearest bathroom grid, building it if the bathrooms have changed
+     *
+     * @return FacilityGrid, or null if there are no bathrooms or too many for a grid
+     */
+    private FacilityGrid getBathroomGrid() {
+        if(bathroomGrid == null && bathrooms.size() > 0 && bathrooms.size() < FacilityGrid.maximumFacilities) {
+            bathroomGrid = new FacilityGrid(bathrooms, Location.getStreetGrid());
+        }
+        return bathroomGrid;
+    }
+
+    /**
+     * Marks the favorites as modified so that the facility and favorite search indexes are rebuilt on the next query
+     */
+    void favoritesChanged() {
+        facilityIndex = null;
+        favoriteSearchIndex = null;
+    }
 
-        Location closestLocation = locations.get(0);
-        double closestDistance = Double.MAX_VALUE;
-        for(Location location : locations) {
-            double distance = currentLocation.distance(location);
-            if(distance < closestDistance) {
-                closestLocation = location;
-                closestDistance = distance;
+    /**
+     * Finds camps and favorites whose names match a query
+     * <p>
+     * Exact, prefix and substring matches rank first, then names within a small edit distance, each
+     * closest first. A favorite with the same name as a camp is only listed once.
+     *
+     * @param query           search term
+     * @param currentLocation Location distances are measured from
+     * @return ArrayList of String names, best first
+     */
+    ArrayList<String> searchNames(String query, Location currentLocation) {
+        if(campSearchIndex == null) {
+            campSearchIndex = new CampSearchIndex(camps);
+        }
+        if(favoriteSearchIndex == null) {
+            favoriteSearchIndex = new CampSearchIndex(LocationStore.of(favoriteLandmarks));
+        }
+        double x = currentLocation.getX();
+        double y = currentLocation.getY();
+        ArrayList<CampSearchIndex.Match> matches = campSearchIndex.search(query, x, y);
+        matches.addAll(favoriteSearchIndex.search(query, x, y));
+        matches.sort(null);
+
+        ArrayList<String> names = new ArrayList<>(matches.size());
+        HashSet<String> listed = new HashSet<>();
+        for(CampSearchIndex.Match match : matches) {
+            if(listed.add(match.name)) {
+                names.add(match.name);
             }
         }
-        return closestLocation;
+        return names;
+    }
+
+    /**
+     * Finds the closest landmarks of a type relative to a location
+     *
+     * @param type            LandmarkType
+     * @param currentLocation Location to compare
+     * @param count           maximum number of landmarks
+     * @return ArrayList of Landmarks, closest first
+     */
+    ArrayList<Landmark> findNearest(LandmarkType type, Location currentLocation, int count) {
+        return getIndex(type).nearest(currentLocation, count);
+    }
+
+    /**
+     * Finds all landmarks of a type within a distance of a location
+     *
+     * @param type            LandmarkType
+     * @param currentLocation Location to compare
+     * @param radius          distance in feet
+     * @return ArrayList of Landmarks, closest first
+     */
+    ArrayList<Landmark> findWithin(LandmarkType type, Location currentLocation, int radius) {
+        return getIndex(type).withinRadius(currentLocation, radius);
     }
 
     /**
      * Finds the closest bathroom relative to the current location
+     * <p>
+     * Read from the nearest bathroom grid, or the spatial index where the grid can't tell
      *
      * @param currentLocation current Location
-     * @return closest bathroom Location
+     * @return closest bathroom Location, or null if there are no bathrooms
      */
     Location findBathroom(Location currentLocation) {
-        return findClosest(bathrooms, currentLocation);
+        FacilityGrid grid = getBathroomGrid();
+        int row = grid == null ? -1 : grid.nearest(currentLocation.getX(), currentLocation.getY());
+        if(row >= 0) {
+            return bathrooms.getLocation(row);
+        }
+        return getIndex(LandmarkType.BATHROOM).nearestLocation(currentLocation);
     }
 }
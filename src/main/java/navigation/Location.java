@@ -26,29 +26,17 @@ public class Location {
     // Globals used for converting gps coordinates to addresses
     private static double man_latitude = 40.7864;
     private static double man_longitude = -119.2065;
-    private static Object[][] blockDistances = new Object[][] {
-            { 2300, "The Man"},
-            { 2700, "Esplanade"},
-            { 2950, "A"},
-            { 3200, "B"},
-            { 3450, "C"},
-            { 3700, "D"},
-            { 3900, "E"},
-            { 4100, "F"},
-            { 4300, "G"},
-            { 4500, "H"},
-            { 4650, "I"},
-            { 4800, "J"},
-            { 4950, "K"},
-            { 5100, "L"},
-            { 5250, "o" },
-    };
+    private static StreetGrid streetGrid = StreetGrid.DEFAULT;
 
     // Parameters for location
     private int hour;
     private int minute;
     private int distance;
 
+    // Cartesian position in feet relative to the man, updated whenever the address changes
+    private double x;
+    private double y;
+
     // Adjustment coefficients
     // Default 8.2 * Math.sin(0.035 * angle + 6.3) + 44.7;
     private static double[] adjustmentCoefficients = {8.2, 0.035, 6.3, 44.7};
@@ -97,19 +85,21 @@ public class Location {
     }
 
     /**
-     * Setter for block distances
-     * @param blockDistances object[][] of type Integer, String
+     * Setter for street grid
+     *
+     * @param streetGrid StreetGrid
      */
-    public static void setBlockDistances(Object[][] blockDistances) {
-        Location.blockDistances = blockDistances;
+    public static void setStreetGrid(StreetGrid streetGrid) {
+        Location.streetGrid = streetGrid;
     }
 
     /**
-     * Getter for block distances
-     * @return  object[][] of type Integer, String
+     * Getter for street grid
+     *
+     * @return StreetGrid
      */
-    public static Object[][] getBlockDistances() {
-        return blockDistances;
+    public static StreetGrid getStreetGrid() {
+        return streetGrid;
     }
 
     /**
@@ -131,16 +121,7 @@ public class Location {
      * @return double
      */
     static int toDistance(char streetChar) {
-        streetChar = Character.toUpperCase(streetChar);
-        if(streetChar < 65 || streetChar > 76) return 0;
-        String street = String.valueOf(streetChar);
-        int index = 1;
-        while(index < Location.blockDistances.length - 1 && !street.equals(Location.blockDistances[index][1])) {
-            index++;
-        }
-
-        int difference = (int) Location.blockDistances[index][0] - (int) Location.blockDistances[index + 1][0];
-        return (int) Location.blockDistances[index][0] + (difference / 2);
+        return streetGrid.toDistance(streetChar);
     }
 
     /**
@@ -152,15 +133,7 @@ public class Location {
      * @return char
      */
     public static String toStreet(int distance) {
-        String street = String.valueOf(distance);
-        int index = 0;
-        if(distance < ((int) blockDistances[blockDistances.length - 1][0])) {
-            while (index < blockDistances.length  - 1 && distance > ((int) blockDistances[index][0])) {
-                street = (String) blockDistances[index + 1][1];
-                index++;
-            }
-        }
-        return street;
+        return streetGrid.toStreet(distance);
     }
 
 //**********************
@@ -188,6 +161,7 @@ public class Location {
             distance = Integer.parseInt(split[2]);
         } catch(NumberFormatException ignored) {
         }
+        updateCartesian();
     }
 
     /**
@@ -215,6 +189,26 @@ public class Location {
         this.hour = hour;
         this.minute = minute;
         this.distance = distance;
+        updateCartesian();
+    }
+
+    /**
+     * Constructor
+     * <p>
+     * Creates a location object from time/distance with a precomputed cartesian position
+     *
+     * @param hour     hour
+     * @param minute   minute
+     * @param distance distance in feet
+     * @param x        x distance from the man in feet
+     * @param y        y distance from the man in feet
+     */
+    Location(int hour, int minute, int distance, double x, double y) {
+        this.hour = hour;
+        this.minute = minute;
+        this.distance = distance;
+        this.x = x;
+        this.y = y;
     }
 
     /**
@@ -230,6 +224,7 @@ public class Location {
         this.hour = hour;
         this.minute = minute;
         this.distance = toDistance(street);
+        updateCartesian();
     }
 
     /**
@@ -396,6 +391,7 @@ public class Location {
         this.hour = (int) time;
         this.minute = (int) ((time - hour) * 60);
         this.distance = distance(latitude, longitude);
+        updateCartesian();
     }
 
     /**
@@ -413,21 +409,44 @@ public class Location {
     }
 
     /**
-     * Calculates the X position from the man
+     * Recalculates the cartesian position from the current hour, minute and distance
+     */
+    private void updateCartesian() {
+        double angle = clockAngle();
+        this.x = distance * Math.sin(angle);
+        this.y = -1 * distance * Math.cos(angle);
+    }
+
+    /**
+     * Getter for the Y position from the man
+     *
+     * @return y distance in feet
+     */
+    double getY() {
+        return y;
+    }
+
+    /**
+     * Getter for the X position from the man
      *
      * @return x distance in feet
      */
-    private double getY() {
-        return -1 * distance * Math.cos(clockAngle());
+    double getX() {
+        return x;
     }
 
     /**
-     * Calculates the Y position from the man
+     * Calculates the squared distance to a landmark
+     * <p>
+     * Avoids the square root, for comparing distances
      *
-     * @return y distance in feet
+     * @param other Position of landmark
+     * @return squared distance in feet
      */
-    private double getX() {
-        return distance * Math.sin(clockAngle());
+    double distanceSquared(Location other) {
+        double deltaX = other.x - x;
+        double deltaY = other.y - y;
+        return deltaX * deltaX + deltaY * deltaY;
     }
 
     /**
@@ -440,20 +459,18 @@ public class Location {
         if(other == null) {
             return -1;
         }
-        double deltaX = other.getX() - getX();
-        double deltaY = other.getY() - getY();
-        return (int) Math.sqrt(Math.pow(deltaX, 2) + Math.pow(deltaY, 2));
+        return (int) Math.sqrt(distanceSquared(other));
     }
 
     /**
      * Calculates the bearing relative to another Position
      *
      * @param other Position of landmark
-     * @return bearing in degrees
+     * @return bearing in degrees clockwise from north, 0 to 359
      */
-    private int bearing(Location other) {
-        double deltaX = other.getX() - getX();
-        double deltaY = getY() - other.getY();
+    int bearing(Location other) {
+        double deltaX = other.x - x;
+        double deltaY = y - other.y;
         double angle = 180 * Math.atan2(deltaX, deltaY) / Math.PI;
         angle += calculateOffset(angle);
         if(angle < 0) {
@@ -492,6 +509,25 @@ public class Location {
         else return "north";
     }
 
+    /**
+     * Returns the bearing to another position relative to a direction of travel
+     *
+     * @param other   Position of landmark
+     * @param heading direction of travel in degrees clockwise from north
+     * @return direction as String, such as ahead or behind left
+     */
+    String relativeDirection(Location other, double heading) {
+        double angle = bearing(other) - heading;
+        angle -= 360 * Math.floor((angle + 180) / 360);
+        double magnitude = Math.abs(angle);
+        String side = angle < 0 ? "left" : "right";
+        if(magnitude < 22.5) return "ahead";
+        else if(magnitude < 67.5) return "ahead " + side;
+        else if(magnitude < 112.5) return side;
+        else if(magnitude < 157.5) return "behind " + side;
+        else return "behind";
+    }
+
     String toStringForOutput() {
         String minuteString = String.valueOf(minute);
         if(minuteString.length() < 2) {
@@ -0,0 +1,434 @@
+package navigation;
+
+import driver.Dataset;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Class LocationStore
+ * <p>
+ * Immutable columnar store for bulk landmark data
+ * <p>
+ * Addresses and cartesian positions are held in parallel primitive arrays, and names and descriptions
+ * are packed into single character blobs. Location and Landmark objects are only created on access.
+ *
+ * @author Brian Hooper
+ * @since 0.9.8
+ */
+class LocationStore {
+//**********************
+// Class member fields
+//**********************
+
+    // Empty store
+    static final LocationStore EMPTY = new Builder().build(false);
+
+    // Number of rows
+    private final int size;
+
+    // Address columns
+    private final int[] hours;
+    private final int[] minutes;
+    private final int[] distances;
+
+    // Cartesian position in feet relative to the man
+    private final float[] xs;
+    private final float[] ys;
+
+    // Packed names, row i spans [nameOffsets[i], nameOffsets[i + 1])
+    private final char[] names;
+    private final int[] nameOffsets;
+
+    // Packed descriptions, row i spans [descriptionOffsets[i], descriptionOffsets[i + 1])
+    private final char[] descriptions;
+    private final int[] descriptionOffsets;
+
+    // True if rows are in ascending name order with unique names
+    private final boolean sortedByName;
+
+//**********************
+// Constructors and initializers
+//**********************
+
+    /**
+     * Constructor
+     * <p>
+     * Private, stores are created with a Builder
+     */
+    private LocationStore(int size, int[] hours, int[] minutes, int[] distances, float[] xs, float[] ys,
+                          char[] names, int[] nameOffsets, char[] descriptions, int[] descriptionOffsets,
+                          boolean sortedByName) {
+        this.size = size;
+        this.hours = hours;
+        this.minutes = minutes;
+        this.distances = distances;
+        this.xs = xs;
+        this.ys = ys;
+        this.names = names;
+        this.nameOffsets = nameOffsets;
+        this.descriptions = descriptions;
+        this.descriptionOffsets = descriptionOffsets;
+        this.sortedByName = sortedByName;
+    }
+
+    /**
+     * Creates a store from a collection of landmarks, preserving their order
+     *
+     * @param landmarks Collection of Landmarks
+     * @return LocationStore
+     */
+    static LocationStore of(Collection<Landmark> landmarks) {
+        Builder builder = new Builder();
+        for(Landmark landmark : landmarks) {
+            Location location = landmark.getLocation();
+            if(location != null) {
+                builder.add(landmark.getName(), landmark.getDescription(),
+                        location.getHour(), location.getMinute(), location.getDistance());
+            }
+        }
+        return builder.build(false);
+    }
+
+    /**
+     * Reads a store written by write
+     *
+     * @param in Dataset.Input positioned at the store
+     * @return LocationStore
+     * @throws IllegalArgumentException if the columns are inconsistent
+     */
+    static LocationStore read(Dataset.Input in) {
+        int size = in.readInt();
+        int[] hours = in.readInts();
+        int[] minutes = in.readInts();
+        int[] distances = in.readInts();
+        float[] xs = in.readFloats();
+        float[] ys = in.readFloats();
+        char[] names = in.readChars();
+        int[] nameOffsets = in.readInts();
+        char[] descriptions = in.readChars();
+        int[] descriptionOffsets = in.readInts();
+        boolean sortedByName = in.readByte() != 0;
+        if(size < 0 || hours.length != size || minutes.length != size || distances.length != size ||
+                xs.length != size || ys.length != size || nameOffsets.length != size + 1 ||
+                descriptionOffsets.length != size + 1 || nameOffsets[size] != names.length ||
+                descriptionOffsets[size] != descriptions.length) {
+            throw new IllegalArgumentException("Inconsistent location store");
+        }
+        return new LocationStore(size, hours, minutes, distances, xs, ys, names, nameOffsets,
+                descriptions, descriptionOffsets, sortedByName);
+    }
+
+    /**
+     * Writes the columns of the store
+     *
+     * @param out Dataset.Output
+     */
+    void write(Dataset.Output out) {
+        out.writeInt(size);
+        out.writeInts(hours);
+        out.writeInts(minutes);
+        out.writeInts(distances);
+        out.writeFloats(xs);
+        out.writeFloats(ys);
+        out.writeChars(names);
+        out.writeInts(nameOffsets);
+        out.writeChars(descriptions);
+        out.writeInts(descriptionOffsets);
+        out.writeByte((byte) (sortedByName ? 1 : 0));
+    }
+
+//**********************
+// Getters and setters
+//**********************
+
+    /**
+     * Getter for size
+     *
+     * @return number of rows
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Getter for the name of a row
+     *
+     * @param row row index
+     * @return String name
+     */
+    String getName(int row) {
+        return new String(names, nameOffsets[row], nameOffsets[row + 1] - nameOffsets[row]);
+    }
+
+    /**
+     * Getter for the description of a row
+     *
+     * @param row row index
+     * @return String description
+     */
+    String getDescription(int row) {
+        return new String(descriptions, descriptionOffsets[row],
+                descriptionOffsets[row + 1] - descriptionOffsets[row]);
+    }
+
+    /**
+     * Getter for hour
+     *
+     * @param row row index
+     * @return hour
+     */
+    int getHour(int row) {
+        return hours[row];
+    }
+
+    /**
+     * Getter for minute
+     *
+     * @param row row index
+     * @return minute
+     */
+    int getMinute(int row) {
+        return minutes[row];
+    }
+
+    /**
+     * Getter for distance
+     *
+     * @param row row index
+     * @return distance in feet
+     */
+    int getDistance(int row) {
+        return distances[row];
+    }
+
+    /**
+     * Getter for the X position from the man
+     *
+     * @param row row index
+     * @return x distance in feet
+     */
+    float getX(int row) {
+        return xs[row];
+    }
+
+    /**
+     * Getter for the Y position from the man
+     *
+     * @param row row index
+     * @return y distance in feet
+     */
+    float getY(int row) {
+        return ys[row];
+    }
+
+    /**
+     * Creates a Location for a row
+     *
+     * @param row row index
+     * @return new Location object
+     */
+    Location getLocation(int row) {
+        return new Location(hours[row], minutes[row], distances[row], xs[row], ys[row]);
+    }
+
+    /**
+     * Creates a Landmark for a row
+     *
+     * @param row row index
+     * @return new Landmark object
+     */
+    Landmark getLandmark(int row) {
+        return new Landmark(getName(row), getDescription(row), getLocation(row));
+    }
+
+//**********************
+// Class methods
+//**********************
+
+    /**
+     * Finds the row with an exact name
+     * <p>
+     * Uses binary search if the store is sorted by name, otherwise a linear scan
+     *
+     * @param name exact name
+     * @return row index, or -1 if not found
+     */
+    int indexOf(String name) {
+        if(sortedByName) {
+            int lo = 0;
+            int hi = size - 1;
+            while(lo <= hi) {
+                int mid = (lo + hi) >>> 1;
+                int compare = compareName(mid, name);
+                if(compare < 0) {
+                    lo = mid + 1;
+                } else if(compare > 0) {
+                    hi = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+        } else {
+            for(int row = 0; row < size; row++) {
+                if(compareName(row, name) == 0) {
+                    return row;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Compares the name of a row to a String without creating a String
+     *
+     * @param row  row index
+     * @param name String to compare
+     * @return negative, zero or positive as with String.compareTo
+     */
+    private int compareName(int row, String name) {
+        int start = nameOffsets[row];
+        int length = nameOffsets[row + 1] - start;
+        int limit = Math.min(length, name.length());
+        for(int i = 0; i < limit; i++) {
+            char c = names[start + i];
+            char d = name.charAt(i);
+            if(c != d) {
+                return c - d;
+            }
+        }
+        return length - name.length();
+    }
+
+    /**
+     * Class Builder
+     * <p>
+     * Accumulates rows for a LocationStore
+     */
+    static class Builder {
+        private int size;
+        private int[] hours = new int[16];
+        private int[] minutes = new int[16];
+        private int[] distances = new int[16];
+        private int[] nameOffsets = new int[17];
+        private int[] descriptionOffsets = new int[17];
+        private final StringBuilder names = new StringBuilder();
+        private final StringBuilder descriptions = new StringBuilder();
+
+        /**
+         * Constructor
+         * <p>
+         * Creates an empty builder
+         */
+        Builder() {
+        }
+
+        /**
+         * Constructor
+         * <p>
+         * Creates a builder containing every row of an existing store
+         *
+         * @param store LocationStore to copy
+         */
+        Builder(LocationStore store) {
+            for(int row = 0; row < store.size; row++) {
+                add(store.getName(row), store.getDescription(row),
+                        store.hours[row], store.minutes[row], store.distances[row]);
+            }
+        }
+
+        /**
+         * Adds a row
+         *
+         * @param name        name, may be empty
+         * @param description description, may be null
+         * @param hour        hour
+         * @param minute      minute
+         * @param distance    distance in feet
+         * @return this Builder
+         */
+        Builder add(String name, String description, int hour, int minute, int distance) {
+            if(size == hours.length) {
+                int capacity = size * 2;
+                hours = Arrays.copyOf(hours, capacity);
+                minutes = Arrays.copyOf(minutes, capacity);
+                distances = Arrays.copyOf(distances, capacity);
+                nameOffsets = Arrays.copyOf(nameOffsets, capacity + 1);
+                descriptionOffsets = Arrays.copyOf(descriptionOffsets, capacity + 1);
+            }
+            hours[size] = hour;
+            minutes[size] = minute;
+            distances[size] = distance;
+            names.append(name);
+            if(description != null) {
+                descriptions.append(description);
+            }
+            size++;
+            nameOffsets[size] = names.length();
+            descriptionOffsets[size] = descriptions.length();
+            return this;
+        }
+
+        /**
+         * Creates the store
+         * <p>
+         * If sorted, rows are ordered by name and rows with a duplicate name keep only the last one added
+         *
+         * @param sortByName true to sort by name
+         * @return LocationStore
+         */
+        LocationStore build(boolean sortByName) {
+            Integer[] order = new Integer[size];
+            for(int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+            String[] rowNames = new String[size];
+            for(int i = 0; i < size; i++) {
+                rowNames[i] = names.substring(nameOffsets[i], nameOffsets[i + 1]);
+            }
+
+            int count = size;
+            if(sortByName) {
+                // Stable sort, so the last of several rows with the same name is last in its run
+                Arrays.sort(order, (a, b) -> rowNames[a].compareTo(rowNames[b]));
+                count = 0;
+                for(int i = 0; i < size; i++) {
+                    if(i + 1 < size && rowNames[order[i]].equals(rowNames[order[i + 1]])) {
+                        continue;
+                    }
+                    order[count++] = order[i];
+                }
+            }
+
+            int[] storeHours = new int[count];
+            int[] storeMinutes = new int[count];
+            int[] storeDistances = new int[count];
+            float[] storeXs = new float[count];
+            float[] storeYs = new float[count];
+            int[] storeNameOffsets = new int[count + 1];
+            int[] storeDescriptionOffsets = new int[count + 1];
+            StringBuilder storeNames = new StringBuilder(names.length());
+            StringBuilder storeDescriptions = new StringBuilder(descriptions.length());
+            for(int i = 0; i < count; i++) {
+                int row = order[i];
+                storeHours[i] = hours[row];
+                storeMinutes[i] = minutes[row];
+                storeDistances[i] = distances[row];
+                Location location = new Location(hours[row], minutes[row], distances[row]);
+                storeXs[i] = (float) location.getX();
+                storeYs[i] = (float) location.getY();
+                storeNames.append(rowNames[row]);
+                storeNameOffsets[i + 1] = storeNames.length();
+                storeDescriptions.append(descriptions, descriptionOffsets[row], descriptionOffsets[row + 1]);
+                storeDescriptionOffsets[i + 1] = storeDescriptions.length();
+            }
+
+            char[] nameBlob = new char[storeNames.length()];
+            storeNames.getChars(0, nameBlob.length, nameBlob, 0);
+            char[] descriptionBlob = new char[storeDescriptions.length()];
+            storeDescriptions.getChars(0, descriptionBlob.length, descriptionBlob, 0);
+            return new LocationStore(count, storeHours, storeMinutes, storeDistances, storeXs, storeYs,
+                    nameBlob, storeNameOffsets, descriptionBlob, storeDescriptionOffsets, sortByName);
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package navigation;
+
+/**
+ * Class MotionModel
+ * <p>
+ * Estimates walking or biking speed from recent positions, for times to reach places
+ * <p>
+ * Positions are kept in a fixed ring buffer covering the last 30 seconds, and the speed is the
+ * distance between the oldest and newest position over the time between them. Using the net distance
+ * rather than the path keeps gps jitter from looking like movement. Each position is added in
+ * constant time, dropping positions that left the window. Sources skip repeated positions and the
+ * position filter drops outliers, so the speed is measured up to the current time, as if still at the
+ * newest position: without new positions it falls to zero once the newest leaves the window. While
+ * stopped, times to reach places assume the pace of the last movement, or walking if there was none.
+ *
+ * @author Brian Hooper
+ * @since 0.9.8
+ */
+public class MotionModel {
+//**********************
+// Class member fields
+//**********************
+
+    /**
+     * How the current position is moving
+     */
+    public enum SpeedClass {
+        STATIONARY, WALKING, BIKING
+    }
+
+    // Number of positions kept, enough for the window at two positions per second
+    private static final int capacity = 64;
+
+    // Time span in milliseconds the speed is measured over
+    private static final long window = 30000;
+
+    // Milliseconds after the newest position before another is kept
+    private static final long minimumInterval = 500;
+
+    // Milliseconds of positions needed before the speed is measured
+    private static final long minimumSpan = 5000;
+
+    // Speeds in feet per second that separate standing, walking and biking
+    private static final double walkingSpeed = 1.5;
+    private static final double bikingSpeed = 7.5;
+
+    // Typical speeds in feet per second assumed while stopped, 3 mph walking and 10 mph biking
+    private static final double typicalWalkingSpeed = 4.4;
+    private static final double typicalBikingSpeed = 14.7;
+
+    // Ring buffer of times in milliseconds and positions in feet from the man
+    private final long[] times = new long[capacity];
+    private final double[] xs = new double[capacity];
+    private final double[] ys = new double[capacity];
+
+    // Index of the oldest position and number of positions kept
+    private int oldest = 0;
+    private int count = 0;
+
+    // Speed class of the last movement, used while stopped
+    private SpeedClass lastMoving = SpeedClass.WALKING;
+
+//**********************
+// Getters and setters
+//**********************
+
+    /**
+     * Getter for the speed over the 30 seconds before a time
+     * <p>
+     * Positions are assumed to stay at the newest until the time, and positions that left the window
+     * by then are ignored
+     *
+     * @param now current time in epoch milliseconds, times before the newest position count as it
+     * @return speed in feet per second, 0 until 5 seconds of positions are kept
+     */
+    public double getSpeed(long now) {
+        if(count == 0) {
+            return 0;
+        }
+        int newest = (oldest + count - 1) % capacity;
+        now = Math.max(now, times[newest]);
+
+        // Oldest position still within the window, or the newest once all have left it
+        int first = oldest;
+        for(int remaining = count; remaining > 1 && now - times[(first + 1) % capacity] >= window; remaining--) {
+            first = (first + 1) % capacity;
+        }
+        long span = now - times[first];
+        if(span < minimumSpan) {
+            return 0;
+        }
+        double deltaX = xs[newest] - xs[first];
+        double deltaY = ys[newest] - ys[first];
+        return Math.sqrt(deltaX * deltaX + deltaY * deltaY) * 1000 / span;
+    }
+
+    /**
+     * Getter for how the current position is moving
+     *
+     * @param now current time in epoch milliseconds
+     * @return SpeedClass
+     */
+    public SpeedClass getSpeedClass(long now) {
+        return classify(getSpeed(now));
+    }
+
+    /**
+     * Getter for the speed times to reach places assume
+     * <p>
+     * The current speed while moving, otherwise the typical speed of the last movement
+     *
+     * @param now current time in epoch milliseconds
+     * @return speed in feet per second
+     */
+    public double getTravelSpeed(long now) {
+        double speed = getSpeed(now);
+        if(classify(speed) != SpeedClass.STATIONARY) {
+            return speed;
+        }
+        return lastMoving == SpeedClass.BIKING ? typicalBikingSpeed : typicalWalkingSpeed;
+    }
+
+    /**
+     * Getter for the way of travel times to reach places assume
+     *
+     * @return SpeedClass WALKING or BIKING
+     */
+    public SpeedClass getTravelClass() {
+        return lastMoving;
+    }
+
+//**********************
+// Class methods
+//**********************
+
+    /**
+     * Adds a position
+     * <p>
+     * Positions less than half a second after the newest are skipped, and positions older than the
+     * newest restart the model
+     *
+     * @param time time of the position in epoch milliseconds
+     * @param x    x distance from the man in feet
+     * @param y    y distance from the man in feet
+     */
+    public void add(long time, double x, double y) {
+        if(count > 0) {
+            long newestTime = times[(oldest + count - 1) % capacity];
+            if(time < newestTime) {
+                count = 0;
+            } else if(time - newestTime < minimumInterval) {
+                return;
+            }
+        }
+
+        if(count == capacity) {
+            oldest = (oldest + 1) % capacity;
+            count--;
+        }
+        int index = (oldest + count) % capacity;
+        times[index] = time;
+        xs[index] = x;
+        ys[index] = y;
+        count++;
+
+        // Drop positions that left the window, keeping the oldest within it
+        while(count > 2 && time - times[(oldest + 1) % capacity] >= window) {
+            oldest = (oldest + 1) % capacity;
+            count--;
+        }
+
+        SpeedClass speedClass = getSpeedClass(time);
+        if(speedClass != SpeedClass.STATIONARY) {
+            lastMoving = speedClass;
+        }
+    }
+
+    /**
+     * Formats the time to travel a distance, such as 4 min walk or 1 h 5 min by bike
+     *
+     * @param distance    distance in feet
+     * @param speed       speed in feet per second
+     * @param travelClass SpeedClass WALKING or BIKING
+     * @return String time
+     */
+    public static String formatTime(int distance, double speed, SpeedClass travelClass) {
+        int minutes = Math.max(1, (int) Math.ceil(distance / speed / 60));
+        String time = minutes < 60 ? minutes + " min" : minutes / 60 + " h " + minutes % 60 + " min";
+        return time + (travelClass == SpeedClass.BIKING ? " by bike" : " walk");
+    }
+
+    /**
+     * Computes the time to travel a distance
+     *
+     * @param distance distance in feet
+     * @param speed    speed in feet per second
+     * @return time in whole seconds, rounded up
+     */
+    public static int travelSeconds(int distance, double speed) {
+        return (int) Math.ceil(distance / speed);
+    }
+
+    /**
+     * Classifies a speed
+     *
+     * @param speed speed in feet per second
+     * @return SpeedClass
+     */
+    private static SpeedClass classify(double speed) {
+        if(speed < walkingSpeed) {
+            return SpeedClass.STATIONARY;
+        }
+        return speed < bikingSpeed ? SpeedClass.WALKING : SpeedClass.BIKING;
+    }
+}
@@ -0,0 +1,387 @@
+package navigation;
+
+import java.util.TreeMap;
+
+/**
+ * Class NavigationSnapshot
+ * <p>
+ * Immutable set of the addresses and directions shown on the main panel
+ * <p>
+ * Navigator reuses a snapshot until the current location moves past a threshold or home, the
+ * destination or the street grid change. Fields that were not recomputed keep the same String
+ * instances, so consumers can detect unchanged fields with a reference comparison. Each place also has
+ * a Measurement of the same distance, bearing and time as numbers, for displays that format their own.
+ *
+ * @author Brian Hooper
+ * @since 0.9.8
+ */
+public class NavigationSnapshot {
+    // Current position
+    private final String currentAddress;
+
+    // Nearest bathroom, null if there are no bathrooms
+    private final String bathroomAddress;
+    private final String bathroomDirections;
+    private final String bathroomEta;
+    private final Measurement bathroomMeasurement;
+
+    // Home camp
+    private final String homeAddress;
+    private final String homeDirections;
+    private final String homeEta;
+    private final Measurement homeMeasurement;
+
+    // Current destination
+    private final String destinationName;
+    private final String destinationAddress;
+    private final String destinationDirections;
+    private final String destinationEta;
+    private final String destinationRoute;
+    private final Measurement destinationMeasurement;
+
+    /**
+     * Constructor
+     *
+     * @param currentAddress         current address
+     * @param bathroomAddress        nearest bathroom address, may be null
+     * @param bathroomDirections     directions to nearest bathroom, may be null
+     * @param bathroomEta            time to reach the nearest bathroom, may be null
+     * @param bathroomMeasurement    Measurement to the nearest bathroom, may be null
+     * @param homeAddress            home address
+     * @param homeDirections         directions to home
+     * @param homeEta                time to reach home
+     * @param homeMeasurement        Measurement to home
+     * @param destinationName        destination name
+     * @param destinationAddress     destination address
+     * @param destinationDirections  directions to destination
+     * @param destinationEta         time to reach the destination
+     * @param destinationRoute       distance by street and next turn to the destination, may be null
+     * @param destinationMeasurement Measurement to the destination
+     */
+    NavigationSnapshot(String currentAddress, String bathroomAddress, String bathroomDirections, String bathroomEta,
+                       Measurement bathroomMeasurement, String homeAddress, String homeDirections, String homeEta,
+                       Measurement homeMeasurement, String destinationName, String destinationAddress,
+                       String destinationDirections, String destinationEta, String destinationRoute,
+                       Measurement destinationMeasurement) {
+        this.currentAddress = currentAddress;
+        this.bathroomAddress = bathroomAddress;
+        this.bathroomDirections = bathroomDirections;
+        this.bathroomEta = bathroomEta;
+        this.bathroomMeasurement = bathroomMeasurement;
+        this.homeAddress = homeAddress;
+        this.homeDirections = homeDirections;
+        this.homeEta = homeEta;
+        this.homeMeasurement = homeMeasurement;
+        this.destinationName = destinationName;
+        this.destinationAddress = destinationAddress;
+        this.destinationDirections = destinationDirections;
+        this.destinationEta = destinationEta;
+        this.destinationRoute = destinationRoute;
+        this.destinationMeasurement = destinationMeasurement;
+    }
+
+//**********************
+// Getters and setters
+//**********************
+
+    /**
+     * Getter for current address
+     *
+     * @return String address
+     */
+    public String getCurrentAddress() {
+        return currentAddress;
+    }
+
+    /**
+     * Getter for nearest bathroom address
+     *
+     * @return String address, null if there are no bathrooms
+     */
+    public String getBathroomAddress() {
+        return bathroomAddress;
+    }
+
+    /**
+     * Getter for directions to the nearest bathroom
+     *
+     * @return String directions, null if there are no bathrooms
+     */
+    public String getBathroomDirections() {
+        return bathroomDirections;
+    }
+
+    /**
+     * Getter for the time to reach the nearest bathroom
+     *
+     * @return String time, such as 4 min walk, null if there are no bathrooms
+     */
+    public String getBathroomEta() {
+        return bathroomEta;
+    }
+
+    /**
+     * Getter for the distance, bearing and time to the nearest bathroom
+     *
+     * @return Measurement, null if there are no bathrooms
+     */
+    public Measurement getBathroomMeasurement() {
+        return bathroomMeasurement;
+    }
+
+    /**
+     * Getter for home address
+     *
+     * @return String address
+     */
+    public String getHomeAddress() {
+        return homeAddress;
+    }
+
+    /**
+     * Getter for directions to home
+     *
+     * @return String directions
+     */
+    public String getHomeDirections() {
+        return homeDirections;
+    }
+
+    /**
+     * Getter for the time to reach home
+     *
+     * @return String time, such as 4 min walk
+     */
+    public String getHomeEta() {
+        return homeEta;
+    }
+
+    /**
+     * Getter for the distance, bearing and time to home
+     *
+     * @return Measurement
+     */
+    public Measurement getHomeMeasurement() {
+        return homeMeasurement;
+    }
+
+    /**
+     * Getter for destination name
+     *
+     * @return String name
+     */
+    public String getDestinationName() {
+        return destinationName;
+    }
+
+    /**
+     * Getter for destination address
+     *
+     * @return String address, null if there is no destination
+     */
+    public String getDestinationAddress() {
+        return destinationAddress;
+    }
+
+    /**
+     * Getter for directions to the destination
+     *
+     * @return String directions, null if there is no destination
+     */
+    public String getDestinationDirections() {
+        return destinationDirections;
+    }
+
+    /**
+     * Getter for the time to reach the destination
+     *
+     * @return String time, such as 4 min walk, null if there is no destination
+     */
+    public String getDestinationEta() {
+        return destinationEta;
+    }
+
+    /**
+     * Getter for the distance by street and next turn to the destination
+     *
+     * @return String route, such as 3652 ft by street, 2827 ft, turn left onto 7:30 at 7:30 &amp; D, null if
+     * there is no destination or the route is not known yet
+     */
+    public String getDestinationRoute() {
+        return destinationRoute;
+    }
+
+    /**
+     * Getter for the distance, bearing and time to the destination
+     *
+     * @return Measurement, null if there is no destination
+     */
+    public Measurement getDestinationMeasurement() {
+        return destinationMeasurement;
+    }
+
+//**********************
+// Class methods
+//**********************
+
+    /**
+     * Converts to the field name/value map used by getPanelUpdate
+     * <p>
+     * Null fields are omitted
+     *
+     * @return TreeMap (String, String)
+     */
+    TreeMap<String, String> toMap() {
+        TreeMap<String, String> map = new TreeMap<>();
+        map.put("currentAddress", currentAddress);
+        if(bathroomAddress != null) {
+            map.put("bathroomAddress", bathroomAddress);
+            map.put("bathroomDirections", bathroomDirections);
+            map.put("bathroomEta", bathroomEta);
+        }
+        map.put("homeAddress", homeAddress);
+        map.put("homeDirections", homeDirections);
+        map.put("homeEta", homeEta);
+        if(destinationAddress != null) {
+            map.put("destinationName", destinationName);
+            map.put("destinationAddress", destinationAddress);
+            map.put("destinationDirections", destinationDirections);
+            map.put("destinationEta", destinationEta);
+            if(destinationRoute != null) {
+                map.put("destinationRoute", destinationRoute);
+            }
+        }
+        return map;
+    }
+
+    /**
+     * Converts to a JSON object
+     * <p>
+     * Null fields are written as null. Each place has Distance, Bearing and EtaSeconds number fields
+     * after its Eta, such as homeDistance, homeBearing and homeEtaSeconds.
+     *
+     * @return String JSON
+     */
+    public String toJson() {
+        StringBuilder json = new StringBuilder(256);
+        json.append('{');
+        appendField(json, "currentAddress", currentAddress).append(',');
+        appendField(json, "bathroomAddress", bathroomAddress).append(',');
+        appendField(json, "bathroomDirections", bathroomDirections).append(',');
+        appendField(json, "bathroomEta", bathroomEta).append(',');
+        appendMeasurement(json, "bathroom", bathroomMeasurement).append(',');
+        appendField(json, "homeAddress", homeAddress).append(',');
+        appendField(json, "homeDirections", homeDirections).append(',');
+        appendField(json, "homeEta", homeEta).append(',');
+        appendMeasurement(json, "home", homeMeasurement).append(',');
+        appendField(json, "destinationName", destinationName).append(',');
+        appendField(json, "destinationAddress", destinationAddress).append(',');
+        appendField(json, "destinationDirections", destinationDirections).append(',');
+        appendField(json, "destinationEta", destinationEta).append(',');
+        appendField(json, "destinationRoute", destinationRoute).append(',');
+        appendMeasurement(json, "destination", destinationMeasurement);
+        return json.append('}').toString();
+    }
+
+    /**
+     * Appends a JSON name and string value
+     *
+     * @param json  StringBuilder
+     * @param name  field name
+     * @param value String value, may be null
+     * @return the StringBuilder
+     */
+    private static StringBuilder appendField(StringBuilder json, String name, String value) {
+        json.append('"').append(name).append("\":");
+        if(value == null) {
+            return json.append("null");
+        }
+        json.append('"');
+        for(int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if(c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else if(c < 0x20) {
+                json.append(String.format("\\u%04x", (int) c));
+            } else {
+                json.append(c);
+            }
+        }
+        return json.append('"');
+    }
+
+    /**
+     * Appends the JSON number fields of a Measurement
+     *
+     * @param json        StringBuilder
+     * @param place       prefix of the field names
+     * @param measurement Measurement, may be null
+     * @return the StringBuilder
+     */
+    private static StringBuilder appendMeasurement(StringBuilder json, String place, Measurement measurement) {
+        if(measurement == null) {
+            return json.append('"').append(place).append("Distance\":null,\"").append(place)
+                    .append("Bearing\":null,\"").append(place).append("EtaSeconds\":null");
+        }
+        return json.append('"').append(place).append("Distance\":").append(measurement.distance)
+                .append(",\"").append(place).append("Bearing\":").append(measurement.bearing)
+                .append(",\"").append(place).append("EtaSeconds\":").append(measurement.etaSeconds);
+    }
+
+    /**
+     * Class Measurement
+     * <p>
+     * Distance, bearing and time to a place from the snapshot location, the numbers behind its
+     * directions and time Strings
+     */
+    public static class Measurement {
+        // Straight line distance in feet
+        private final int distance;
+
+        // Bearing in degrees clockwise from north, as used for the cardinal direction
+        private final int bearing;
+
+        // Time to reach the place in seconds, by street if the destination has a route
+        private final int etaSeconds;
+
+        /**
+         * Constructor
+         *
+         * @param distance   distance in feet
+         * @param bearing    bearing in degrees
+         * @param etaSeconds time in seconds
+         */
+        Measurement(int distance, int bearing, int etaSeconds) {
+            this.distance = distance;
+            this.bearing = bearing;
+            this.etaSeconds = etaSeconds;
+        }
+
+        /**
+         * Getter for the distance
+         *
+         * @return straight line distance in feet
+         */
+        public int getDistance() {
+            return distance;
+        }
+
+        /**
+         * Getter for the bearing
+         *
+         * @return degrees clockwise from north, 0 to 359
+         */
+        public int getBearing() {
+            return bearing;
+        }
+
+        /**
+         * Getter for the time to reach the place
+         *
+         * @return seconds at the snapshot pace
+         */
+        public int getEtaSeconds() {
+            return etaSeconds;
+        }
+    }
+}
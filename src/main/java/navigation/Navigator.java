@@ -1,19 +1,18 @@
 package navigation;
 
 import driver.ClockDriver;
-import driver.FileManager;
 import driver.LogDriver;
+import driver.PersistentStore;
 import events.Event;
 import events.EventManager;
 import events.NoteManager;
 
-import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
-import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Properties;
+import java.util.Arrays;
+import java.util.Objects;
 import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 
 /**
@@ -42,16 +41,27 @@ public class Navigator {
     private Location currentDestination;
     private String currentDestinationName;
 
-    // File manager for reading/writing properties
-    private Properties properties;
+    // Config file and log of changes
+    private PersistentStore config;
 
     // Current location
     private final Location currentLocation;
 
-    // Managers for camps, favorites, events, notes
-    private final Landmarks landmarks;
-    private final EventManager eventManager;
-    private final NoteManager noteManager;
+    // Smooths fixes before they update the current location, null if disabled
+    private final PositionFilter positionFilter;
+
+    // Recent positions, for the speed times to reach places assume
+    private final MotionModel motionModel = new MotionModel();
+
+    // Street routes, built in the background for the street grid they were built for
+    private CompletableFuture<StreetRouter> streetRouter;
+    private StreetGrid routerGrid;
+
+    // Actions run each time street routes finish building, guarded by this
+    private final ArrayList<Runnable> routeListeners = new ArrayList<>();
+
+    // Loads the managers for camps, favorites, events and notes in the background
+    private final StartupLoader loader;
 
     // Logger
     private static final LogDriver logger = LogDriver.getInstance();
@@ -59,6 +69,36 @@ public class Navigator {
     // Start and stop locations for measuring distance
     private Location measureStart, measureStop;
 
+    // Last computed panel snapshot, null until first requested
+    private NavigationSnapshot snapshot;
+
+    // Position, landmarks, home, destination and street grid the snapshot was computed for
+    private Location snapshotLocation;
+    private LocationStore snapshotBathrooms;
+    private Location snapshotBathroom;
+    private StreetRouter snapshotRouter;
+    private StreetRouter.Route snapshotRoute;
+    private Location snapshotHome;
+    private Location snapshotDestination;
+    private String snapshotDestinationName;
+    private StreetGrid snapshotStreetGrid;
+
+    // Heading directions in the snapshot are relative to, NaN if unknown
+    private double snapshotHeading = Double.NaN;
+
+    // Speed in feet per second and way of travel times in the snapshot assume
+    private double snapshotTravelSpeed;
+    private MotionModel.SpeedClass snapshotTravelClass;
+
+    // Distance in feet the current location must move before the snapshot is recomputed
+    private int movementThreshold = 10;
+
+    // Degrees the heading must turn before directions in the snapshot are recomputed
+    private static final double headingThreshold = 22.5;
+
+    // Share the travel speed must change by before times in the snapshot are recomputed
+    private static final double paceThreshold = 0.2;
+
 //**********************
 // Constructors and initializers
 //**********************
@@ -69,63 +109,81 @@ public class Navigator {
      * initializes current location, landmarks, home, destination
      */
     public Navigator() {
-        landmarks = new Landmarks();
-
         currentLocation = new Location(6, 0, 'D');
         home = new Location(6, 0, 'D');
 
         currentDestination = home;
         currentDestinationName = "";
 
-        readLandmarks();
+        // Config is small and needed for the first snapshot, landmarks and events load in the background
         readConfig();
-        noteManager = new NoteManager();
-        eventManager = new EventManager();
+        positionFilter = createPositionFilter();
+        loader = new StartupLoader(getDatasetSignature());
+        getStreetRouter(Location.getStreetGrid());
+    }
+
+    /**
+     * Creates the position filter from the config file
+     * <p>
+     * POSITION-FILTER set to off passes fixes through unchanged. POSITION-FILTER-ALPHA and
+     * POSITION-FILTER-BETA set the filter gains, and POSITION-MAX-SPEED the fastest believable speed in
+     * feet per second, beyond which fixes are rejected
+     *
+     * @return PositionFilter, or null if disabled
+     */
+    private PositionFilter createPositionFilter() {
+        if(config.get("POSITION-FILTER", "on").trim().equalsIgnoreCase("off")) {
+            return null;
+        }
+        try {
+            return new PositionFilter(Double.parseDouble(config.get("POSITION-FILTER-ALPHA", "0.4")),
+                    Double.parseDouble(config.get("POSITION-FILTER-BETA", "0.08")),
+                    Double.parseDouble(config.get("POSITION-MAX-SPEED", "45")));
+        } catch(IllegalArgumentException e) {
+            logger.warning(this.getClass(), "Invalid position filter settings, using defaults: " + e.getMessage());
+            return new PositionFilter(0.4, 0.08, 45);
+        }
+    }
 
+    /**
+     * Getter for the settings landmark positions depend on
+     * <p>
+     * Streets given as letters depend on the street grid, and coordinates on the calibration
+     *
+     * @return String signature
+     */
+    private static String getDatasetSignature() {
+        return Location.getStreetGrid().toConfigString() + '|' + Location.getMan_latitude() + ',' +
+                Location.getMan_longitude() + '|' + Arrays.toString(Location.getAdjustmentCoefficients());
     }
 
     /**
      * Reads configuration file
+     * <p>
+     * Changes logged since the file was written are replayed
      */
     private void readConfig() {
-        properties = new Properties();
-        try {
-            properties.load(new FileInputStream(new File(configPath)));
-        } catch(IOException e) {
-            logger.severe(this.getClass(),
-                    "Error reading configuration file \'" + configPath + "\': " + e.getMessage());
-            return;
-        }
+        config = new PersistentStore(configPath, PersistentStore.properties());
 
         try {
-            if(properties.containsKey("MAN-LATITUDE") && properties.containsKey("MAN-LONGITUDE"))
-                Location.setManCoordinates(Double.parseDouble((String) properties.get("MAN-LATITUDE")),
-                        Double.parseDouble((String) properties.get("MAN-LONGITUDE")));
-            if(properties.containsKey("ADJUSTMENT-COEFFICIENTS")) {
-                String[] split = ((String) properties.get("ADJUSTMENT-COEFFICIENTS")).split(",");
+            if(config.get("MAN-LATITUDE") != null && config.get("MAN-LONGITUDE") != null)
+                Location.setManCoordinates(Double.parseDouble(config.get("MAN-LATITUDE")),
+                        Double.parseDouble(config.get("MAN-LONGITUDE")));
+            if(config.get("ADJUSTMENT-COEFFICIENTS") != null) {
+                String[] split = config.get("ADJUSTMENT-COEFFICIENTS").split(",");
                 Location.setAdjustmentCoefficients(Double.parseDouble(split[0]), Double.parseDouble(split[1]),
                         Double.parseDouble(split[2]), Double.parseDouble(split[3]));
             }
-            if(properties.containsKey("EVENT-START-TIME"))
-                Event.setGlobalEventStartTime(properties.getProperty("EVENT-START-TIME"));
-            if(properties.containsKey("CURRENT-DESTINATION-NAME"))
-                currentDestinationName = properties.getProperty("CURRENT-DESTINATION-NAME");
-            if(properties.containsKey("CURRENT-DESTINATION-ADDRESS"))
-                currentDestination = new Location(properties.getProperty("CURRENT-DESTINATION-ADDRESS"));
-            if(properties.containsKey("BLOCK-DISTANCES")) {
-                String blockDistanceStr = properties.getProperty("BLOCK-DISTANCES");
-                String[] blockDistances = blockDistanceStr.split(";");
-                Object[][] blockDistanceObjects = new Object[blockDistances.length][2];
-                for(int i = 0; i < blockDistances.length; i++) {
-                    String[] block = blockDistances[i].split(",");
-                    if(block.length == 2) {
-                        blockDistanceObjects[i][0] = Integer.parseInt(block[0]);
-                        blockDistanceObjects[i][1] = block[1];
-                    }
-                }
-                Location.setBlockDistances(blockDistanceObjects);
-
-            }
+            if(config.get("EVENT-START-TIME") != null)
+                Event.setGlobalEventStartTime(config.get("EVENT-START-TIME"));
+            if(config.get("CURRENT-DESTINATION-NAME") != null)
+                currentDestinationName = config.get("CURRENT-DESTINATION-NAME");
+            if(config.get("CURRENT-DESTINATION-ADDRESS") != null)
+                currentDestination = new Location(config.get("CURRENT-DESTINATION-ADDRESS"));
+            if(config.get("MOVEMENT-THRESHOLD") != null)
+                movementThreshold = Integer.parseInt(config.get("MOVEMENT-THRESHOLD"));
+            if(config.get("BLOCK-DISTANCES") != null)
+                Location.setStreetGrid(StreetGrid.parse(config.get("BLOCK-DISTANCES")));
         } catch(NumberFormatException | ArrayIndexOutOfBoundsException e) {
             logger.warning(this.getClass(),
                     "NumberFormatException while reading config file: " + e.getMessage());
@@ -134,66 +192,155 @@ public class Navigator {
 
     /**
      * Writes configuration to file
+     * <p>
+     * Only changed values are appended to the log of changes, which is synced once
      */
     public void writeToConfigFile() {
-        if(properties == null) {
-            return;
-        }
-
-        properties.put("MAN-LATITUDE", String.valueOf(Location.getMan_latitude()));
-        properties.put("MAN-LONGITUDE", String.valueOf(Location.getMan_longitude()));
-        properties.put("CURRENT-DESTINATION-NAME", currentDestinationName);
-        properties.put("CURRENT-DESTINATION-ADDRESS", currentDestination.getCSVAddress());
-        properties.put("EVENT-START-TIME", ClockDriver.dfFull.format(Event.globalEventStartTime));
+        config.put("MAN-LATITUDE", String.valueOf(Location.getMan_latitude()));
+        config.put("MAN-LONGITUDE", String.valueOf(Location.getMan_longitude()));
+        config.put("CURRENT-DESTINATION-NAME", currentDestinationName);
+        config.put("CURRENT-DESTINATION-ADDRESS", currentDestination.getCSVAddress());
+        config.put("EVENT-START-TIME", ClockDriver.dfFull.format(Event.globalEventStartTime));
         double[] coefficients = Location.getAdjustmentCoefficients();
         String adjustmentCoefficients = String.valueOf(coefficients[0]) + ',' +
                 String.valueOf(coefficients[1]) + ',' + String.valueOf(coefficients[2]) + ',' +
                 String.valueOf(coefficients[3]);
-        properties.put("ADJUSTMENT-COEFFICIENTS", adjustmentCoefficients);
-        StringBuilder blockStringBuilder = new StringBuilder();
-        for(Object[] block : Location.getBlockDistances()) {
-            if(block.length == 2) {
-                blockStringBuilder.append(block[0]);
-                blockStringBuilder.append(',');
-                blockStringBuilder.append(block[1]);
-                blockStringBuilder.append(';');
-            }
-        }
-        properties.put("BLOCK-DISTANCES", blockStringBuilder.toString());
+        config.put("ADJUSTMENT-COEFFICIENTS", adjustmentCoefficients);
+        config.put("BLOCK-DISTANCES", Location.getStreetGrid().toConfigString());
+        config.commit();
+    }
+
+    /**
+     * Adds a favorite, logging it to the favorites file
+     *
+     * @param landmark Landmark
+     */
+    public void addFavorite(Landmark landmark) {
+        getLandmarks().addFavorite(landmark);
+    }
+
+    /**
+     * Removes a favorite, logging the removal to the favorites file
+     *
+     * @param landmark Landmark
+     */
+    public void removeFavorite(Landmark landmark) {
+        getLandmarks().removeFavorite(landmark);
+    }
 
+    /**
+     * Writes config, favorites and notes to their files and closes their logs of changes
+     * <p>
+     * Favorites and notes are skipped if they failed to load, so their files are not overwritten
+     */
+    public void close() {
+        writeToConfigFile();
+        config.close();
+        Landmarks landmarks = getLoadedLandmarks();
+        if(landmarks != null) {
+            landmarks.closeFavorites();
+        } else {
+            logger.warning(this.getClass(), "Favorites were not loaded, not writing " + favoritesPath);
+        }
         try {
-            properties.store(new FileOutputStream(configPath), "");
-        } catch(IOException e) {
-            logger.warning(this.getClass(),
-                    "IOException while writing to config file \'" + configPath + "\': " + e.getMessage());
+            getNoteManager().close();
+        } catch(CompletionException e) {
+            logger.warning(this.getClass(), "Notes were not loaded, not writing notes");
         }
     }
 
     /**
-     * Outputs favorites to a CSV file
+     * Waits until landmarks, events and notes have loaded
      */
-    public void writeFavorites() {
-        ArrayList<String> favorites = new ArrayList<>();
-        for(Landmark landmark : landmarks.getFavorites()) {
-            favorites.add(landmark.toStringForOutput());
-        }
-        FileManager.writeLines(favoritesPath, favorites);
+    public void awaitLoaded() {
+        CompletableFuture.allOf(loader.getLandmarks(), loader.getEvents(), loader.getNotes())
+                .handle((result, e) -> null).join();
     }
 
     /**
-     * Reads landmarks from csv files
+     * Runs an action once landmarks, events and notes have loaded or failed to load
+     * <p>
+     * The action runs on a loader thread, or on the calling thread if loading has finished
+     *
+     * @param action Runnable
      */
-    private void readLandmarks() {
-        landmarks.readBathrooms();
-        landmarks.readCampsTSV();
-        landmarks.readFavoritesTSV();
-        System.out.println();
+    public void whenLoaded(Runnable action) {
+        CompletableFuture.allOf(loader.getLandmarks(), loader.getEvents(), loader.getNotes())
+                .whenComplete((result, e) -> action.run());
+    }
+
+    /**
+     * Runs an action each time street routes finish building, so the destination route can be shown
+     * <p>
+     * The action runs once on a pool thread for the routes being built, or already built, and again
+     * for each rebuild after the street grid changes
+     *
+     * @param action Runnable
+     */
+    public synchronized void whenRoutesBuilt(Runnable action) {
+        routeListeners.add(action);
+        streetRouter.thenRunAsync(action);
     }
 
 //**********************
 // Getters and setters
 //**********************
 
+    /**
+     * Getter for landmarks, waiting until they have loaded
+     *
+     * @return Landmarks
+     */
+    private Landmarks getLandmarks() {
+        return loader.getLandmarks().join();
+    }
+
+    /**
+     * Getter for the street router if it has been built for a street grid
+     * <p>
+     * Starts building it in the background if it was built for another grid. Called from the constructor
+     * or with the lock held, so each action added by whenRoutesBuilt is attached to each build once.
+     *
+     * @param streetGrid StreetGrid
+     * @return StreetRouter, or null if it is being built or failed to build
+     */
+    private StreetRouter getStreetRouter(StreetGrid streetGrid) {
+        if(streetGrid != routerGrid) {
+            routerGrid = streetGrid;
+            streetRouter = CompletableFuture.supplyAsync(() -> new StreetRouter(streetGrid));
+            streetRouter.whenComplete((result, e) -> {
+                if(e != null) {
+                    logger.severe(Navigator.class, "Unable to build street routes: " + e.getMessage());
+                }
+            });
+            for(Runnable listener : routeListeners) {
+                streetRouter.thenRunAsync(listener);
+            }
+        }
+        return streetRouter.isDone() && !streetRouter.isCompletedExceptionally() ? streetRouter.join() : null;
+    }
+
+    /**
+     * Getter for landmarks if they have loaded
+     *
+     * @return Landmarks, or null if they are loading or failed to load
+     */
+    private Landmarks getLoadedLandmarks() {
+        CompletableFuture<Landmarks> landmarks = loader.getLandmarks();
+        return landmarks.isDone() && !landmarks.isCompletedExceptionally() ? landmarks.join() : null;
+    }
+
+    /**
+     * Getter for a value in the config file
+     *
+     * @param key          config key
+     * @param defaultValue value returned if the key is not set
+     * @return String value
+     */
+    public String getConfigValue(String key, String defaultValue) {
+        return config.get(key, defaultValue);
+    }
+
     /**
      * Getter for measure start
      * <p>
@@ -249,7 +396,7 @@ public class Navigator {
      * @return camp Location
      */
     public Location getCamp(String exactCampName) {
-        return landmarks.getCamp(exactCampName);
+        return getLandmarks().getCamp(exactCampName);
     }
 
     /**
@@ -258,7 +405,7 @@ public class Navigator {
      * @param location Location object
      * @param name     name of destination
      */
-    public void setDestination(Location location, String name) {
+    public synchronized void setDestination(Location location, String name) {
         this.currentDestinationName = name;
         this.currentDestination = location;
     }
@@ -268,7 +415,7 @@ public class Navigator {
      *
      * @param home Location object
      */
-    public void setHome(Location home) {
+    public synchronized void setHome(Location home) {
         this.home = home;
     }
 
@@ -278,7 +425,7 @@ public class Navigator {
      * @return TreeMap (String, Location)
      */
     public ArrayList<Landmark> getFavorites() {
-        return landmarks.getFavorites();
+        return getLandmarks().getFavorites();
     }
 
     /**
@@ -291,31 +438,80 @@ public class Navigator {
     }
 
     /**
-     * Getter for event manager
+     * Getter for event manager, waiting until events have loaded
      *
      * @return EventManager
      */
     public EventManager getEventManager() {
-        return eventManager;
+        return loader.getEvents().join();
     }
 
     /**
-     * Getter for note manager
+     * Getter for note manager, waiting until notes have loaded
      *
      * @return NoteManager
      */
     public NoteManager getNoteManager() {
-        return noteManager;
+        return loader.getNotes().join();
     }
 
     /**
-     * Sets the current location based on gps coordinates
+     * Getter for the estimated speed
+     *
+     * @return speed in feet per second, 0 if the position filter is disabled
+     */
+    public synchronized double getSpeed() {
+        return positionFilter == null ? 0 : positionFilter.getSpeed();
+    }
+
+    /**
+     * Getter for the estimated heading
+     *
+     * @return degrees clockwise from north, NaN if unknown or the position filter is disabled
+     */
+    public synchronized double getHeading() {
+        return positionFilter == null ? Double.NaN : positionFilter.getHeading();
+    }
+
+    /**
+     * Getter for how the current position is moving, from the last 30 seconds of positions
+     *
+     * @return SpeedClass
+     */
+    public synchronized MotionModel.SpeedClass getSpeedClass() {
+        return motionModel.getSpeedClass(System.currentTimeMillis());
+    }
+
+    /**
+     * Sets the current location based on gps coordinates received now
      *
      * @param latitude  double latitude
      * @param longitude double longitude
      */
     public void updateLocation(double latitude, double longitude) {
-        currentLocation.updateLocation(latitude, longitude);
+        updateLocation(latitude, longitude, System.currentTimeMillis());
+    }
+
+    /**
+     * Sets the current location based on gps coordinates
+     * <p>
+     * The coordinates pass through the position filter, and outliers and fixes no newer than the last
+     * accepted fix leave the location unchanged. Accepted positions are added to the motion model
+     *
+     * @param latitude  double latitude
+     * @param longitude double longitude
+     * @param time      time of the fix in epoch milliseconds
+     */
+    public synchronized void updateLocation(double latitude, double longitude, long time) {
+        if(positionFilter == null) {
+            currentLocation.updateLocation(latitude, longitude);
+        } else if(positionFilter.update(latitude, longitude, time)) {
+            currentLocation.updateLocation(positionFilter.getLatitude(), positionFilter.getLongitude());
+        } else {
+            logger.info(this.getClass(), () -> "Rejected position " + latitude + ", " + longitude);
+            return;
+        }
+        motionModel.add(time, currentLocation.getX(), currentLocation.getY());
     }
 
 //**********************
@@ -323,51 +519,222 @@ public class Navigator {
 //**********************
 
     /**
-     * Returns a TreeMap
+     * Returns the addresses and directions for the main panel
+     * <p>
+     * The previous snapshot is returned while the current location has moved less than the movement
+     * threshold, the heading has turned less than the heading threshold, the travel speed has changed
+     * less than the pace threshold and nothing else has changed. Otherwise only the fields affected by
+     * the change are recomputed, and the rest are carried over. Bathroom fields are left empty until
+     * landmarks have loaded, and the destination route until street routes have been built, and filled
+     * in by the first snapshot after.
      *
-     * @return TreeMap (String, String) with panel navigation updates
+     * @return NavigationSnapshot
      */
-    public TreeMap<String, String> getPanelUpdate() {
-        TreeMap<String, String> map = new TreeMap<>();
-        map.put("currentAddress", currentLocation.getAddress());
-
-        Location closestBathroom = landmarks.findBathroom(currentLocation);
-        if(closestBathroom != null) {
-            map.put("bathroomAddress", closestBathroom.getAddress());
-            map.put("bathroomDirections", currentLocation.distance(closestBathroom) +
-                    ", " + currentLocation.cardinal(closestBathroom));
+    public synchronized NavigationSnapshot getSnapshot() {
+        StreetGrid streetGrid = Location.getStreetGrid();
+        Landmarks landmarks = getLoadedLandmarks();
+        LocationStore bathrooms = landmarks == null ? null : landmarks.getBathrooms();
+        boolean all = snapshot == null || streetGrid != snapshotStreetGrid;
+        boolean moved = all || currentLocation.distanceSquared(snapshotLocation) >
+                (double) movementThreshold * movementThreshold;
+        boolean bathroomsChanged = moved || bathrooms != snapshotBathrooms;
+        boolean homeChanged = all || home != snapshotHome;
+        boolean destinationChanged = all || currentDestination != snapshotDestination ||
+                !Objects.equals(currentDestinationName, snapshotDestinationName);
+        StreetRouter router = getStreetRouter(streetGrid);
+        boolean routeChanged = moved || destinationChanged || router != snapshotRouter;
+        double heading = positionFilter == null ? Double.NaN : positionFilter.getHeading();
+        boolean turned = hasTurned(snapshotHeading, heading);
+        double travelSpeed = motionModel.getTravelSpeed(System.currentTimeMillis());
+        MotionModel.SpeedClass travelClass = motionModel.getTravelClass();
+        boolean paced = all || travelClass != snapshotTravelClass ||
+                Math.abs(travelSpeed - snapshotTravelSpeed) > paceThreshold * snapshotTravelSpeed;
+        if(!moved && !bathroomsChanged && !homeChanged && !destinationChanged && !turned && !paced &&
+                !routeChanged) {
+            return snapshot;
         }
 
-        map.put("homeAddress", home.getAddress());
-        map.put("homeDirections", currentLocation.distance(home) + ", " + currentLocation.cardinal(home));
+        if(moved) {
+            snapshotLocation = new Location(currentLocation.getHour(), currentLocation.getMinute(),
+                    currentLocation.getDistance(), currentLocation.getX(), currentLocation.getY());
+        }
+        if(moved || turned) {
+            snapshotHeading = heading;
+        }
+        if(moved || paced) {
+            snapshotTravelSpeed = travelSpeed;
+            snapshotTravelClass = travelClass;
+        }
+        snapshotStreetGrid = streetGrid;
+        snapshotBathrooms = bathrooms;
+        snapshotRouter = router;
+        snapshotHome = home;
+        snapshotDestination = currentDestination;
+        snapshotDestinationName = currentDestinationName;
+
+        String currentAddress = moved ? snapshotLocation.getAddress() : snapshot.getCurrentAddress();
+
+        String bathroomAddress = all ? null : snapshot.getBathroomAddress();
+        String bathroomDirections = all ? null : snapshot.getBathroomDirections();
+        String bathroomEta = all ? null : snapshot.getBathroomEta();
+        if(bathroomsChanged) {
+            snapshotBathroom = landmarks == null ? null : landmarks.findBathroom(snapshotLocation);
+            bathroomAddress = snapshotBathroom == null ? null : snapshotBathroom.getAddress();
+        }
+        if(bathroomsChanged || turned) {
+            bathroomDirections = snapshotBathroom == null ? null : directionsTo(snapshotBathroom);
+        }
+        NavigationSnapshot.Measurement bathroomMeasurement = all ? null : snapshot.getBathroomMeasurement();
+        if(bathroomsChanged || paced) {
+            bathroomEta = snapshotBathroom == null ? null : etaTo(snapshotBathroom);
+            bathroomMeasurement = snapshotBathroom == null ? null :
+                    measure(snapshotBathroom, snapshotLocation.distance(snapshotBathroom));
+        }
+
+        String homeAddress = homeChanged ? home.getAddress() : snapshot.getHomeAddress();
+        String homeDirections = moved || turned || homeChanged ? directionsTo(home) : snapshot.getHomeDirections();
+        String homeEta = moved || paced || homeChanged ? etaTo(home) : snapshot.getHomeEta();
+        NavigationSnapshot.Measurement homeMeasurement = moved || paced || homeChanged ?
+                measure(home, snapshotLocation.distance(home)) : snapshot.getHomeMeasurement();
+
+        String destinationName = null, destinationAddress = null, destinationDirections = null;
+        String destinationEta = null, destinationRoute = null;
+        NavigationSnapshot.Measurement destinationMeasurement = null;
         if(currentDestination != null) {
-            map.put("destinationName", currentDestinationName);
-            map.put("destinationAddress", currentDestination.getAddress());
-            map.put("destinationDirections", currentLocation.distance(currentDestination) +
-                    ", " + currentLocation.cardinal(currentDestination));
+            destinationName = currentDestinationName;
+            destinationAddress = destinationChanged ? currentDestination.getAddress() : snapshot.getDestinationAddress();
+            destinationDirections = moved || turned || destinationChanged ? directionsTo(currentDestination) :
+                    snapshot.getDestinationDirections();
+            if(routeChanged) {
+                snapshotRoute = router == null ? null : router.route(snapshotLocation, currentDestination);
+                destinationRoute = snapshotRoute == null ? null : snapshotRoute.toString();
+            } else {
+                destinationRoute = snapshot.getDestinationRoute();
+            }
+            // By street if there is a route
+            if(routeChanged || paced) {
+                int distance = snapshotRoute == null ? snapshotLocation.distance(currentDestination) :
+                        snapshotRoute.getDistance();
+                destinationEta = MotionModel.formatTime(distance, snapshotTravelSpeed, snapshotTravelClass);
+                destinationMeasurement = measure(currentDestination, distance);
+            } else {
+                destinationEta = snapshot.getDestinationEta();
+                destinationMeasurement = snapshot.getDestinationMeasurement();
+            }
+        }
+
+        snapshot = new NavigationSnapshot(currentAddress, bathroomAddress, bathroomDirections, bathroomEta,
+                bathroomMeasurement, homeAddress, homeDirections, homeEta, homeMeasurement, destinationName,
+                destinationAddress, destinationDirections, destinationEta, destinationRoute, destinationMeasurement);
+        return snapshot;
+    }
+
+    /**
+     * Checks whether the heading turned past the heading threshold, or became known or unknown
+     *
+     * @param from previous heading in degrees, NaN if unknown
+     * @param to   current heading in degrees, NaN if unknown
+     * @return true if directions relative to the heading need recomputing
+     */
+    private static boolean hasTurned(double from, double to) {
+        if(Double.isNaN(from) || Double.isNaN(to)) {
+            return Double.isNaN(from) != Double.isNaN(to);
+        }
+        double turn = to - from;
+        turn -= 360 * Math.floor((turn + 180) / 360);
+        return Math.abs(turn) > headingThreshold;
+    }
+
+    /**
+     * Formats the distance and cardinal direction from the snapshot location to another location
+     * <p>
+     * While the heading is known, the direction relative to it is added
+     *
+     * @param other Location
+     * @return String directions
+     */
+    private String directionsTo(Location other) {
+        String directions = snapshotLocation.distance(other) + ", " + snapshotLocation.cardinal(other);
+        if(Double.isNaN(snapshotHeading)) {
+            return directions;
         }
-        return map;
+        return directions + ", " + snapshotLocation.relativeDirection(other, snapshotHeading);
+    }
+
+    /**
+     * Formats the time to reach another location from the snapshot location at the snapshot pace
+     *
+     * @param other Location
+     * @return String time
+     */
+    private String etaTo(Location other) {
+        return MotionModel.formatTime(snapshotLocation.distance(other), snapshotTravelSpeed, snapshotTravelClass);
+    }
+
+    /**
+     * Measures the distance, bearing and time to another location from the snapshot location
+     *
+     * @param other          Location
+     * @param travelDistance distance in feet the time is computed from, by street if routed
+     * @return NavigationSnapshot.Measurement
+     */
+    private NavigationSnapshot.Measurement measure(Location other, int travelDistance) {
+        return new NavigationSnapshot.Measurement(snapshotLocation.distance(other), snapshotLocation.bearing(other),
+                MotionModel.travelSeconds(travelDistance, snapshotTravelSpeed));
+    }
+
+    /**
+     * Returns a TreeMap
+     * <p>
+     * Equivalent to getSnapshot, kept for callers that use field names
+     *
+     * @return TreeMap (String, String) with panel navigation updates
+     */
+    public TreeMap<String, String> getPanelUpdate() {
+        return getSnapshot().toMap();
+    }
+
+    /**
+     * Returns the closest landmarks of a type relative to the current location
+     *
+     * @param type  LandmarkType
+     * @param count maximum number of landmarks
+     * @return ArrayList of Landmarks, closest first
+     */
+    public ArrayList<Landmark> findNearest(LandmarkType type, int count) {
+        return getLandmarks().findNearest(type, currentLocation, count);
     }
 
     /**
-     * Returns all camps containing a partial match to a search term
+     * Returns all landmarks of a type within a distance of the current location
+     *
+     * @param type   LandmarkType
+     * @param radius distance in feet
+     * @return ArrayList of Landmarks, closest first
+     */
+    public ArrayList<Landmark> findWithin(LandmarkType type, int radius) {
+        return getLandmarks().findWithin(type, currentLocation, radius);
+    }
+
+    /**
+     * Returns camps and favorites matching a search term, best match first
      * <p>
-     * can use * as a wildcard to return all camps
+     * Case, accents and punctuation are ignored, and small typos are tolerated. Equally good matches
+     * are ordered by distance from the current location. Can use * as a wildcard to return all camps,
+     * in name order
      *
      * @param searchTerm search term
      * @return ArrayList of String camp names
      */
     public ArrayList<String> findCamps(String searchTerm) {
-        if(searchTerm.equals("*")) {
-            return new ArrayList<>(landmarks.getCamps().keySet());
+        Landmarks landmarks = getLandmarks();
+        if(!searchTerm.equals("*")) {
+            return landmarks.searchNames(searchTerm, currentLocation);
         }
-
-        searchTerm = searchTerm.toLowerCase();
+        LocationStore camps = landmarks.getCamps();
         ArrayList<String> results = new ArrayList<>();
-        for(String campName : landmarks.getCamps().keySet()) {
-            if(campName.toLowerCase().contains(searchTerm)) {
-                results.add(campName);
-            }
+        for(int row = 0; row < camps.size(); row++) {
+            results.add(camps.getName(row));
         }
         return results;
     }
@@ -379,7 +746,7 @@ public class Navigator {
      */
     public ArrayList<String[]> getFavoritePairs() {
         ArrayList<String[]> favPairs = new ArrayList<>();
-        for(Landmark landmark : landmarks.getFavorites()) {
+        for(Landmark landmark : getLandmarks().getFavorites()) {
             favPairs.add(new String[]{landmark.getName(), landmark.getLocation().toString(), landmark.getDescription()});
         }
         return favPairs;
@@ -394,7 +761,7 @@ public class Navigator {
     public ArrayList<String[]> getCampPairs(ArrayList<String> camps) {
         ArrayList<String[]> pairs = new ArrayList<>();
         for(String camp : camps) {
-            pairs.add(new String[]{camp, landmarks.getCamp(camp).toString()});
+            pairs.add(new String[]{camp, getLandmarks().getCamp(camp).toString()});
         }
         return pairs;
     }
@@ -406,8 +773,9 @@ public class Navigator {
      */
     public ArrayList<String[]> getCampPairs() {
         ArrayList<String[]> campPairs = new ArrayList<>();
-        for(String camp : landmarks.getCamps().keySet()) {
-            campPairs.add(new String[]{camp, landmarks.getCamps().get(camp).getAddress()});
+        LocationStore camps = getLandmarks().getCamps();
+        for(int row = 0; row < camps.size(); row++) {
+            campPairs.add(new String[]{camps.getName(row), camps.getLocation(row).getAddress()});
         }
         return campPairs;
     }
@@ -0,0 +1,216 @@
+package navigation;
+
+/**
+ * Class PositionFilter
+ * <p>
+ * Smooths raw gps fixes and rejects outliers before they reach the current location
+ * <p>
+ * Fixes are projected onto a flat east/north plane in feet around the first fix and tracked with a
+ * constant-velocity alpha-beta filter: each fix moves the predicted position by alpha of the
+ * residual and the velocity by beta of the residual per second. A fix further from the prediction
+ * than the maximum speed allows, plus a margin for gps noise, is rejected. Several rejections in a
+ * row mean the position really jumped, and the filter restarts from the latest fix, as it does after a
+ * long gap between fixes. Predictions use the real time between fixes, so a fix no newer than the last
+ * accepted one is ignored. Speed and heading come from the velocity estimate.
+ *
+ * @author Brian Hooper
+ * @since 0.9.8
+ */
+public class PositionFilter {
+//**********************
+// Class member fields
+//**********************
+
+    // Feet per degree of latitude, using the same earth radius as Location
+    private static final double feetPerDegree = Math.toRadians(1) * 6371 / 1.6 * 5280;
+
+    // Distance in feet a fix may stray from the prediction regardless of speed, covering gps noise
+    private static final double noiseMargin = 60;
+
+    // Consecutive rejected fixes after which the filter restarts from the latest fix
+    private static final int maximumRejections = 3;
+
+    // Seconds between fixes, forward or back, after which the filter restarts from the latest fix
+    private static final double maximumGap = 30;
+
+    // Speed in feet per second below which the heading is unknown
+    private static final double headingSpeed = 2;
+
+    // Share of the residual applied to the position and, per second, to the velocity
+    private final double alpha;
+    private final double beta;
+
+    // Fastest believable speed in feet per second
+    private final double maximumSpeed;
+
+    // Origin of the plane and feet per degree of longitude at the origin
+    private double originLatitude;
+    private double originLongitude;
+    private double feetPerLongitude;
+
+    // Filtered position in feet east and north of the origin, and velocity in feet per second
+    private double east, north;
+    private double eastVelocity, northVelocity;
+
+    // Time of the last accepted fix in milliseconds, and whether there has been a fix
+    private long lastTime;
+    private boolean initialized = false;
+
+    // Rejected fixes since the last accepted fix, and in total
+    private int rejections = 0;
+    private long rejected = 0;
+
+//**********************
+// Constructors and initializers
+//**********************
+
+    /**
+     * Constructor
+     *
+     * @param alpha        share of the residual applied to the position, between 0 and 1
+     * @param beta         share of the residual applied to the velocity per second, between 0 and alpha
+     * @param maximumSpeed fastest believable speed in feet per second
+     */
+    public PositionFilter(double alpha, double beta, double maximumSpeed) {
+        if(!(alpha > 0 && alpha <= 1) || !(beta >= 0 && beta <= alpha) || !(maximumSpeed > 0)) {
+            throw new IllegalArgumentException("Invalid filter gains " + alpha + ", " + beta + " or speed " + maximumSpeed);
+        }
+        this.alpha = alpha;
+        this.beta = beta;
+        this.maximumSpeed = maximumSpeed;
+    }
+
+//**********************
+// Getters and setters
+//**********************
+
+    /**
+     * Getter for whether there has been a fix
+     *
+     * @return true once a fix has been accepted
+     */
+    public boolean isInitialized() {
+        return initialized;
+    }
+
+    /**
+     * Getter for the filtered latitude
+     *
+     * @return latitude
+     */
+    public double getLatitude() {
+        return originLatitude + north / feetPerDegree;
+    }
+
+    /**
+     * Getter for the filtered longitude
+     *
+     * @return longitude
+     */
+    public double getLongitude() {
+        return originLongitude + east / feetPerLongitude;
+    }
+
+    /**
+     * Getter for the estimated speed
+     *
+     * @return speed in feet per second
+     */
+    public double getSpeed() {
+        return Math.sqrt(eastVelocity * eastVelocity + northVelocity * northVelocity);
+    }
+
+    /**
+     * Getter for the estimated heading
+     *
+     * @return degrees clockwise from true north, NaN while moving too slowly to tell
+     */
+    public double getHeading() {
+        if(getSpeed() < headingSpeed) {
+            return Double.NaN;
+        }
+        double heading = Math.toDegrees(Math.atan2(eastVelocity, northVelocity));
+        return heading < 0 ? heading + 360 : heading;
+    }
+
+    /**
+     * Getter for the number of rejected fixes
+     *
+     * @return rejected fixes since created
+     */
+    public long getRejected() {
+        return rejected;
+    }
+
+//**********************
+// Class methods
+//**********************
+
+    /**
+     * Adds a fix
+     *
+     * @param latitude  latitude
+     * @param longitude longitude
+     * @param time      time of the fix in epoch milliseconds
+     * @return true if the fix was accepted, false if it was rejected as an outlier or ignored for being no
+     * newer than the last accepted fix
+     */
+    public boolean update(double latitude, double longitude, long time) {
+        if(!initialized) {
+            reset(latitude, longitude, time);
+            return true;
+        }
+
+        double seconds = (time - lastTime) / 1000.0;
+        if(seconds > maximumGap || seconds < -maximumGap) {
+            reset(latitude, longitude, time);
+            return true;
+        }
+        if(seconds <= 0) {
+            return false;
+        }
+
+        // Predict and compare against the fix
+        double predictedEast = east + eastVelocity * seconds;
+        double predictedNorth = north + northVelocity * seconds;
+        double residualEast = (longitude - originLongitude) * feetPerLongitude - predictedEast;
+        double residualNorth = (latitude - originLatitude) * feetPerDegree - predictedNorth;
+        double gate = maximumSpeed * seconds + noiseMargin;
+        if(residualEast * residualEast + residualNorth * residualNorth > gate * gate) {
+            rejected++;
+            if(++rejections < maximumRejections) {
+                return false;
+            }
+            reset(latitude, longitude, time);
+            return true;
+        }
+
+        rejections = 0;
+        lastTime = time;
+        east = predictedEast + alpha * residualEast;
+        north = predictedNorth + alpha * residualNorth;
+        eastVelocity += beta / seconds * residualEast;
+        northVelocity += beta / seconds * residualNorth;
+        return true;
+    }
+
+    /**
+     * Restarts the filter at a fix, at rest
+     *
+     * @param latitude  latitude
+     * @param longitude longitude
+     * @param time      time of the fix in epoch milliseconds
+     */
+    public void reset(double latitude, double longitude, long time) {
+        originLatitude = latitude;
+        originLongitude = longitude;
+        feetPerLongitude = feetPerDegree * Math.cos(Math.toRadians(latitude));
+        east = 0;
+        north = 0;
+        eastVelocity = 0;
+        northVelocity = 0;
+        lastTime = time;
+        rejections = 0;
+        initialized = true;
+    }
+}
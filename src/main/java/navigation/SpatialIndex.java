@@ -0,0 +1,355 @@
+package navigation;
+
+import java.util.Arrays;
+
+/**
+ * Class SpatialIndex
+ * <p>
+ * Static 2-d tree over a set of points in cartesian feet relative to the man
+ * <p>
+ * Points are identified by their position in the coordinate arrays passed to the constructor,
+ * queries return these ids ordered by increasing distance
+ *
+ * @author Brian Hooper
+ * @since 0.9.8
+ */
+class SpatialIndex {
+//**********************
+// Class member fields
+//**********************
+
+    // Point coordinates and ids, reordered so that each subrange [lo, hi) is a subtree split at its midpoint
+    private final double[] xs;
+    private final double[] ys;
+    private final int[] ids;
+
+    // Number of points in the index
+    private final int size;
+
+//**********************
+// Constructors and initializers
+//**********************
+
+    /**
+     * Constructor
+     * <p>
+     * Builds the tree over the given coordinates, the input arrays are not modified
+     *
+     * @param x x position of each point in feet
+     * @param y y position of each point in feet
+     */
+    SpatialIndex(double[] x, double[] y) {
+        if(x.length != y.length) {
+            throw new IllegalArgumentException("Coordinate arrays differ in length: " + x.length + ", " + y.length);
+        }
+        this.size = x.length;
+        this.xs = Arrays.copyOf(x, size);
+        this.ys = Arrays.copyOf(y, size);
+        this.ids = new int[size];
+        for(int i = 0; i < size; i++) {
+            ids[i] = i;
+        }
+        build(0, size, 0);
+    }
+
+    /**
+     * Recursively partitions a range around its median on alternating axes
+     *
+     * @param lo    first index of range, inclusive
+     * @param hi    last index of range, exclusive
+     * @param depth tree depth, even depths split on x and odd depths on y
+     */
+    private void build(int lo, int hi, int depth) {
+        if(hi - lo <= 1) {
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        select(lo, hi - 1, mid, (depth & 1) == 0 ? xs : ys);
+        build(lo, mid, depth + 1);
+        build(mid + 1, hi, depth + 1);
+    }
+
+    /**
+     * Quickselect, places the k-th smallest element of the range at index k
+     *
+     * @param lo   first index, inclusive
+     * @param hi   last index, inclusive
+     * @param k    index to place
+     * @param axis coordinate array to order by
+     */
+    private void select(int lo, int hi, int k, double[] axis) {
+        while(hi > lo) {
+            double pivot = axis[(lo + hi) >>> 1];
+            int i = lo;
+            int j = hi;
+            while(i <= j) {
+                while(axis[i] < pivot) i++;
+                while(axis[j] > pivot) j--;
+                if(i <= j) {
+                    swap(i++, j--);
+                }
+            }
+            if(k <= j) {
+                hi = j;
+            } else if(k >= i) {
+                lo = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Swaps two points
+     *
+     * @param a index of first point
+     * @param b index of second point
+     */
+    private void swap(int a, int b) {
+        double tx = xs[a];
+        xs[a] = xs[b];
+        xs[b] = tx;
+        double ty = ys[a];
+        ys[a] = ys[b];
+        ys[b] = ty;
+        int tid = ids[a];
+        ids[a] = ids[b];
+        ids[b] = tid;
+    }
+
+//**********************
+// Getters and setters
+//**********************
+
+    /**
+     * Getter for size
+     *
+     * @return number of points in the index
+     */
+    int size() {
+        return size;
+    }
+
+//**********************
+// Class methods
+//**********************
+
+    /**
+     * Finds the point closest to a position
+     *
+     * @param x x position in feet
+     * @param y y position in feet
+     * @return id of closest point, or -1 if the index is empty
+     */
+    int nearest(double x, double y) {
+        if(size == 0) {
+            return -1;
+        }
+        Neighbors best = new Neighbors(1);
+        search(0, size, 0, x, y, best);
+        return best.ids[0];
+    }
+
+    /**
+     * Finds the closest points to a position
+     *
+     * @param x     x position in feet
+     * @param y     y position in feet
+     * @param count maximum number of points to return
+     * @return ids of at most count points, closest first
+     */
+    int[] nearest(double x, double y, int count) {
+        count = Math.min(count, size);
+        if(count <= 0) {
+            return new int[0];
+        }
+        Neighbors best = new Neighbors(count);
+        search(0, size, 0, x, y, best);
+        return best.sorted();
+    }
+
+    /**
+     * Finds all points within a radius of a position
+     *
+     * @param x      x position in feet
+     * @param y      y position in feet
+     * @param radius radius in feet
+     * @return ids of points within the radius, closest first
+     */
+    int[] withinRadius(double x, double y, double radius) {
+        if(size == 0 || radius < 0) {
+            return new int[0];
+        }
+        long[] found = new long[Math.min(size, 16)];
+        int count = 0;
+
+        // Iterative traversal, stack holds packed (lo, hi, depth) ranges
+        int[] stack = new int[3 * 64];
+        int top = 0;
+        stack[top++] = 0;
+        stack[top++] = size;
+        stack[top++] = 0;
+        double radiusSquared = radius * radius;
+        while(top > 0) {
+            int depth = stack[--top];
+            int hi = stack[--top];
+            int lo = stack[--top];
+            if(lo >= hi) {
+                continue;
+            }
+            int mid = (lo + hi) >>> 1;
+            double dx = xs[mid] - x;
+            double dy = ys[mid] - y;
+            double distanceSquared = dx * dx + dy * dy;
+            if(distanceSquared <= radiusSquared) {
+                if(count == found.length) {
+                    found = Arrays.copyOf(found, Math.min(size, count * 2));
+                }
+                // Sort key: whole square feet in the high bits, id in the low bits
+                found[count++] = ((long) distanceSquared << 24) | ids[mid];
+            }
+            double split = (depth & 1) == 0 ? dx : dy;
+            if(split >= -radius) {
+                stack[top++] = lo;
+                stack[top++] = mid;
+                stack[top++] = depth + 1;
+            }
+            if(split <= radius) {
+                stack[top++] = mid + 1;
+                stack[top++] = hi;
+                stack[top++] = depth + 1;
+            }
+        }
+
+        Arrays.sort(found, 0, count);
+        int[] result = new int[count];
+        for(int i = 0; i < count; i++) {
+            result[i] = (int) (found[i] & 0xFFFFFF);
+        }
+        return result;
+    }
+
+    /**
+     * Recursive nearest neighbor search
+     *
+     * @param lo    first index of subtree, inclusive
+     * @param hi    last index of subtree, exclusive
+     * @param depth tree depth
+     * @param x     query x position
+     * @param y     query y position
+     * @param best  current best candidates
+     */
+    private void search(int lo, int hi, int depth, double x, double y, Neighbors best) {
+        if(lo >= hi) {
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        double dx = x - xs[mid];
+        double dy = y - ys[mid];
+        best.offer(ids[mid], dx * dx + dy * dy);
+
+        double split = (depth & 1) == 0 ? dx : dy;
+        if(split < 0) {
+            search(lo, mid, depth + 1, x, y, best);
+            if(split * split < best.worst()) {
+                search(mid + 1, hi, depth + 1, x, y, best);
+            }
+        } else {
+            search(mid + 1, hi, depth + 1, x, y, best);
+            if(split * split < best.worst()) {
+                search(lo, mid, depth + 1, x, y, best);
+            }
+        }
+    }
+
+    /**
+     * Bounded max-heap of the closest candidates found so far
+     */
+    private static final class Neighbors {
+        private final int[] ids;
+        private final double[] distances;
+        private int count;
+
+        private Neighbors(int capacity) {
+            ids = new int[capacity];
+            distances = new double[capacity];
+            ids[0] = -1;
+        }
+
+        /**
+         * Squared distance that a candidate must beat to be accepted
+         *
+         * @return squared distance in feet
+         */
+        private double worst() {
+            return count < ids.length ? Double.MAX_VALUE : distances[0];
+        }
+
+        /**
+         * Adds a candidate if it is closer than the current worst
+         *
+         * @param id              point id
+         * @param distanceSquared squared distance in feet
+         */
+        private void offer(int id, double distanceSquared) {
+            if(count < ids.length) {
+                int i = count++;
+                while(i > 0) {
+                    int parent = (i - 1) >>> 1;
+                    if(distances[parent] >= distanceSquared) {
+                        break;
+                    }
+                    ids[i] = ids[parent];
+                    distances[i] = distances[parent];
+                    i = parent;
+                }
+                ids[i] = id;
+                distances[i] = distanceSquared;
+            } else if(distanceSquared < distances[0]) {
+                siftDown(id, distanceSquared, count);
+            }
+        }
+
+        /**
+         * Places a candidate at the root and restores the heap order
+         *
+         * @param id              point id
+         * @param distanceSquared squared distance
+         * @param length          heap length
+         */
+        private void siftDown(int id, double distanceSquared, int length) {
+            int i = 0;
+            while(true) {
+                int child = 2 * i + 1;
+                if(child >= length) {
+                    break;
+                }
+                if(child + 1 < length && distances[child + 1] > distances[child]) {
+                    child++;
+                }
+                if(distances[child] <= distanceSquared) {
+                    break;
+                }
+                ids[i] = ids[child];
+                distances[i] = distances[child];
+                i = child;
+            }
+            ids[i] = id;
+            distances[i] = distanceSquared;
+        }
+
+        /**
+         * Empties the heap into an array ordered closest first
+         *
+         * @return ids
+         */
+        private int[] sorted() {
+            int[] result = new int[count];
+            for(int length = count; length > 0; length--) {
+                result[length - 1] = ids[0];
+                siftDown(ids[length - 1], distances[length - 1], length - 1);
+            }
+            return result;
+        }
+    }
+}
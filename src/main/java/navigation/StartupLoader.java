@@ -0,0 +1,185 @@
+package navigation;
+
+import driver.Dataset;
+import driver.LogDriver;
+import events.EventManager;
+import events.NoteManager;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Class StartupLoader
+ * <p>
+ * Loads landmarks, events and notes concurrently on a small pool of daemon threads
+ * <p>
+ * Landmarks and events are read from the compiled dataset if it is up to date, otherwise from the
+ * text files, after which the dataset is rewritten. Each result is exposed as a CompletableFuture,
+ * so callers can either wait for it or use it only once it is ready. Events fall back to an empty
+ * manager if loading fails. Landmarks and notes are written back to their files on exit, so a failed
+ * load completes exceptionally rather than with an empty manager that would overwrite them.
+ *
+ * @author Brian Hooper
+ * @since 0.9.8
+ */
+class StartupLoader {
+    // Relative path of the dataset compiled from the landmark and event files
+    private static final String datasetPath = "config/dataset.bin";
+
+    // Logger
+    private static final LogDriver logger = LogDriver.getInstance();
+
+    // Loader threads, shut down once everything is loaded
+    private final ExecutorService executor;
+
+    // Set if anything was read from text, so the dataset needs to be rewritten
+    private final AtomicBoolean stale = new AtomicBoolean(false);
+
+    // Set if events could not be loaded, so the empty fallback is not written to the dataset
+    private volatile boolean eventsFailed = false;
+
+    // Loaded managers
+    private final CompletableFuture<Landmarks> landmarks;
+    private final CompletableFuture<EventManager> events;
+    private final CompletableFuture<NoteManager> notes;
+
+    /**
+     * Constructor
+     * <p>
+     * Starts loading immediately
+     *
+     * @param signature settings the landmark data depends on
+     */
+    StartupLoader(String signature) {
+        String[] sources = getSources();
+
+        AtomicInteger threadCount = new AtomicInteger();
+        int threads = Math.max(1, Math.min(3, Runtime.getRuntime().availableProcessors()));
+        executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "navigator-loader-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        // Recorded before any source is read, so a source edited while loading is not cached as current
+        Dataset.Writer writer = new Dataset.Writer(signature, sources);
+        CompletableFuture<Dataset> dataset = CompletableFuture.supplyAsync(
+                () -> Dataset.open(datasetPath, signature, sources), executor);
+
+        landmarks = dataset.thenApplyAsync(this::loadLandmarks, executor);
+        landmarks.whenComplete((result, e) -> {
+            if(e != null) {
+                logger.severe(StartupLoader.class, "Unable to load landmarks: " + e.getMessage());
+            }
+        });
+        events = dataset.thenApplyAsync(this::loadEvents, executor).exceptionally(e -> {
+            logger.severe(StartupLoader.class, "Unable to load events: " + e.getMessage());
+            eventsFailed = true;
+            return EventManager.empty();
+        });
+        notes = CompletableFuture.supplyAsync(NoteManager::new, executor);
+        notes.whenComplete((result, e) -> {
+            if(e != null) {
+                logger.severe(StartupLoader.class, "Unable to load notes: " + e.getMessage());
+            }
+        });
+
+        // The dataset is only rewritten if both landmarks and events loaded
+        CompletableFuture.allOf(landmarks, events)
+                .thenRunAsync(() -> writeDataset(writer), executor)
+                .whenComplete((result, e) -> notes.whenComplete((note, noteError) -> executor.shutdown()));
+    }
+
+    /**
+     * Getter for the files the dataset is compiled from
+     *
+     * @return String array of relative paths
+     */
+    private static String[] getSources() {
+        String[] landmarkSources = Landmarks.getSourcePaths();
+        String[] eventSources = EventManager.getSourcePaths();
+        String[] sources = Arrays.copyOf(landmarkSources, landmarkSources.length + eventSources.length);
+        System.arraycopy(eventSources, 0, sources, landmarkSources.length, eventSources.length);
+        return sources;
+    }
+
+    /**
+     * Reads landmarks from the dataset, or from the text files, and favorites from their file
+     *
+     * @param dataset Dataset, may be null
+     * @return Landmarks
+     */
+    private Landmarks loadLandmarks(Dataset dataset) {
+        Landmarks loaded = new Landmarks();
+        if(dataset == null || !loaded.readDataset(dataset)) {
+            stale.set(true);
+            loaded.readBathrooms();
+            loaded.readCampsTSV();
+        }
+        loaded.readFavoritesTSV();
+        return loaded;
+    }
+
+    /**
+     * Reads events from the dataset, or from the text files
+     *
+     * @param dataset Dataset, may be null
+     * @return EventManager
+     */
+    private EventManager loadEvents(Dataset dataset) {
+        EventManager loaded = dataset == null ? null : EventManager.read(dataset);
+        if(loaded == null) {
+            stale.set(true);
+            loaded = new EventManager();
+        }
+        return loaded;
+    }
+
+    /**
+     * Rewrites the dataset if anything was read from text
+     *
+     * @param writer Dataset.Writer created before loading
+     */
+    private void writeDataset(Dataset.Writer writer) {
+        if(stale.get() && !eventsFailed) {
+            landmarks.join().writeDataset(writer);
+            events.join().writeDataset(writer);
+            writer.write(datasetPath);
+        }
+    }
+
+//**********************
+// Getters and setters
+//**********************
+
+    /**
+     * Getter for landmarks
+     *
+     * @return CompletableFuture of Landmarks
+     */
+    CompletableFuture<Landmarks> getLandmarks() {
+        return landmarks;
+    }
+
+    /**
+     * Getter for events
+     *
+     * @return CompletableFuture of EventManager
+     */
+    CompletableFuture<EventManager> getEvents() {
+        return events;
+    }
+
+    /**
+     * Getter for notes
+     *
+     * @return CompletableFuture of NoteManager
+     */
+    CompletableFuture<NoteManager> getNotes() {
+        return notes;
+    }
+}
@@ -0,0 +1,193 @@
+package navigation;
+
+import java.util.Arrays;
+
+/**
+ * Class StreetGrid
+ * <p>
+ * Immutable table of ring streets and their outer distances from the man
+ * <p>
+ * Each street covers the distances from the previous street's distance, exclusive, up to its own
+ * distance, inclusive. Streets are looked up by distance with a binary search, and lettered streets
+ * are looked up by letter with a direct array index.
+ *
+ * @author Brian Hooper
+ * @since 0.9.8
+ */
+public class StreetGrid {
+    // Default street layout
+    public static final StreetGrid DEFAULT = new StreetGrid(
+            new int[]{2300, 2700, 2950, 3200, 3450, 3700, 3900, 4100, 4300, 4500, 4650, 4800, 4950, 5100, 5250},
+            new String[]{"The Man", "Esplanade", "A", "B", "C", "D", "E", "F", "G", "H", "I", "J", "K", "L", "o"});
+
+    // Outer distance of each street in feet, ascending
+    private final int[] distances;
+
+    // Name of each street
+    private final String[] names;
+
+    // Distance to the middle of each lettered street, indexed by letter - 'A', 0 if there is no such street
+    private final int[] letterDistances = new int[26];
+
+    /**
+     * Constructor
+     * <p>
+     * Streets are sorted by distance
+     *
+     * @param distances outer distance of each street in feet
+     * @param names     name of each street
+     * @throws IllegalArgumentException if the arrays differ in length
+     */
+    public StreetGrid(int[] distances, String[] names) {
+        if(distances.length != names.length) {
+            throw new IllegalArgumentException("Street distances and names differ in length");
+        }
+        Integer[] order = new Integer[distances.length];
+        for(int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Integer.compare(distances[a], distances[b]));
+        this.distances = new int[distances.length];
+        this.names = new String[names.length];
+        for(int i = 0; i < order.length; i++) {
+            this.distances[i] = distances[order[i]];
+            this.names[i] = names[order[i]];
+        }
+
+        // The innermost and outermost entries bound the grid and are not addressable by letter
+        for(int i = this.names.length - 2; i >= 1; i--) {
+            String name = this.names[i];
+            if(name.length() == 1 && name.charAt(0) >= 'A' && name.charAt(0) <= 'Z') {
+                letterDistances[name.charAt(0) - 'A'] = getMiddle(i);
+            }
+        }
+    }
+
+    /**
+     * Parses a BLOCK-DISTANCES config value of "distance,name;" entries
+     * <p>
+     * Malformed entries are skipped
+     *
+     * @param value config value
+     * @return StreetGrid
+     * @throws NumberFormatException if a distance is not a number
+     */
+    public static StreetGrid parse(String value) {
+        String[] blocks = value.split(";");
+        int[] distances = new int[blocks.length];
+        String[] names = new String[blocks.length];
+        int count = 0;
+        for(String block : blocks) {
+            String[] split = block.split(",");
+            if(split.length == 2) {
+                distances[count] = Integer.parseInt(split[0]);
+                names[count] = split[1];
+                count++;
+            }
+        }
+        return new StreetGrid(Arrays.copyOf(distances, count), Arrays.copyOf(names, count));
+    }
+
+    /**
+     * Formats the grid as a BLOCK-DISTANCES config value
+     *
+     * @return String of "distance,name;" entries
+     */
+    public String toConfigString() {
+        StringBuilder builder = new StringBuilder();
+        for(int i = 0; i < distances.length; i++) {
+            builder.append(distances[i]).append(',').append(names[i]).append(';');
+        }
+        return builder.toString();
+    }
+
+//**********************
+// Getters and setters
+//**********************
+
+    /**
+     * Getter for size
+     *
+     * @return number of streets
+     */
+    public int size() {
+        return distances.length;
+    }
+
+    /**
+     * Getter for the outer distance of a street
+     *
+     * @param index street index, innermost first
+     * @return distance in feet
+     */
+    public int getDistance(int index) {
+        return distances[index];
+    }
+
+    /**
+     * Getter for the distance of the middle of a street, where its addresses are placed
+     *
+     * @param index street index, between 1 and size - 2 since the innermost and outermost entries
+     *              only bound the grid
+     * @return distance in feet
+     */
+    public int getMiddle(int index) {
+        return distances[index] + (distances[index] - distances[index + 1]) / 2;
+    }
+
+    /**
+     * Getter for the name of a street
+     *
+     * @param index street index, innermost first
+     * @return name
+     */
+    public String getName(int index) {
+        return names[index];
+    }
+
+//**********************
+// Class methods
+//**********************
+
+    /**
+     * Converts a distance in feet to a street
+     * <p>
+     * Distances inside the innermost street or beyond the outermost street are returned as a number
+     *
+     * @param distance distance from the man in feet
+     * @return street name
+     */
+    public String toStreet(int distance) {
+        int count = distances.length;
+        if(count == 0 || distance >= distances[count - 1]) {
+            return String.valueOf(distance);
+        }
+
+        // First street whose outer distance is at least the distance
+        int low = 0;
+        int high = count - 1;
+        while(low < high) {
+            int middle = (low + high) >>> 1;
+            if(distances[middle] < distance) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low == 0 ? String.valueOf(distance) : names[low];
+    }
+
+    /**
+     * Converts a street letter to the distance of the middle of that street
+     *
+     * @param street street letter, either case
+     * @return distance in feet, 0 if there is no such street
+     */
+    public int toDistance(char street) {
+        street = Character.toUpperCase(street);
+        if(street < 'A' || street > 'Z') {
+            return 0;
+        }
+        return letterDistances[street - 'A'];
+    }
+}
@@ -0,0 +1,852 @@
+package navigation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Class StreetRouter
+ * <p>
+ * Finds walking routes along the ring and radial streets of a street grid
+ * <p>
+ * The graph has a node wherever a ring street crosses a radial street, with radials every half hour
+ * from 2:00 to 10:00, and edges along the streets between neighboring nodes. Outside the city, the
+ * inner playa, the open sector from 10:00 to 2:00 and the deep playa can be crossed in a straight
+ * line, so nodes on the edge of the city are joined by open playa edges wherever the straight line
+ * stays clear of the blocks. A position inside a block joins the four corners of its block, and a
+ * position on the open playa joins every edge node in sight.
+ * <p>
+ * Routes are found with A* using landmark (ALT) lower bounds: distances from a few spread out nodes
+ * to every node are computed once, and the triangle inequality bounds the distance left from any node.
+ * Searches run backward from the destination and are kept per destination, so nodes settled by an
+ * earlier search keep their exact distance, and following a route as it moves usually settles no new
+ * nodes. Not thread safe.
+ *
+ * @author Brian Hooper
+ * @since 0.9.8
+ */
+public class StreetRouter {
+//**********************
+// Class member fields
+//**********************
+
+    // First and last radial streets and hours between radials
+    private static final double firstRadial = 2;
+    private static final double lastRadial = 10;
+    private static final double radialSpacing = 0.5;
+
+    // Number of landmarks for the heuristic
+    private static final int landmarkCount = 8;
+
+    // Number of destinations whose searches are kept
+    private static final int cacheSize = 4;
+
+    // Street of open playa edges, and of edges between a position and the nearest nodes
+    private static final int openPlaya = -1;
+    private static final int offStreet = -2;
+
+    // Degrees a route must bend at a node to be a turn
+    private static final double turnAngle = 30;
+
+    // Street grid the graph was built from
+    private final StreetGrid streetGrid;
+
+    // Number of ring and radial streets, node index is ring * radials + radial
+    private final int rings;
+    private final int radials;
+
+    // Distance of each ring street from the man, ring i is street grid index i + 1
+    private final double[] ringRadii;
+
+    // Node positions in feet from the man
+    private final double[] nodeX;
+    private final double[] nodeY;
+
+    // Edges of each node from edgeStarts[node] to edgeStarts[node + 1], with the street each follows,
+    // ring index for ring streets, rings + radial index for radial streets or openPlaya
+    private final int[] edgeStarts;
+    private final int[] edgeTargets;
+    private final int[] edgeStreets;
+    private final double[] edgeWeights;
+
+    // Nodes on the edge of the city
+    private final int[] edgeNodes;
+
+    // Shortest distance from each landmark to each node
+    private final double[][] landmarkDistances;
+
+    // Searches of recent destinations, least recently used first
+    private final LinkedHashMap<Location, DestinationSearch> searches =
+            new LinkedHashMap<Location, DestinationSearch>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Location, DestinationSearch> eldest) {
+                    return size() > cacheSize;
+                }
+            };
+
+    // Weight of each node from the current start, infinite if it is not joined to the start
+    private final double[] startWeights;
+
+//**********************
+// Constructors and initializers
+//**********************
+
+    /**
+     * Constructor
+     * <p>
+     * Builds the street graph and landmark distances
+     *
+     * @param streetGrid StreetGrid, its innermost and outermost entries only bound the grid
+     */
+    public StreetRouter(StreetGrid streetGrid) {
+        this.streetGrid = streetGrid;
+        rings = Math.max(streetGrid.size() - 2, 0);
+        radials = (int) Math.round((lastRadial - firstRadial) / radialSpacing) + 1;
+        ringRadii = new double[rings];
+        for(int ring = 0; ring < rings; ring++) {
+            ringRadii[ring] = streetGrid.getMiddle(ring + 1);
+        }
+
+        int nodes = rings * radials;
+        nodeX = new double[nodes];
+        nodeY = new double[nodes];
+        for(int ring = 0; ring < rings; ring++) {
+            for(int radial = 0; radial < radials; radial++) {
+                double angle = toAngle(firstRadial + radial * radialSpacing);
+                nodeX[ring * radials + radial] = ringRadii[ring] * Math.sin(angle);
+                nodeY[ring * radials + radial] = -ringRadii[ring] * Math.cos(angle);
+            }
+        }
+
+        // Streets between neighboring nodes
+        ArrayList<int[]> edges = new ArrayList<>();
+        ArrayList<Double> weights = new ArrayList<>();
+        double arc = toAngle(radialSpacing);
+        for(int ring = 0; ring < rings; ring++) {
+            for(int radial = 0; radial < radials; radial++) {
+                int node = ring * radials + radial;
+                if(radial + 1 < radials) {
+                    edges.add(new int[]{node, node + 1, ring});
+                    weights.add(ringRadii[ring] * arc);
+                }
+                if(ring + 1 < rings) {
+                    edges.add(new int[]{node, node + radials, rings + radial});
+                    weights.add(ringRadii[ring + 1] - ringRadii[ring]);
+                }
+            }
+        }
+
+        // Open playa between edge nodes in sight of each other
+        ArrayList<Integer> edgeNodeList = new ArrayList<>();
+        for(int node = 0; node < nodes; node++) {
+            int ring = node / radials;
+            int radial = node % radials;
+            if(ring == 0 || ring == rings - 1 || radial == 0 || radial == radials - 1) {
+                edgeNodeList.add(node);
+            }
+        }
+        edgeNodes = new int[edgeNodeList.size()];
+        for(int i = 0; i < edgeNodes.length; i++) {
+            edgeNodes[i] = edgeNodeList.get(i);
+        }
+        for(int i = 0; i < edgeNodes.length; i++) {
+            for(int j = i + 1; j < edgeNodes.length; j++) {
+                int a = edgeNodes[i];
+                int b = edgeNodes[j];
+                if(!neighbors(a, b) && inSight(nodeX[a], nodeY[a], nodeX[b], nodeY[b])) {
+                    edges.add(new int[]{a, b, openPlaya});
+                    weights.add(length(nodeX[a] - nodeX[b], nodeY[a] - nodeY[b]));
+                }
+            }
+        }
+
+        // Adjacency arrays, each edge in both directions
+        edgeStarts = new int[nodes + 1];
+        for(int[] edge : edges) {
+            edgeStarts[edge[0] + 1]++;
+            edgeStarts[edge[1] + 1]++;
+        }
+        for(int node = 0; node < nodes; node++) {
+            edgeStarts[node + 1] += edgeStarts[node];
+        }
+        edgeTargets = new int[edges.size() * 2];
+        edgeStreets = new int[edges.size() * 2];
+        edgeWeights = new double[edges.size() * 2];
+        int[] fill = Arrays.copyOf(edgeStarts, nodes);
+        for(int i = 0; i < edges.size(); i++) {
+            int[] edge = edges.get(i);
+            for(int end = 0; end < 2; end++) {
+                int slot = fill[edge[end]]++;
+                edgeTargets[slot] = edge[1 - end];
+                edgeStreets[slot] = edge[2];
+                edgeWeights[slot] = weights.get(i);
+            }
+        }
+
+        landmarkDistances = selectLandmarks();
+        startWeights = new double[nodes];
+        Arrays.fill(startWeights, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Picks landmarks spread across the graph, each the node furthest from those already picked
+     *
+     * @return shortest distance from each landmark to each node
+     */
+    private double[][] selectLandmarks() {
+        int nodes = nodeX.length;
+        if(nodes == 0) {
+            return new double[0][];
+        }
+        double[][] distances = new double[Math.min(landmarkCount, nodes)][];
+        double[] nearest = new double[nodes];
+        Arrays.fill(nearest, Double.POSITIVE_INFINITY);
+        int landmark = furthest(shortestDistances(0));
+        for(int i = 0; i < distances.length; i++) {
+            distances[i] = shortestDistances(landmark);
+            for(int node = 0; node < nodes; node++) {
+                nearest[node] = Math.min(nearest[node], distances[i][node]);
+            }
+            landmark = furthest(nearest);
+        }
+        return distances;
+    }
+
+//**********************
+// Getters and setters
+//**********************
+
+    /**
+     * Getter for the street grid the graph was built from
+     *
+     * @return StreetGrid
+     */
+    public StreetGrid getStreetGrid() {
+        return streetGrid;
+    }
+
+//**********************
+// Class methods
+//**********************
+
+    /**
+     * Finds the shortest route between two locations
+     *
+     * @param from start Location
+     * @param to   destination Location
+     * @return Route, null if there is no route
+     */
+    public Route route(Location from, Location to) {
+        DestinationSearch search = searches.get(to);
+        if(search == null || search.goalX != to.getX() || search.goalY != to.getY()) {
+            search = new DestinationSearch(to.getX(), to.getY());
+            searches.put(to, search);
+        }
+
+        double startX = from.getX();
+        double startY = from.getY();
+        int[] start = join(startX, startY);
+        for(int node : start) {
+            startWeights[node] = joinWeight(startX, startY, nodeX[node], nodeY[node]);
+        }
+        try {
+            // Straight across the open playa, or within one block
+            double direct = Double.POSITIVE_INFINITY;
+            boolean startInCity = inCity(startX, startY);
+            if(startInCity ? search.goalInCity && Arrays.equals(start, search.goal) :
+                    !search.goalInCity && inSight(startX, startY, search.goalX, search.goalY)) {
+                direct = joinWeight(startX, startY, search.goalX, search.goalY);
+            }
+            int first = search.search(start);
+            if(first < 0 || direct <= startWeights[first] + search.distances[first]) {
+                return direct == Double.POSITIVE_INFINITY ? null : new Route((int) direct, null);
+            }
+            return buildRoute(search, first, startX, startY, startInCity);
+        } finally {
+            for(int node : start) {
+                startWeights[node] = Double.POSITIVE_INFINITY;
+            }
+        }
+    }
+
+    /**
+     * Builds a route from the start through the nodes of a search to its destination
+     *
+     * @param search DestinationSearch
+     * @param first  first node after the start
+     * @param startX x position of the start
+     * @param startY y position of the start
+     * @param inCity whether the start is inside a block
+     * @return Route
+     */
+    private Route buildRoute(DestinationSearch search, int first, double startX, double startY, boolean inCity) {
+        // Points and the street and length of each leg between them
+        ArrayList<double[]> points = new ArrayList<>();
+        ArrayList<Integer> streets = new ArrayList<>();
+        ArrayList<Double> lengths = new ArrayList<>();
+        points.add(new double[]{startX, startY, -1});
+        streets.add(inCity ? joinStreet(startX, startY, first) : openPlaya);
+        lengths.add(startWeights[first]);
+        for(int node = first; node >= 0; node = search.next[node]) {
+            points.add(new double[]{nodeX[node], nodeY[node], node});
+            streets.add(search.next[node] < 0 && search.goalInCity ? joinStreet(search.goalX, search.goalY, node) :
+                    search.nextStreets[node]);
+            lengths.add(search.next[node] >= 0 ? search.distances[node] - search.distances[search.next[node]] :
+                    search.distances[node]);
+        }
+        points.add(new double[]{search.goalX, search.goalY, -1});
+
+        // Walking between a block and the street belongs to the street, as do positions at a corner
+        int last = streets.size() - 1;
+        if(streets.get(0) == offStreet || lengths.get(0) < 1) {
+            streets.set(0, streets.get(1));
+        }
+        if(streets.get(last) == offStreet || lengths.get(last) < 1) {
+            streets.set(last, streets.get(last - 1));
+        }
+
+        double total = 0;
+        for(double length : lengths) {
+            total += length;
+        }
+        double toTurn = lengths.get(0);
+        for(int leg = 1; leg < streets.size(); leg++) {
+            if(!streets.get(leg).equals(streets.get(leg - 1))) {
+                double[] before = points.get(leg - 1);
+                double[] at = points.get(leg);
+                double[] after = points.get(leg + 1);
+                String turn = turn(before, at, after) + " onto " + streetName(streets.get(leg)) + " at " +
+                        nodeAddress((int) at[2]);
+                return new Route((int) total, (int) toTurn + " ft, " + turn);
+            }
+            toTurn += lengths.get(leg);
+        }
+        return new Route((int) total, null);
+    }
+
+    /**
+     * Describes the turn at a point of a route
+     *
+     * @param before previous point
+     * @param at     turning point
+     * @param after  next point
+     * @return String turn, such as turn left
+     */
+    private static String turn(double[] before, double[] at, double[] after) {
+        double inX = at[0] - before[0];
+        double inY = at[1] - before[1];
+        double outX = after[0] - at[0];
+        double outY = after[1] - at[1];
+        // y grows toward 6:00, so a positive cross product turns clockwise on the map, to the right
+        double angle = Math.toDegrees(Math.atan2(inX * outY - inY * outX, inX * outX + inY * outY));
+        if(Math.abs(angle) < turnAngle) {
+            return "continue";
+        }
+        return angle > 0 ? "turn right" : "turn left";
+    }
+
+    /**
+     * Getter for the name of an edge street
+     *
+     * @param street ring index, rings + radial index, or openPlaya
+     * @return String name
+     */
+    private String streetName(int street) {
+        if(street < 0) {
+            return "open playa";
+        }
+        return street < rings ? streetGrid.getName(street + 1) : radialName(street - rings);
+    }
+
+    /**
+     * Getter for the address of a node
+     *
+     * @param node node index
+     * @return String address, such as 7:30 & D
+     */
+    private String nodeAddress(int node) {
+        return radialName(node % radials) + " & " + streetGrid.getName(node / radials + 1);
+    }
+
+    /**
+     * Getter for the name of a radial street
+     *
+     * @param radial radial index
+     * @return String time, such as 7:30
+     */
+    private static String radialName(int radial) {
+        int minutes = (int) Math.round((firstRadial + radial * radialSpacing) * 60);
+        return minutes / 60 + ":" + (minutes % 60 < 10 ? "0" : "") + minutes % 60;
+    }
+
+    /**
+     * Finds the nodes a position joins
+     * <p>
+     * A position inside a block joins the corners of its block, and a position on the open playa
+     * joins every edge node in sight. Just outside the outermost ring, the ring curves away and hides
+     * the nodes, so a position there also joins the nearest nodes on either side along the ring
+     *
+     * @param x x position in feet from the man
+     * @param y y position in feet from the man
+     * @return int array of node indexes, sorted
+     */
+    private int[] join(double x, double y) {
+        if(inCity(x, y)) {
+            double distance = length(x, y);
+            int ring = 0;
+            // Positions on a street, give or take half a foot, belong to the block outward or clockwise
+            while(ring < rings - 2 && ringRadii[ring + 1] <= distance + 0.5) {
+                ring++;
+            }
+            int radial = (int) ((toHours(x, y) - firstRadial + 0.5 / distance) / radialSpacing);
+            radial = Math.min(Math.max(radial, 0), radials - 2);
+            int node = ring * radials + radial;
+            return new int[]{node, node + 1, node + radials, node + radials + 1};
+        }
+        int outerRadial = -1;
+        double hours = toHours(x, y);
+        if(rings > 0 && hours > firstRadial && hours < lastRadial && length(x, y) > ringRadii[0]) {
+            outerRadial = Math.min((int) ((hours - firstRadial) / radialSpacing), radials - 2);
+        }
+        int[] joined = new int[edgeNodes.length];
+        int count = 0;
+        for(int node : edgeNodes) {
+            int radial = node % radials;
+            boolean outerNeighbor = node / radials == rings - 1 && (radial == outerRadial || radial == outerRadial + 1);
+            if(outerNeighbor || inSight(x, y, nodeX[node], nodeY[node])) {
+                joined[count++] = node;
+            }
+        }
+        return Arrays.copyOf(joined, count);
+    }
+
+    /**
+     * Distance walked between a position and a node it joins
+     * <p>
+     * A straight line if nothing is in the way. Otherwise, such as from inside a block where camps
+     * can't be crossed, along the street to the ring of the node and then along the ring.
+     *
+     * @param x     x position in feet from the man
+     * @param y     y position in feet from the man
+     * @param nodeX x position of the node or other position
+     * @param nodeY y position of the node or other position
+     * @return distance in feet
+     */
+    private double joinWeight(double x, double y, double nodeX, double nodeY) {
+        if(!inCity(x, y) && inSight(x, y, nodeX, nodeY)) {
+            return length(nodeX - x, nodeY - y);
+        }
+        double distance = length(x, y);
+        double nodeDistance = length(nodeX, nodeY);
+        double angle = Math.abs(Math.atan2(x, -y) - Math.atan2(nodeX, -nodeY));
+        angle = Math.min(angle, 2 * Math.PI - angle);
+        return Math.abs(distance - nodeDistance) + Math.min(distance, nodeDistance) * angle;
+    }
+
+    /**
+     * Finds the street between a position inside a block and a node it joins
+     *
+     * @param x    x position in feet from the man
+     * @param y    y position in feet from the man
+     * @param node node index
+     * @return ring index or rings + radial index if both are on one street, otherwise offStreet
+     */
+    private int joinStreet(double x, double y, int node) {
+        double distance = length(x, y);
+        if(Math.abs(distance - ringRadii[node / radials]) < 1) {
+            return node / radials;
+        }
+        double hours = firstRadial + node % radials * radialSpacing;
+        if(Math.abs(toHours(x, y) - hours) * distance * toAngle(1) < 1) {
+            return rings + node % radials;
+        }
+        return offStreet;
+    }
+
+    /**
+     * Checks whether a straight line stays clear of the blocks
+     * <p>
+     * Finds the part of the line between the innermost and outermost ring, and removes the part in
+     * the open sector from 10:00 to 2:00, a wedge bounded by the two radials
+     *
+     * @param x1 x position of one end
+     * @param y1 y position of one end
+     * @param x2 x position of the other end
+     * @param y2 y position of the other end
+     * @return true if no part of the line is inside a block
+     */
+    private boolean inSight(double x1, double y1, double x2, double y2) {
+        if(rings < 2) {
+            return true;
+        }
+        double dx = x2 - x1;
+        double dy = y2 - y1;
+
+        // Parts of the line, as fractions of its length, between the rings
+        double[] outer = within(x1, y1, dx, dy, ringRadii[rings - 1] - 1);
+        double[] inner = within(x1, y1, dx, dy, ringRadii[0] + 1);
+        if(outer == null) {
+            return true;
+        }
+        double[] band = inner == null ? new double[]{outer[0], outer[1]} :
+                new double[]{outer[0], Math.min(outer[1], inner[0]), Math.max(outer[0], inner[1]), outer[1]};
+
+        // Part of the line in the open sector, where the clock direction is clockwise of 10:00 and
+        // counterclockwise of 2:00, with half a foot of tolerance for lines along either radial
+        double lastAngle = toAngle(lastRadial);
+        double firstAngle = toAngle(firstRadial);
+        double[] gap = {0, 1};
+        clip(gap, x1 * Math.cos(lastAngle) + y1 * Math.sin(lastAngle) + 0.5,
+                dx * Math.cos(lastAngle) + dy * Math.sin(lastAngle));
+        clip(gap, x1 * -Math.cos(firstAngle) - y1 * Math.sin(firstAngle) + 0.5,
+                dx * -Math.cos(firstAngle) - dy * Math.sin(firstAngle));
+
+        for(int i = 0; i < band.length; i += 2) {
+            double from = Math.max(band[i], 0);
+            double to = Math.min(band[i + 1], 1);
+            if(to - from < 1e-9) {
+                continue;
+            }
+            // Clear only if the open sector covers all of this part
+            if(gap[0] > from + 1e-9 || gap[1] < to - 1e-9) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Finds the part of a line strictly within a distance of the man
+     *
+     * @param x      x position of the start of the line
+     * @param y      y position of the start of the line
+     * @param dx     x length of the line
+     * @param dy     y length of the line
+     * @param radius distance in feet
+     * @return start and end fractions of the line, unbounded, or null if the line never comes that close
+     */
+    private static double[] within(double x, double y, double dx, double dy, double radius) {
+        double a = dx * dx + dy * dy;
+        double b = 2 * (x * dx + y * dy);
+        double c = x * x + y * y - radius * radius;
+        if(a == 0) {
+            return c < 0 ? new double[]{Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY} : null;
+        }
+        double discriminant = b * b - 4 * a * c;
+        if(discriminant <= 0) {
+            return null;
+        }
+        double root = Math.sqrt(discriminant);
+        return new double[]{(-b - root) / (2 * a), (-b + root) / (2 * a)};
+    }
+
+    /**
+     * Narrows a range of fractions to where a linear function is at least zero
+     *
+     * @param range  start and end fractions, narrowed in place
+     * @param value  value at fraction 0
+     * @param change change in value from fraction 0 to 1
+     */
+    private static void clip(double[] range, double value, double change) {
+        if(change == 0) {
+            if(value < 0) {
+                range[1] = range[0] - 1;
+            }
+        } else if(change > 0) {
+            range[0] = Math.max(range[0], -value / change);
+        } else {
+            range[1] = Math.min(range[1], -value / change);
+        }
+    }
+
+    /**
+     * Checks whether a position is between the innermost and outermost ring and the first and last radial
+     *
+     * @param x x position in feet from the man
+     * @param y y position in feet from the man
+     * @return true if inside the city
+     */
+    private boolean inCity(double x, double y) {
+        if(rings < 2) {
+            return false;
+        }
+        double distance = length(x, y);
+        if(distance <= ringRadii[0] + 1 || distance >= ringRadii[rings - 1] - 1) {
+            return false;
+        }
+        double hours = toHours(x, y);
+        return hours > firstRadial + 1e-6 && hours < lastRadial - 1e-6;
+    }
+
+    /**
+     * Checks whether two nodes are joined by a street
+     *
+     * @param a node index
+     * @param b node index
+     * @return true if a street joins them
+     */
+    private boolean neighbors(int a, int b) {
+        int ringSteps = Math.abs(a / radials - b / radials);
+        int radialSteps = Math.abs(a % radials - b % radials);
+        return ringSteps + radialSteps == 1;
+    }
+
+    /**
+     * Runs Dijkstra's algorithm from a node
+     *
+     * @param source node index
+     * @return shortest distance to each node
+     */
+    private double[] shortestDistances(int source) {
+        double[] distances = new double[nodeX.length];
+        Arrays.fill(distances, Double.POSITIVE_INFINITY);
+        distances[source] = 0;
+        PriorityQueue<double[]> queue = new PriorityQueue<>((a, b) -> Double.compare(a[0], b[0]));
+        queue.add(new double[]{0, source});
+        while(!queue.isEmpty()) {
+            double[] top = queue.poll();
+            int node = (int) top[1];
+            if(top[0] > distances[node]) {
+                continue;
+            }
+            for(int edge = edgeStarts[node]; edge < edgeStarts[node + 1]; edge++) {
+                double distance = top[0] + edgeWeights[edge];
+                if(distance < distances[edgeTargets[edge]]) {
+                    distances[edgeTargets[edge]] = distance;
+                    queue.add(new double[]{distance, edgeTargets[edge]});
+                }
+            }
+        }
+        return distances;
+    }
+
+    /**
+     * Finds the node with the largest finite distance
+     *
+     * @param distances distance of each node
+     * @return node index
+     */
+    private static int furthest(double[] distances) {
+        int furthest = 0;
+        for(int node = 1; node < distances.length; node++) {
+            if(distances[node] != Double.POSITIVE_INFINITY &&
+                    (distances[furthest] == Double.POSITIVE_INFINITY || distances[node] > distances[furthest])) {
+                furthest = node;
+            }
+        }
+        return furthest;
+    }
+
+    /**
+     * Length of a vector, faster than Math.hypot, which guards against overflow these distances never reach
+     *
+     * @param x x length
+     * @param y y length
+     * @return length
+     */
+    private static double length(double x, double y) {
+        return Math.sqrt(x * x + y * y);
+    }
+
+    /**
+     * Converts a time on the clock to an angle clockwise from 12:00
+     *
+     * @param hours hours
+     * @return angle in radians
+     */
+    private static double toAngle(double hours) {
+        return 2 * Math.PI * hours / 12;
+    }
+
+    /**
+     * Converts a position to a time on the clock
+     *
+     * @param x x position in feet from the man
+     * @param y y position in feet from the man
+     * @return hours from 0 to 12
+     */
+    private static double toHours(double x, double y) {
+        double angle = Math.atan2(x, -y);
+        if(angle < 0) {
+            angle += 2 * Math.PI;
+        }
+        return angle / (2 * Math.PI) * 12;
+    }
+
+    /**
+     * Class Route
+     * <p>
+     * Length of a route and the next turn along it
+     */
+    public static class Route {
+        // Length in feet
+        private final int distance;
+
+        // Distance to and description of the next turn, null if there is no turn
+        private final String nextTurn;
+
+        /**
+         * Constructor
+         *
+         * @param distance length in feet
+         * @param nextTurn next turn, null if there is no turn
+         */
+        Route(int distance, String nextTurn) {
+            this.distance = distance;
+            this.nextTurn = nextTurn;
+        }
+
+        /**
+         * Getter for the length
+         *
+         * @return distance in feet
+         */
+        public int getDistance() {
+            return distance;
+        }
+
+        /**
+         * Getter for the next turn
+         *
+         * @return String such as 350 ft, turn left onto D at 7:00 &amp; D, null if there is no turn
+         */
+        public String getNextTurn() {
+            return nextTurn;
+        }
+
+        /**
+         * Formats the length and next turn
+         *
+         * @return String route
+         */
+        @Override
+        public String toString() {
+            return distance + " ft by street" + (nextTurn == null ? ", no turns" : ", " + nextTurn);
+        }
+    }
+
+    /**
+     * Class DestinationSearch
+     * <p>
+     * A* search backward from one destination, resumed for each start
+     */
+    private class DestinationSearch {
+        // Destination position, whether it is inside a block and the nodes it joins
+        private final double goalX;
+        private final double goalY;
+        private final boolean goalInCity;
+        private final int[] goal;
+
+        // Best known distance from each node to the destination, exact once settled
+        private final double[] distances;
+        private final boolean[] settled;
+
+        // Next node toward the destination, -1 if the next stop is the destination, and the street to it
+        private final int[] next;
+        private final int[] nextStreets;
+
+        /**
+         * Constructor
+         *
+         * @param goalX x position of the destination
+         * @param goalY y position of the destination
+         */
+        DestinationSearch(double goalX, double goalY) {
+            this.goalX = goalX;
+            this.goalY = goalY;
+            this.goalInCity = inCity(goalX, goalY);
+            this.goal = join(goalX, goalY);
+            int nodes = nodeX.length;
+            distances = new double[nodes];
+            settled = new boolean[nodes];
+            next = new int[nodes];
+            nextStreets = new int[nodes];
+            Arrays.fill(distances, Double.POSITIVE_INFINITY);
+            for(int node : goal) {
+                distances[node] = joinWeight(goalX, goalY, nodeX[node], nodeY[node]);
+                next[node] = -1;
+                nextStreets[node] = goalInCity ? offStreet : openPlaya;
+            }
+        }
+
+        /**
+         * Searches until the shortest route from the start nodes is known
+         * <p>
+         * The start weights must be set for the start nodes
+         *
+         * @param start nodes joined to the start
+         * @return first node of the shortest route, -1 if there is none
+         */
+        int search(int[] start) {
+            if(start.length == 0) {
+                return -1;
+            }
+            int best = -1;
+            boolean known = true;
+            for(int node : start) {
+                if(best < 0 || startWeights[node] + distances[node] < startWeights[best] + distances[best]) {
+                    best = node;
+                }
+                known &= settled[node];
+            }
+            // Settled distances are exact, so a start joined only to settled nodes needs no search
+            if(known) {
+                return best;
+            }
+
+            PriorityQueue<double[]> open = new PriorityQueue<>((a, b) -> Double.compare(a[0], b[0]));
+            for(int node = 0; node < distances.length; node++) {
+                if(!settled[node] && distances[node] != Double.POSITIVE_INFINITY) {
+                    open.add(new double[]{distances[node] + estimate(node, start), node, distances[node]});
+                }
+            }
+
+            while(!open.isEmpty() && open.peek()[0] < startWeights[best] + distances[best]) {
+                double[] top = open.poll();
+                int node = (int) top[1];
+                if(settled[node] || top[2] > distances[node]) {
+                    continue;
+                }
+                settled[node] = true;
+                for(int edge = edgeStarts[node]; edge < edgeStarts[node + 1]; edge++) {
+                    int target = edgeTargets[edge];
+                    double distance = distances[node] + edgeWeights[edge];
+                    if(settled[target] || distance >= distances[target]) {
+                        continue;
+                    }
+                    distances[target] = distance;
+                    next[target] = node;
+                    nextStreets[target] = edgeStreets[edge];
+                    open.add(new double[]{distance + estimate(target, start), target, distance});
+                    if(startWeights[target] + distance < startWeights[best] + distances[best]) {
+                        best = target;
+                    }
+                }
+            }
+            return distances[best] == Double.POSITIVE_INFINITY ? -1 : best;
+        }
+
+        /**
+         * Lower bound of the distance from a node back to the start
+         * <p>
+         * The larger of the straight line and landmark bounds to each start node, plus its weight
+         *
+         * @param node  node index
+         * @param start nodes joined to the start
+         * @return distance in feet
+         */
+        private double estimate(int node, int[] start) {
+            double estimate = Double.POSITIVE_INFINITY;
+            for(int target : start) {
+                double bound = length(nodeX[node] - nodeX[target], nodeY[node] - nodeY[target]);
+                for(double[] fromLandmark : landmarkDistances) {
+                    bound = Math.max(bound, Math.abs(fromLandmark[target] - fromLandmark[node]));
+                }
+                estimate = Math.min(estimate, bound + startWeights[target]);
+            }
+            return estimate;
+        }
+    }
+}
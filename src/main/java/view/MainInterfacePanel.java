@@ -1,9 +1,11 @@
 package view;
 
+import navigation.NavigationSnapshot;
+
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
 import java.awt.*;
-import java.util.TreeMap;
+import java.util.Objects;
 
 /**
  * Class MainInterfacePanel
@@ -30,6 +32,7 @@ class MainInterfacePanel {
     private JTextField destinationName;
     private JTextField destinationAddress;
     private JTextField destinationDirections;
+    private JTextField destinationRoute;
     private JPanel leftMenu;
     private JPanel leftMenuPanel;
     private JLabel nearestBathroomLabel;
@@ -46,6 +49,9 @@ class MainInterfacePanel {
     // main menu controller
     private Menu menu;
 
+    // Snapshot currently shown in the navigation fields, null before the first update
+    private NavigationSnapshot shownSnapshot;
+
 //**********************
 // Constructors and initializers
 //**********************
@@ -127,9 +133,10 @@ class MainInterfacePanel {
      * sets bathroom directions field
      *
      * @param fieldValue directions
+     * @param eta        time to reach, may be null
      */
-    private void setBathroomDirections(String fieldValue) {
-        this.bathroomDirections.setText(fieldValue);
+    private void setBathroomDirections(String fieldValue, String eta) {
+        this.bathroomDirections.setText(withEta(fieldValue, eta));
     }
 
     /**
@@ -145,9 +152,10 @@ class MainInterfacePanel {
      * sets home directions field
      *
      * @param fieldValue directions
+     * @param eta        time to reach, may be null
      */
-    private void setHomeDirections(String fieldValue) {
-        this.homeDirections.setText(fieldValue);
+    private void setHomeDirections(String fieldValue, String eta) {
+        this.homeDirections.setText(withEta(fieldValue, eta));
     }
 
     /**
@@ -172,9 +180,30 @@ class MainInterfacePanel {
      * sets destination directions field
      *
      * @param fieldValue directions
+     * @param eta        time to reach, may be null
      */
-    private void setDestinationDirections(String fieldValue) {
-        this.destinationDirections.setText(fieldValue);
+    private void setDestinationDirections(String fieldValue, String eta) {
+        this.destinationDirections.setText(withEta(fieldValue, eta));
+    }
+
+    /**
+     * sets destination route field
+     *
+     * @param fieldValue distance by street and next turn
+     */
+    private void setDestinationRoute(String fieldValue) {
+        this.destinationRoute.setText(fieldValue);
+    }
+
+    /**
+     * Appends the time to reach a place to its directions
+     *
+     * @param directions directions, may be null
+     * @param eta        time to reach, may be null
+     * @return String directions
+     */
+    private static String withEta(String directions, String eta) {
+        return directions == null || eta == null ? directions : directions + " (" + eta + ")";
     }
 
     /**
@@ -187,19 +216,40 @@ class MainInterfacePanel {
     }
 
     /**
-     * Updates all navigation fields
+     * Updates navigation fields that differ from the last snapshot shown
+     * <p>
+     * Unchanged fields are not set, so they are not repainted
      *
-     * @param map TreeMap containing field name and field value
+     * @param snapshot NavigationSnapshot
      */
-    void setNavigation(TreeMap<String, String> map) {
-        setCurrentAddress(map.get("currentAddress"));
-        setBathroomAddress(map.get("bathroomAddress"));
-        setBathroomDirections(map.get("bathroomDirections"));
-        setHomeAddress(map.get("homeAddress"));
-        setHomeDirections(map.get("homeDirections"));
-        setDestinationName(map.get("destinationName"));
-        setDestinationAddress(map.get("destinationAddress"));
-        setDestinationDirections(map.get("destinationDirections"));
+    void setNavigation(NavigationSnapshot snapshot) {
+        NavigationSnapshot previous = shownSnapshot;
+        if(snapshot == previous) {
+            return;
+        }
+        shownSnapshot = snapshot;
+        boolean all = previous == null;
+        if(all || !Objects.equals(previous.getCurrentAddress(), snapshot.getCurrentAddress()))
+            setCurrentAddress(snapshot.getCurrentAddress());
+        if(all || !Objects.equals(previous.getBathroomAddress(), snapshot.getBathroomAddress()))
+            setBathroomAddress(snapshot.getBathroomAddress());
+        if(all || !Objects.equals(previous.getBathroomDirections(), snapshot.getBathroomDirections()) ||
+                !Objects.equals(previous.getBathroomEta(), snapshot.getBathroomEta()))
+            setBathroomDirections(snapshot.getBathroomDirections(), snapshot.getBathroomEta());
+        if(all || !Objects.equals(previous.getHomeAddress(), snapshot.getHomeAddress()))
+            setHomeAddress(snapshot.getHomeAddress());
+        if(all || !Objects.equals(previous.getHomeDirections(), snapshot.getHomeDirections()) ||
+                !Objects.equals(previous.getHomeEta(), snapshot.getHomeEta()))
+            setHomeDirections(snapshot.getHomeDirections(), snapshot.getHomeEta());
+        if(all || !Objects.equals(previous.getDestinationName(), snapshot.getDestinationName()))
+            setDestinationName(snapshot.getDestinationName());
+        if(all || !Objects.equals(previous.getDestinationAddress(), snapshot.getDestinationAddress()))
+            setDestinationAddress(snapshot.getDestinationAddress());
+        if(all || !Objects.equals(previous.getDestinationDirections(), snapshot.getDestinationDirections()) ||
+                !Objects.equals(previous.getDestinationEta(), snapshot.getDestinationEta()))
+            setDestinationDirections(snapshot.getDestinationDirections(), snapshot.getDestinationEta());
+        if(all || !Objects.equals(previous.getDestinationRoute(), snapshot.getDestinationRoute()))
+            setDestinationRoute(snapshot.getDestinationRoute());
     }
 
     /**
@@ -289,6 +339,16 @@ class MainInterfacePanel {
         gbc.anchor = GridBagConstraints.WEST;
         gbc.fill = GridBagConstraints.HORIZONTAL;
         rightPanel.add(destinationDirections, gbc);
+        destinationRoute = new JTextField();
+        destinationRoute.setColumns(32);
+        destinationRoute.setEditable(false);
+        destinationRoute.setText("");
+        gbc = new GridBagConstraints();
+        gbc.gridx = 0;
+        gbc.gridy = 13;
+        gbc.anchor = GridBagConstraints.WEST;
+        gbc.fill = GridBagConstraints.HORIZONTAL;
+        rightPanel.add(destinationRoute, gbc);
         destinationAddress = new JTextField();
         destinationAddress.setColumns(32);
         destinationAddress.setEditable(false);
@@ -82,6 +82,7 @@ class Menu {
         menuItems = new MenuLabel[]{
                 new MenuLabel("Find Events", OptionPaneCreator::findEvents, view, navigator),
                 new MenuLabel("Happening soon", OptionPaneCreator::listEventsHappeningSoon, view, navigator),
+                new MenuLabel("Happening now", OptionPaneCreator::listEventsHappeningNow, view, navigator),
         };
 
         selected = 0;
@@ -9,6 +9,7 @@ import jdk.nashorn.internal.runtime.linker.NashornBeansLinker;
 import navigation.Landmark;
 import navigation.Location;
 import navigation.Navigator;
+import navigation.StreetGrid;
 
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
@@ -271,7 +272,6 @@ class OptionPaneCreator {
         int confirmation = JOptionPane.showConfirmDialog(view.getMainFrame(), "Delete note " + noteTitle + "?");
         if(confirmation == JOptionPane.YES_OPTION) {
             navigator.getNoteManager().deleteNote(noteTitle);
-            navigator.getNoteManager().saveNotes();
         }
     }
 
@@ -326,7 +326,6 @@ class OptionPaneCreator {
         }
 
         navigator.getNoteManager().createNote(noteTitle, noteBody);
-        navigator.getNoteManager().saveNotes();
     }
 
     /**
@@ -467,6 +466,16 @@ class OptionPaneCreator {
         }
     }
 
+    /**
+     * Lists events running now
+     *
+     * @param view      main view panel
+     * @param navigator main navigator object
+     */
+    static void listEventsHappeningNow(View view, Navigator navigator) {
+        showEvents(view, navigator.getEventManager().listHappeningNow());
+    }
+
     /**
      * Creates JOptionPane popup for deleting a favorite location
      *
@@ -481,8 +490,7 @@ class OptionPaneCreator {
 
         int confirmation = JOptionPane.showConfirmDialog(view.getMainFrame(), "Delete favorite " + landmark.getName() + "?");
         if(confirmation == JOptionPane.YES_OPTION) {
-            navigator.getFavorites().remove(landmark);
-            navigator.writeFavorites();
+            navigator.removeFavorite(landmark);
             navigator.writeToConfigFile();
         }
     }
@@ -548,8 +556,7 @@ class OptionPaneCreator {
             String favName = nameField.getText();
             Location favLocation = addressPanel.getAddress();
             String description = descriptionField.getText();
-            navigator.getFavorites().add(new Landmark(favName, description, favLocation));
-            navigator.writeFavorites();
+            navigator.addFavorite(new Landmark(favName, description, favLocation));
             navigator.writeToConfigFile();
         }
     }
@@ -638,7 +645,6 @@ class OptionPaneCreator {
 
 
         ArrayList<String> camps = navigator.findCamps(nameField.getText());
-        camps.sort(String::compareToIgnoreCase);
         if(camps.isEmpty()) {
             JOptionPane.showMessageDialog(view.getMainFrame(), "Camp not found");
             return;
@@ -732,10 +738,10 @@ class OptionPaneCreator {
         OptionPane pane = new OptionPane();
         pane.addLabel("Enter block widths:");
 
-        Object[][] blockDistances = Location.getBlockDistances();
-        BlockPane[] blockPanes = new BlockPane[blockDistances.length];
-        for(int i = 0; i < blockDistances.length; i++) {
-            blockPanes[i] = new BlockPane(String.valueOf(blockDistances[i][0]), (String) blockDistances[i][1]);
+        StreetGrid streetGrid = Location.getStreetGrid();
+        BlockPane[] blockPanes = new BlockPane[streetGrid.size()];
+        for(int i = 0; i < streetGrid.size(); i++) {
+            blockPanes[i] = new BlockPane(String.valueOf(streetGrid.getDistance(i)), streetGrid.getName(i));
         }
 
         for(BlockPane blockPane : blockPanes) {
@@ -746,18 +752,19 @@ class OptionPaneCreator {
             return;
         }
 
-        Object[][] blockDistancesUpdated = new Object[blockDistances.length][2];
+        int[] distances = new int[blockPanes.length];
+        String[] streets = new String[blockPanes.length];
         for(int i = 0; i < blockPanes.length; i++) {
             try {
-                blockDistancesUpdated[i][0] = Integer.parseInt(blockPanes[i].getDistance());
-                blockDistancesUpdated[i][1] = blockPanes[i].getStreet();
+                distances[i] = Integer.parseInt(blockPanes[i].getDistance());
+                streets[i] = blockPanes[i].getStreet();
             } catch(NumberFormatException e) {
                 OptionPane.showMessage(view.getMainFrame(),
                         "Invalid distance for street " + blockPanes[i].getStreet());
                 return;
             }
         }
-        Location.setBlockDistances(blockDistancesUpdated);
+        Location.setStreetGrid(new StreetGrid(distances, streets));
     }
 
     public static void exitProgram(View view, Navigator navigator) {
@@ -0,0 +1,139 @@
+package view;
+
+import navigation.NavigationSnapshot;
+
+import javax.swing.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Class UpdateDispatcher
+ * <p>
+ * Moves view updates from background threads onto the Event Dispatch Thread
+ * <p>
+ * Each kind of update has a latest-value slot, so an update that arrives before the previous one was
+ * shown replaces it. Pending slots are applied together in one batch, at most once per refresh interval.
+ * Updates posted from the Event Dispatch Thread are applied immediately.
+ *
+ * @author Brian Hooper
+ * @since 0.9.8
+ */
+class UpdateDispatcher {
+    // Main panel updated by this dispatcher
+    private final MainInterfacePanel panel;
+
+    // Latest pending updates, null if nothing is pending
+    private final AtomicReference<NavigationSnapshot> navigation = new AtomicReference<>();
+    private final AtomicReference<double[]> coordinates = new AtomicReference<>();
+    private final AtomicReference<String> clock = new AtomicReference<>();
+
+    // True while a batch is scheduled but not yet applied
+    private final AtomicBoolean scheduled = new AtomicBoolean(false);
+
+    // Delays a batch until the refresh interval has passed, only used on the Event Dispatch Thread
+    private final Timer timer;
+
+    // Minimum milliseconds between batches
+    private volatile int refreshInterval = 100;
+
+    // Time of the last batch in milliseconds, only used on the Event Dispatch Thread
+    private long lastFlush = 0;
+
+    /**
+     * Constructor
+     *
+     * @param panel MainInterfacePanel to update
+     */
+    UpdateDispatcher(MainInterfacePanel panel) {
+        this.panel = panel;
+        this.timer = new Timer(0, e -> flush());
+        this.timer.setRepeats(false);
+    }
+
+    /**
+     * Sets the maximum refresh rate
+     *
+     * @param rate batches per second, 0 or less to apply every update immediately
+     */
+    void setRefreshRate(int rate) {
+        refreshInterval = rate > 0 ? 1000 / rate : 0;
+    }
+
+    /**
+     * Queues a navigation snapshot
+     *
+     * @param snapshot NavigationSnapshot
+     */
+    void postNavigation(NavigationSnapshot snapshot) {
+        navigation.set(snapshot);
+        schedule();
+    }
+
+    /**
+     * Queues the current coordinates
+     *
+     * @param latitude  latitude
+     * @param longitude longitude
+     */
+    void postCoordinates(double latitude, double longitude) {
+        coordinates.set(new double[]{latitude, longitude});
+        schedule();
+    }
+
+    /**
+     * Queues the clock text
+     *
+     * @param clockValue time string
+     */
+    void postClock(String clockValue) {
+        clock.set(clockValue);
+        schedule();
+    }
+
+    /**
+     * Schedules a batch unless one is already scheduled
+     */
+    private void schedule() {
+        if(SwingUtilities.isEventDispatchThread()) {
+            timer.stop();
+            flush();
+        } else if(scheduled.compareAndSet(false, true)) {
+            SwingUtilities.invokeLater(this::delayFlush);
+        }
+    }
+
+    /**
+     * Applies the batch now, or starts the timer if the last batch was too recent
+     */
+    private void delayFlush() {
+        long delay = lastFlush + refreshInterval - System.currentTimeMillis();
+        if(delay <= 0) {
+            flush();
+        } else if(!timer.isRunning()) {
+            timer.setInitialDelay((int) delay);
+            timer.start();
+        }
+    }
+
+    /**
+     * Applies all pending updates
+     */
+    private void flush() {
+        // Cleared first, so an update posted while applying schedules another batch
+        scheduled.set(false);
+        lastFlush = System.currentTimeMillis();
+
+        NavigationSnapshot snapshot = navigation.getAndSet(null);
+        if(snapshot != null) {
+            panel.setNavigation(snapshot);
+        }
+        double[] location = coordinates.getAndSet(null);
+        if(location != null) {
+            panel.setLocation(location[0], location[1]);
+        }
+        String clockValue = clock.getAndSet(null);
+        if(clockValue != null) {
+            panel.setClock(clockValue);
+        }
+    }
+}
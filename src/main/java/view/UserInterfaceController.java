@@ -3,6 +3,7 @@ package view;
 import driver.ClockDriver;
 import driver.CoordinateListener;
 import driver.LogDriver;
+import driver.TaskScheduler;
 import navigation.Navigator;
 
 import java.awt.event.MouseEvent;
@@ -28,7 +29,10 @@ public class UserInterfaceController {
     // Managers for location and landmarks
     private final Navigator navigator;
 
-    // Threads for updating clock and coordinates
+    // Shared scheduler for periodic tasks
+    private final TaskScheduler scheduler;
+
+    // Drivers for updating clock and coordinates
     private final ClockDriver clockDriver;
     private final CoordinateListener coordinateListener;
 
@@ -46,18 +50,34 @@ public class UserInterfaceController {
      * @param navigator Navigator object
      */
     private UserInterfaceController(View view, Navigator navigator) {
-        LogDriver.activate();
         this.view = view;
         this.navigator = navigator;
+        LogDriver.activate();
+        LogDriver.configure(navigator::getConfigValue);
 
+        try {
+            view.setRefreshRate(Integer.parseInt(navigator.getConfigValue("UI-REFRESH-RATE", "10")));
+        } catch(NumberFormatException e) {
+            logger.warning(this.getClass(), "Invalid UI-REFRESH-RATE: " + e.getMessage());
+        }
         view.setNavigation(navigator);
+        navigator.whenLoaded(() -> view.setNavigation(navigator));
+        navigator.whenRoutesBuilt(() -> view.setNavigation(navigator));
         KeyController controller = new KeyController(this);
         view.setKeyListener(controller);
 
-        coordinateListener = new CoordinateListener(navigator, view);
+        int threads = 2;
+        try {
+            threads = Integer.parseInt(navigator.getConfigValue("SCHEDULER-THREADS", "2"));
+        } catch(NumberFormatException e) {
+            logger.warning(this.getClass(), "Invalid SCHEDULER-THREADS: " + e.getMessage());
+        }
+        scheduler = new TaskScheduler("scheduler", threads, navigator::getConfigValue);
+
+        coordinateListener = new CoordinateListener(navigator, view, scheduler);
         coordinateListener.start();
 
-        clockDriver = new ClockDriver(view);
+        clockDriver = new ClockDriver(view, scheduler);
         clockDriver.start();
         menuEscape();
     }
@@ -75,25 +95,16 @@ public class UserInterfaceController {
     }
 
     /**
-     * Rejoins thread processes, closes open files, and terminates the program
+     * Stops scheduled tasks, closes open files, and terminates the program
      */
     private void exit() {
-        navigator.writeToConfigFile();
-        navigator.writeFavorites();
-        navigator.getNoteManager().saveNotes();
-        logger.close();
+        navigator.close();
 
         clockDriver.terminate();
         coordinateListener.terminate();
-
-        try {
-            clockDriver.join(2000);
-            coordinateListener.join(2000);
-        } catch(InterruptedException e) {
-            logger.severe(this.getClass(), "InterruptedException while joining threads: " + e.getMessage());
-            System.exit(1);
-        }
-        System.exit(0);
+        boolean stopped = scheduler.shutdown(2000);
+        logger.close();
+        System.exit(stopped ? 0 : 1);
     }
 
 //**********************
@@ -1,5 +1,6 @@
 package view;
 
+import driver.NavigationSink;
 import navigation.Navigator;
 
 import javax.swing.*;
@@ -16,7 +17,7 @@ import java.awt.event.MouseListener;
  * @author Brian Hooper
  * @since 0.9.0
  */
-public class View {
+public class View implements NavigationSink {
 //**********************
 // Class member fields
 //**********************
@@ -25,6 +26,9 @@ public class View {
     private final JFrame mainFrame;
     private final MainInterfacePanel mainPanel;
 
+    // Applies updates from background threads on the Event Dispatch Thread
+    private final UpdateDispatcher dispatcher;
+
     // Global standard font
     static final Font standardFont = new Font("Monospaced", Font.PLAIN, 14);
 
@@ -42,6 +46,7 @@ public class View {
 
         mainPanel = new MainInterfacePanel();
         mainPanel.getMainPanel().setBackground(Color.LIGHT_GRAY);
+        dispatcher = new UpdateDispatcher(mainPanel);
 
         mainFrame = new JFrame("MainInterfacePanel");
 
@@ -109,11 +114,23 @@ public class View {
 
     /**
      * Updates navigation fields with navigator data
+     * <p>
+     * May be called from any thread
      *
      * @param navigator Navigator
      */
+    @Override
     public void setNavigation(Navigator navigator) {
-        mainPanel.setNavigation(navigator.getPanelUpdate());
+        dispatcher.postNavigation(navigator.getSnapshot());
+    }
+
+    /**
+     * Sets the maximum rate at which updates from background threads are shown
+     *
+     * @param rate updates per second
+     */
+    void setRefreshRate(int rate) {
+        dispatcher.setRefreshRate(rate);
     }
 
     /**
@@ -146,21 +163,26 @@ public class View {
 
     /**
      * Sets the clock value
+     * <p>
+     * May be called from any thread
      *
      * @param clockValue time string
      */
     public void setClock(String clockValue) {
-        mainPanel.setClock(clockValue);
+        dispatcher.postClock(clockValue);
     }
 
     /**
      * Updates main panel with latitude and longitude
+     * <p>
+     * May be called from any thread
      *
      * @param latitude  latitude
      * @param longitude longitude
      */
+    @Override
     public void setLocation(double latitude, double longitude) {
-        mainPanel.setLocation(latitude, longitude);
+        dispatcher.postCoordinates(latitude, longitude);
     }
 
 //**********************